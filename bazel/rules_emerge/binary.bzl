@@ -6,7 +6,15 @@ def _build_project_config_json(
         target_triple,
         output_directory,
         all_modules,
-        emit_debug_info):
+        emit_debug_info,
+        object_file_cache_directory):
+    target_config = {
+        "output-directory": path_from_project_config_toolchain_cwd + output_directory,
+        "emit-debug-info": emit_debug_info,
+    }
+    if object_file_cache_directory:
+        target_config["object-file-cache-directory"] = object_file_cache_directory
+
     return {
         "modules": [{
             "name": module.name,
@@ -14,10 +22,7 @@ def _build_project_config_json(
             "uses": [dep.name for dep in module.uses.to_list()],
         } for module in all_modules if module.source_directory != None],
         "targets": {
-            target_triple: {
-                "output-directory": path_from_project_config_toolchain_cwd + output_directory,
-                "emit-debug-info": emit_debug_info,
-            },
+            target_triple: target_config,
         },
     }
 
@@ -36,24 +41,38 @@ def _emerge_binary_impl(ctx):
             llvm_target_triple,
             output_file.dirname,
             all_modules,
+            ctx.attr.emit_debug_info,
+            ctx.attr.object_file_cache_directory,
         )),
     )
 
     all_src_files = depset(transitive = [depset([f for f in m.source_files]) for m in all_modules])
     toolchain = ctx.toolchains["//:toolchain"].emerge_toolchain_info
 
+    # the command-specific arguments go to a params file; with a persistent worker, everything before
+    # it is the startup command line of the worker process and the file contents are sent per request
+    compile_args = ctx.actions.args()
+    compile_args.add_all([
+        "project",
+        "--project-config",
+        project_config_file.path,
+        "compile",
+        "--target",
+        llvm_target_triple,
+    ])
+    compile_args.use_param_file("@%s", use_always = True)
+    compile_args.set_param_file_format("multiline")
+
     ctx.actions.run(
         executable = toolchain.base_command[0],
-        arguments = toolchain.base_command[1:] + [
-            "project",
-            "--project-config",
-            project_config_file.path,
-            "compile",
-            "--target",
-            llvm_target_triple,
-        ],
+        arguments = toolchain.base_command[1:] + [compile_args],
         inputs = all_src_files.to_list() + [project_config_file],
         outputs = [output_file],
+        mnemonic = "EmergeCompile",
+        execution_requirements = {
+            "supports-workers": "1",
+            "requires-worker-protocol": "json",
+        },
         progress_message = "Compiling binary {}; {} emerge modules: {}".format(output_file.path, len(all_modules), [m.name for m in all_modules]),
         toolchain = Label("//:toolchain"),
         # this is necessary so that io.github.tmarsteel.emerge.backend.llvm.ToolDiscoverer can find dependencies
@@ -68,6 +87,12 @@ emerge_binary = rule(
     attrs = {
         "root_module": attr.label(mandatory = True, allow_files = False, allow_rules = ["emerge_module_internal"]),
         "emit_debug_info": attr.bool(default = True, doc = "If true, the executable will contain debugging symbols (variable names and types). Line numbers and function names are always included."),
+        "object_file_cache_directory": attr.string(
+            default = "",
+            doc = "Absolute path of a directory where compiled object files are kept across builds, so that unchanged parts of the program are not compiled again. " +
+                  "This is outside of the declared outputs, so it must be writable from the sandbox (e.g. --sandbox_writable_path). " +
+                  "If empty (the default), or if the directory is not writable, everything is compiled on every build.",
+        ),
         "_triple": attr.label(
             default = "//target:selected_target_triple",
         ),
@@ -0,0 +1,26 @@
+package allocationchurn
+
+import emerge.platform.StandardOut
+
+// allocates lots of small objects; most of them die right away, some survive for a while in
+// a ring buffer. Covers the allocator and reference counting.
+mut fn main() {
+    ring: mut _ = Array.new::<Node?>(RING_SIZE, null)
+    var checksum: UWord = 0
+    var i: UWord = 0
+    while i < ALLOCATIONS {
+        node = Node(i, Node(i + 1, null))
+        set checksum = checksum + node.value + node.next!!.value
+        ring.setOrPanic(i.rem(RING_SIZE), node)
+        set i = i + 1
+    }
+    StandardOut.put("checksum: " + checksum.toString() + "\n")
+}
+
+class Node {
+    value: UWord = init
+    next: Node? = init
+}
+
+RING_SIZE: UWord = 1024
+ALLOCATIONS: UWord = 2000000
@@ -0,0 +1,35 @@
+package arraylistpushiterate
+
+import emerge.platform.StandardOut
+import emerge.std.collections.ArrayList
+
+// fills lists of growing size element by element, then sums them up with foreach;
+// covers ArrayList.add including re-allocation, and iterating through a range
+mut fn main() {
+    var sum: UWord = 0
+    var round: UWord = 0
+    while round < ROUNDS {
+        set sum = sum + fillAndSum(ELEMENTS_PER_ROUND)
+        set round = round + 1
+    }
+    StandardOut.put("sum: " + sum.toString() + "\n")
+}
+
+fn fillAndSum(nElements: UWord) -> UWord {
+    list: mut _ = ArrayList::<UWord>(0)
+    var element: UWord = 0
+    while element < nElements {
+        list.add(element)
+        set element = element + 1
+    }
+
+    var sum: UWord = 0
+    foreach e in list {
+        set sum = sum + e
+    }
+
+    return sum
+}
+
+ROUNDS: UWord = 200
+ELEMENTS_PER_ROUND: UWord = 10000
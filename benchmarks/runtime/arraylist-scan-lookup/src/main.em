@@ -0,0 +1,48 @@
+package arraylistscanlookup
+
+import emerge.core.Pair
+import emerge.platform.StandardOut
+import emerge.std.collections.ArrayList
+
+// the linear-scan lookup table that HashMap replaces; see hashmap-lookup
+mut fn main() {
+    var hits: UWord = 0
+    set hits = hits + lookupRepeatedly(16)
+    set hits = hits + lookupRepeatedly(256)
+    set hits = hits + lookupRepeatedly(4096)
+    StandardOut.put("hits: " + hits.toString() + "\n")
+}
+
+fn lookupRepeatedly(tableSize: UWord) -> UWord {
+    table: mut _ = ArrayList::<Pair<UWord, UWord>>(0)
+    var key: UWord = 0
+    while key < tableSize {
+        table.add(Pair(key * 7, key))
+        set key = key + 1
+    }
+
+    var hits: UWord = 0
+    var nLookups: UWord = 0
+    while nLookups < LOOKUPS_PER_SIZE {
+        if containsKey(table, nLookups.rem(tableSize) * 7) {
+            set hits = hits + 1
+        }
+        set nLookups = nLookups + 1
+    }
+
+    return hits
+}
+
+fn containsKey(borrow table: read ArrayList<Pair<UWord, UWord>>, key: UWord) -> Bool {
+    var index: UWord = 0
+    while index < table.size {
+        if table.getOrPanic(index).first == key {
+            return true
+        }
+        set index = index + 1
+    }
+
+    return false
+}
+
+LOOKUPS_PER_SIZE: UWord = 200000
@@ -0,0 +1,36 @@
+package exceptionthrowing
+
+import emerge.platform.StandardOut
+
+// throws exceptions through a few stack frames and catches them again; covers collecting
+// the stack trace and unwinding
+mut fn main() {
+    var nCaught: UWord = 0
+    var round: UWord = 0
+    while round < ROUNDS {
+        try {
+            throwAtDepth(CALL_DEPTH)
+        } catch e {
+            set nCaught = nCaught + 1
+        }
+        set round = round + 1
+    }
+    StandardOut.put("caught: " + nCaught.toString() + "\n")
+}
+
+fn throwAtDepth(depth: UWord) {
+    if depth == 0 {
+        throw BenchmarkException()
+    }
+
+    throwAtDepth(depth - 1)
+}
+
+class BenchmarkException : Throwable {
+    constructor {
+        mixin ThrowableTrait("thrown by the benchmark")
+    }
+}
+
+ROUNDS: UWord = 20000
+CALL_DEPTH: UWord = 10
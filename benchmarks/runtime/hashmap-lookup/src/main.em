@@ -0,0 +1,36 @@
+package hashmaplookup
+
+import emerge.platform.StandardOut
+import emerge.std.collections.HashMap
+
+// counterpart to arraylist-scan-lookup: the same number of lookups per table size,
+// so the two programs can be compared size by size
+mut fn main() {
+    var hits: UWord = 0
+    set hits = hits + lookupRepeatedly(16)
+    set hits = hits + lookupRepeatedly(256)
+    set hits = hits + lookupRepeatedly(4096)
+    StandardOut.put("hits: " + hits.toString() + "\n")
+}
+
+fn lookupRepeatedly(tableSize: UWord) -> UWord {
+    table: mut _ = HashMap::<UWord, UWord>()
+    var key: UWord = 0
+    while key < tableSize {
+        table.put(key * 7, key)
+        set key = key + 1
+    }
+
+    var hits: UWord = 0
+    var nLookups: UWord = 0
+    while nLookups < LOOKUPS_PER_SIZE {
+        if table.containsKey(nLookups.rem(tableSize) * 7) {
+            set hits = hits + 1
+        }
+        set nLookups = nLookups + 1
+    }
+
+    return hits
+}
+
+LOOKUPS_PER_SIZE: UWord = 200000
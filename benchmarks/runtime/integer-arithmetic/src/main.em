@@ -0,0 +1,34 @@
+package integerarithmetic
+
+import emerge.platform.StandardOut
+
+// tight integer loops without any allocation: a linear congruential generator feeding collatz sequences
+mut fn main() {
+    var state: UWord = 1
+    var totalSteps: UWord = 0
+    var i: UWord = 0
+    while i < ITERATIONS {
+        // the modulus keeps state * multiplier well within 64 bits
+        set state = (state * 1103515245 + 12345).rem(2147483648)
+        set totalSteps = totalSteps + collatzSteps(state.rem(100000) + 1)
+        set i = i + 1
+    }
+    StandardOut.put("steps: " + totalSteps.toString() + "\n")
+}
+
+fn collatzSteps(start: UWord) -> UWord {
+    var n = start
+    var steps: UWord = 0
+    while n != 1 {
+        if n.rem(2) == 0 {
+            set n = n / 2
+        } else {
+            set n = n * 3 + 1
+        }
+        set steps = steps + 1
+    }
+
+    return steps
+}
+
+ITERATIONS: UWord = 1000000
@@ -0,0 +1,64 @@
+package iterabledispatch
+
+import emerge.core.range.EmptyRangeException
+import emerge.core.range.InputRange
+import emerge.core.range.Iterable
+import emerge.platform.StandardOut
+import emerge.std.collections.ArrayList
+
+// sums up two different implementations of Iterable through the interface, so that asRange,
+// front and popFront are all dispatched virtually
+mut fn main() {
+    list: mut _ = ArrayList::<UWord>(0)
+    var element: UWord = 1
+    while element <= ELEMENTS {
+        list.add(element)
+        set element = element + 1
+    }
+    countdown = Countdown(ELEMENTS)
+
+    var sum: UWord = 0
+    var round: UWord = 0
+    while round < ROUNDS {
+        set sum = sum + sumOf(list) + sumOf(countdown)
+        set round = round + 1
+    }
+    StandardOut.put("sum: " + sum.toString() + "\n")
+}
+
+fn sumOf(values: read Iterable<UWord>) -> UWord {
+    var sum: UWord = 0
+    foreach value in values {
+        set sum = sum + value
+    }
+
+    return sum
+}
+
+// the numbers from [from] down to 1
+class Countdown : Iterable<UWord> {
+    from: UWord = init
+
+    override fn asRange(capture self) -> exclusive InputRange<UWord> = CountdownRange(self.from)
+}
+
+class CountdownRange : InputRange<UWord> {
+    var current: UWord = init
+
+    override get fn front(self) -> UWord {
+        if self.current == 0 {
+            throw EmptyRangeException()
+        }
+
+        return self.current
+    }
+
+    override fn popFront(self: mut _) {
+        if self.current > 0 {
+            set self.current = self.current - 1
+        }
+    }
+}
+
+ROUNDS: UWord = 500
+ELEMENTS: UWord = 10000
@@ -0,0 +1,41 @@
+package stringconcatenation
+
+import emerge.platform.StandardOut
+import emerge.std.StringBuilder
+
+// builds the same strings from many small parts, once with String.plus and once with a StringBuilder
+mut fn main() {
+    var totalSize: UWord = 0
+    var round: UWord = 0
+    while round < ROUNDS {
+        set totalSize = totalSize + concatenateWithPlus(PARTS_PER_ROUND) + concatenateWithBuilder(PARTS_PER_ROUND)
+        set round = round + 1
+    }
+    StandardOut.put("total size: " + totalSize.toString() + "\n")
+}
+
+fn concatenateWithPlus(nParts: UWord) -> UWord {
+    var result: String = ""
+    var part: UWord = 0
+    while part < nParts {
+        set result = result + part.toString() + ","
+        set part = part + 1
+    }
+
+    return result.utf8Data.size
+}
+
+fn concatenateWithBuilder(nParts: UWord) -> UWord {
+    builder: mut _ = StringBuilder(16)
+    var part: UWord = 0
+    while part < nParts {
+        builder.put(part.toString())
+        builder.put(",")
+        set part = part + 1
+    }
+
+    return builder.toString().utf8Data.size
+}
+
+ROUNDS: UWord = 2000
+PARTS_PER_ROUND: UWord = 200
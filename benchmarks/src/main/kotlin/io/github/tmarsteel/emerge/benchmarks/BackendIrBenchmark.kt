@@ -0,0 +1,46 @@
+package io.github.tmarsteel.emerge.benchmarks
+
+import compiler.binding.context.SoftwareContext
+import compiler.diagnostic.Diagnosis
+import io.github.tmarsteel.emerge.backend.api.ir.IrFunction
+import io.github.tmarsteel.emerge.backend.api.ir.IrSoftwareContext
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+
+@Fork(value = 1, jvmArgsAppend = ["-Xss20M"])
+open class BackendIrBenchmark {
+    @State(Scope.Thread)
+    open class AnalysedStdlib {
+        private val asts by lazy { BenchmarkSources.stdlibModules.loadSourceFiles().parse() }
+
+        lateinit var softwareContext: SoftwareContext
+
+        /** the IR is cached in the bound objects, so every invocation needs a freshly analysed context */
+        @Setup(Level.Invocation)
+        fun setUp() {
+            softwareContext = asts.bind()
+            softwareContext.doSemanticAnalysis(Diagnosis.failOnError())
+        }
+    }
+
+    @Benchmark
+    fun toBackendIr(state: AnalysedStdlib, blackhole: Blackhole) {
+        // function bodies are lowered lazily, only when the backend asks for them
+        state.softwareContext.toBackendIr().allFunctions.forEach { blackhole.consume(it.body) }
+    }
+}
+
+internal val IrSoftwareContext.allFunctions: Sequence<IrFunction>
+    get() {
+        val packages = modules.asSequence().flatMap { it.packages }
+        val topLevelFunctions = packages.flatMap { it.functions }
+        val memberFunctions = (packages.flatMap { it.interfaces } + packages.flatMap { it.classes })
+            .flatMap { it.memberFunctions }
+
+        return (topLevelFunctions + memberFunctions).flatMap { it.overloads }
+    }
@@ -0,0 +1,152 @@
+package io.github.tmarsteel.emerge.benchmarks
+
+import compiler.ast.ASTSourceFile
+import compiler.binding.context.ModuleContext
+import compiler.binding.context.PackageContext
+import compiler.binding.context.SoftwareContext
+import compiler.diagnostic.Diagnosis
+import compiler.lexer.LexerSourceFile
+import compiler.lexer.SourceSet
+import compiler.lexer.lex
+import compiler.parser.SourceFileRule
+import compiler.parser.grammar.rule.MatchingResult
+import io.github.tmarsteel.emerge.backend.llvm.linux_x86_64.Linux_x68_64_Backend
+import io.github.tmarsteel.emerge.backend.noop.NoopBackend
+import io.github.tmarsteel.emerge.common.CanonicalElementName
+import io.github.tmarsteel.emerge.common.EmergeConstants
+import io.github.tmarsteel.emerge.common.config.ConfigModuleDefinition
+import java.nio.file.Path
+import java.nio.file.Paths
+import kotlin.io.path.exists
+
+/**
+ * The emerge sources the benchmarks compile; all of them live in this repository. The repository root is taken
+ * from the system property [PROJECT_ROOT_PROPERTY], or otherwise found by walking up from the working directory,
+ * like the tests of the frontend do it.
+ */
+internal object BenchmarkSources {
+    const val PROJECT_ROOT_PROPERTY = "emerge.benchmarks.project-root"
+
+    private val projectRoot: Path by lazy {
+        System.getProperty(PROJECT_ROOT_PROPERTY)?.let { Paths.get(it).toAbsolutePath() } ?: findProjectRoot()
+    }
+
+    private val coreModule by lazy {
+        ConfigModuleDefinition(EmergeConstants.CoreModule.NAME, projectRoot.resolve("stdlib/core"))
+    }
+
+    private val stdModule by lazy {
+        ConfigModuleDefinition(EmergeConstants.StdModule.NAME, projectRoot.resolve("stdlib/std"), uses = setOf(EmergeConstants.CoreModule.NAME))
+    }
+
+    /** `emerge.core` and `emerge.std`, plus the platform module of the [NoopBackend] */
+    val stdlibModules: List<ConfigModuleDefinition> by lazy {
+        val noopBackendConfig = NoopBackend.Config(projectRoot.resolve("backend-api/src/main/emerge/noop-backend-platform"))
+        listOf(coreModule, stdModule) + NoopBackend().getTargetSpecificModules(noopBackendConfig, Unit)
+    }
+
+    /**
+     * `emerge.core` and `emerge.std`, the modules specific to [Linux_x68_64_Backend] and the `hashmap-lookup`
+     * runtime benchmark as the program with the `main` function.
+     */
+    val linuxProgramModules: List<ConfigModuleDefinition> by lazy {
+        val llvmBackendSources = projectRoot.resolve("llvm-backend/src/main")
+        listOf(coreModule, stdModule) + Linux_x68_64_Backend.getTargetSpecificModules(
+            ffiCSources = llvmBackendSources.resolve("emerge-ffi-c"),
+            libcSources = llvmBackendSources.resolve("emerge-linux-libc"),
+            platformSources = llvmBackendSources.resolve("emerge-platform-linux"),
+        ) + ConfigModuleDefinition(
+            CanonicalElementName.Package(listOf("hashmaplookup")),
+            runtimeBenchmarksDirectory.resolve("hashmap-lookup/src"),
+            uses = setOf(EmergeConstants.PlatformModule.NAME),
+        )
+    }
+
+    /** contains one emerge project per runtime benchmark, see [io.github.tmarsteel.emerge.benchmarks.runtime.RuntimeBenchmarksCommand] */
+    val runtimeBenchmarksDirectory: Path by lazy {
+        projectRoot.resolve("benchmarks/runtime")
+    }
+
+    private fun findProjectRoot(): Path {
+        var assumedRoot = Paths.get(".").toAbsolutePath().parent
+        require(assumedRoot.resolve("pom.xml").exists()) {
+            "The benchmarks must execute with a CWD that is one of the maven modules, or with the system property $PROJECT_ROOT_PROPERTY set."
+        }
+        var assumedRootParent = assumedRoot.parent
+        while (assumedRootParent.resolve("pom.xml").exists()) {
+            assumedRoot = assumedRootParent
+            assumedRootParent = assumedRoot.parent
+        }
+
+        return assumedRoot
+    }
+}
+
+internal fun List<ConfigModuleDefinition>.loadSourceFiles(): Map<ConfigModuleDefinition, Collection<LexerSourceFile>> {
+    return associateWith { SourceSet.load(it.sourceDirectory, it.name) }
+}
+
+internal fun Map<ConfigModuleDefinition, Collection<LexerSourceFile>>.parse(): Map<ConfigModuleDefinition, List<ASTSourceFile>> {
+    return mapValues { (module, sourceFiles) ->
+        sourceFiles.map { sourceFile ->
+            when (val result = SourceFileRule.match(lex(sourceFile), sourceFile)) {
+                is MatchingResult.Success -> result.item
+                is MatchingResult.Error -> throw IllegalStateException("Module ${module.name} has errors: ${result.diagnostic}")
+            }
+        }
+    }
+}
+
+internal fun Map<ConfigModuleDefinition, List<ASTSourceFile>>.bind(): SoftwareContext {
+    val swCtx = SoftwareContext()
+    forEach { (module, sourceFiles) ->
+        val moduleContext = swCtx.registerModule(module.name, module.uses)
+        sourceFiles.forEach(moduleContext::addSourceFile)
+    }
+
+    return swCtx
+}
+
+/**
+ * Does semantic analysis phase by phase, so that the benchmarks can measure them individually. Together, the phases
+ * do the same as [SoftwareContext.doSemanticAnalysis].
+ */
+internal class PhasedSemanticAnalysis(
+    private val softwareContext: SoftwareContext,
+    private val modules: Collection<ConfigModuleDefinition>,
+) {
+    private val diagnosis = Diagnosis.failOnError()
+
+    fun phase1() {
+        forEachModuleAndPackage(
+            { it.semanticAnalysisPhase1(diagnosis) },
+            { it.semanticAnalysisPhase1(diagnosis) },
+        )
+    }
+
+    fun phase2() {
+        forEachModuleAndPackage(
+            { it.semanticAnalysisPhase2(diagnosis) },
+            { it.semanticAnalysisPhase2(diagnosis) },
+        )
+    }
+
+    fun phase3() {
+        forEachModuleAndPackage(
+            { it.semanticAnalysisPhase3(diagnosis) },
+            { it.semanticAnalysisPhase3(diagnosis) },
+        )
+    }
+
+    private inline fun forEachModuleAndPackage(
+        onModule: (ModuleContext) -> Unit,
+        onPackage: (PackageContext) -> Unit,
+    ) {
+        val moduleContexts = modules.map { softwareContext.getRegisteredModule(it.name) }
+        moduleContexts.forEach(onModule)
+        moduleContexts
+            .flatMap { it.nonEmptyPackages }
+            .distinct()
+            .forEach(onPackage)
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.tmarsteel.emerge.benchmarks
+
+import org.openjdk.jmh.profile.GCProfiler
+import org.openjdk.jmh.runner.Runner
+import org.openjdk.jmh.runner.options.CommandLineOptions
+import org.openjdk.jmh.runner.options.OptionsBuilder
+
+/**
+ * Takes the same arguments as the JMH runner; additionally, always reports allocation rates (`-prof gc`) and
+ * skips [LlvmModuleBenchmark] if no LLVM installation is configured.
+ */
+fun main(args: Array<String>) {
+    val options = OptionsBuilder()
+        .parent(CommandLineOptions(*args))
+        .addProfiler(GCProfiler::class.java)
+        .apply {
+            if (System.getProperty(LlvmModuleBenchmark.LLVM_INSTALLATION_DIRECTORY_PROPERTY) == null) {
+                println("Skipping ${LlvmModuleBenchmark::class.simpleName}: system property ${LlvmModuleBenchmark.LLVM_INSTALLATION_DIRECTORY_PROPERTY} is not set")
+                exclude(LlvmModuleBenchmark::class.qualifiedName!!)
+            }
+        }
+        .build()
+
+    Runner(options).run()
+}
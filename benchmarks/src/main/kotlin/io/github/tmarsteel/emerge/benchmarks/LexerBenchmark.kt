@@ -0,0 +1,32 @@
+package io.github.tmarsteel.emerge.benchmarks
+
+import compiler.lexer.MemoryLexerSourceFile
+import compiler.lexer.Token
+import compiler.lexer.lex
+import io.github.tmarsteel.emerge.common.CanonicalElementName
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+
+@State(Scope.Benchmark)
+@Fork(1)
+open class LexerBenchmark {
+    private lateinit var largeSourceFile: MemoryLexerSourceFile
+
+    @Setup
+    fun setUp() {
+        // no source file of the stdlib is large on its own, but the lexer has to cope with large files, too
+        val allStdlibCode = BenchmarkSources.stdlibModules.loadSourceFiles()
+            .values
+            .flatten()
+            .joinToString(separator = "\n") { it.content }
+        largeSourceFile = MemoryLexerSourceFile("stdlib.em", CanonicalElementName.Package(listOf("benchmark")), allStdlibCode)
+    }
+
+    @Benchmark
+    fun lexStdlibAsOneFile(): Array<Token> {
+        return lex(largeSourceFile)
+    }
+}
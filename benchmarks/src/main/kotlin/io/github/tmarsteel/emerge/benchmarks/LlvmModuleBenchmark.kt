@@ -0,0 +1,57 @@
+package io.github.tmarsteel.emerge.benchmarks
+
+import compiler.diagnostic.Diagnosis
+import io.github.tmarsteel.emerge.backend.api.ir.IrSoftwareContext
+import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmTarget
+import io.github.tmarsteel.emerge.backend.llvm.intrinsics.EmergeLlvmContext
+import io.github.tmarsteel.emerge.backend.llvm.jna.Llvm
+import io.github.tmarsteel.emerge.backend.llvm.linux_x86_64.Linux_x68_64_Backend
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.nio.file.Paths
+
+/**
+ * Measures building the LLVM module for a small program and the stdlib, up to [EmergeLlvmContext.complete];
+ * neither LLVM passes nor machine code generation are included. Needs an LLVM installation, see
+ * [LLVM_INSTALLATION_DIRECTORY_PROPERTY]; [main] skips this benchmark if there is none.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = ["-Xss20M"])
+open class LlvmModuleBenchmark {
+    private val backend = Linux_x68_64_Backend()
+    private lateinit var target: LlvmTarget
+    private lateinit var softwareContext: IrSoftwareContext
+
+    @Setup
+    fun setUp() {
+        val llvmInstallationDirectory = System.getProperty(LLVM_INSTALLATION_DIRECTORY_PROPERTY)
+            ?: throw IllegalStateException("Set the system property $LLVM_INSTALLATION_DIRECTORY_PROPERTY to run this benchmark")
+        Llvm.loadNativeLibrary(Paths.get(llvmInstallationDirectory))
+        Llvm.LLVMInitializeX86TargetInfo()
+        Llvm.LLVMInitializeX86Target()
+        Llvm.LLVMInitializeX86TargetMC()
+        Llvm.LLVMInitializeX86AsmPrinter()
+        Llvm.LLVMInitializeX86AsmParser()
+        target = LlvmTarget.fromTriple(backend.targetName)
+
+        val frontendSoftwareContext = BenchmarkSources.linuxProgramModules.loadSourceFiles().parse().bind()
+        frontendSoftwareContext.doSemanticAnalysis(Diagnosis.failOnError())
+        softwareContext = frontendSoftwareContext.toBackendIr()
+        // lowering to IR happens only once, it would skew the first iterations; see BackendIrBenchmark for that
+        softwareContext.allFunctions.forEach { it.body }
+    }
+
+    @Benchmark
+    fun buildLlvmModule() {
+        EmergeLlvmContext.createDoAndDispose(target, emitDebugInfo = false) { llvmContext ->
+            backend.defineSoftware(softwareContext, llvmContext)
+        }
+    }
+
+    companion object {
+        const val LLVM_INSTALLATION_DIRECTORY_PROPERTY = "emerge.benchmarks.llvm-installation-directory"
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.tmarsteel.emerge.benchmarks
+
+import compiler.lexer.LexerSourceFile
+import compiler.lexer.Token
+import compiler.lexer.lex
+import compiler.parser.SourceFileRule
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+
+@State(Scope.Benchmark)
+// the continuation-passing in the parser eats lots of stack
+@Fork(value = 1, jvmArgsAppend = ["-Xss20M"])
+open class ParserBenchmark {
+    private lateinit var lexedStdlib: List<Pair<LexerSourceFile, Array<Token>>>
+
+    @Setup
+    fun setUp() {
+        lexedStdlib = BenchmarkSources.stdlibModules.loadSourceFiles()
+            .values
+            .flatten()
+            .map { it to lex(it) }
+    }
+
+    @Benchmark
+    fun parseStdlib(blackhole: Blackhole) {
+        for ((sourceFile, tokens) in lexedStdlib) {
+            blackhole.consume(SourceFileRule.match(tokens, sourceFile))
+        }
+    }
+}
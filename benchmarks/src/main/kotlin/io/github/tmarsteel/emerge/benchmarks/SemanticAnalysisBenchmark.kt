@@ -0,0 +1,78 @@
+package io.github.tmarsteel.emerge.benchmarks
+
+import compiler.ast.ASTSourceFile
+import io.github.tmarsteel.emerge.common.config.ConfigModuleDefinition
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+
+/**
+ * Measures each of the three semantic analysis phases over the stdlib on its own. Every phase can only be done
+ * once per [compiler.binding.context.SoftwareContext], so each invocation gets a freshly bound one, with the
+ * preceding phases already done.
+ */
+@Fork(value = 1, jvmArgsAppend = ["-Xss20M"])
+open class SemanticAnalysisBenchmark {
+    @State(Scope.Benchmark)
+    open class ParsedStdlib {
+        lateinit var asts: Map<ConfigModuleDefinition, List<ASTSourceFile>>
+
+        @Setup
+        fun setUp() {
+            asts = BenchmarkSources.stdlibModules.loadSourceFiles().parse()
+        }
+
+        fun bindForAnalysis() = PhasedSemanticAnalysis(asts.bind(), asts.keys)
+    }
+
+    @State(Scope.Thread)
+    open class BeforePhase1 {
+        lateinit var analysis: PhasedSemanticAnalysis
+
+        @Setup(Level.Invocation)
+        fun setUp(stdlib: ParsedStdlib) {
+            analysis = stdlib.bindForAnalysis()
+        }
+    }
+
+    @State(Scope.Thread)
+    open class BeforePhase2 {
+        lateinit var analysis: PhasedSemanticAnalysis
+
+        @Setup(Level.Invocation)
+        fun setUp(stdlib: ParsedStdlib) {
+            analysis = stdlib.bindForAnalysis()
+            analysis.phase1()
+        }
+    }
+
+    @State(Scope.Thread)
+    open class BeforePhase3 {
+        lateinit var analysis: PhasedSemanticAnalysis
+
+        @Setup(Level.Invocation)
+        fun setUp(stdlib: ParsedStdlib) {
+            analysis = stdlib.bindForAnalysis()
+            analysis.phase1()
+            analysis.phase2()
+        }
+    }
+
+    @Benchmark
+    fun phase1(state: BeforePhase1) {
+        state.analysis.phase1()
+    }
+
+    @Benchmark
+    fun phase2(state: BeforePhase2) {
+        state.analysis.phase2()
+    }
+
+    @Benchmark
+    fun phase3(state: BeforePhase3) {
+        state.analysis.phase3()
+    }
+}
@@ -0,0 +1,252 @@
+package io.github.tmarsteel.emerge.benchmarks.runtime
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.SerializationFeature
+import com.fasterxml.jackson.module.kotlin.readValue
+import com.fasterxml.jackson.module.kotlin.registerKotlinModule
+import com.github.ajalt.clikt.core.CliktCommand
+import com.github.ajalt.clikt.core.CliktError
+import com.github.ajalt.clikt.core.ProgramResult
+import com.github.ajalt.clikt.parameters.arguments.argument
+import com.github.ajalt.clikt.parameters.arguments.multiple
+import com.github.ajalt.clikt.parameters.options.default
+import com.github.ajalt.clikt.parameters.options.flag
+import com.github.ajalt.clikt.parameters.options.option
+import com.github.ajalt.clikt.parameters.options.required
+import com.github.ajalt.clikt.parameters.types.int
+import com.github.ajalt.clikt.parameters.types.path
+import io.github.tmarsteel.emerge.backend.llvm.linux_x86_64.Linux_x68_64_Backend
+import io.github.tmarsteel.emerge.benchmarks.BenchmarkSources
+import io.github.tmarsteel.emerge.toolchain.ToolchainMain
+import io.github.tmarsteel.emerge.toolchain.config.ProjectConfig
+import io.github.tmarsteel.emerge.toolchain.config.parseAsConfig
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.io.path.deleteIfExists
+import kotlin.io.path.exists
+import kotlin.io.path.inputStream
+import kotlin.io.path.isDirectory
+import kotlin.io.path.listDirectoryEntries
+import kotlin.io.path.name
+import kotlin.io.path.outputStream
+import kotlin.io.path.readLines
+
+/**
+ * Compiles the emerge programs in [BenchmarkSources.runtimeBenchmarksDirectory] with the linux backend, runs each
+ * of them a couple of times and compares the results to a baseline. Measures
+ * * the wall time
+ * * the number of instructions executed, if `perf` is available
+ * * the peak resident set size, if GNU time is available at `/usr/bin/time`
+ * * the number of calls to `malloc`, if `ltrace` is available; in an extra run because of the overhead
+ *
+ * Apart from the number of allocations, the median over all runs is reported. Exits with status 1 if any
+ * measurement got worse than the baseline by more than its [Metric.tolerance].
+ */
+class RuntimeBenchmarksCommand : CliktCommand() {
+    private val toolchainConfigFile: Path by option("--toolchain-config", help = "Configuration file for the toolchain")
+        .path(mustExist = true, canBeFile = true, canBeDir = false, mustBeReadable = true)
+        .required()
+
+    private val baselineFile: Path by option("--baseline", help = "The results to compare to")
+        .path(canBeFile = true, canBeDir = false)
+        .default(BenchmarkSources.runtimeBenchmarksDirectory.resolve("baseline.json"))
+
+    private val updateBaseline: Boolean by option("--update-baseline", help = "Store the results of this run as the new baseline")
+        .flag()
+
+    private val nRuns: Int by option("--runs", help = "How often to run each benchmark")
+        .int()
+        .default(5)
+
+    private val benchmarkNames: List<String> by argument(help = "The benchmarks to run; all if none are given")
+        .multiple()
+
+    override fun run() {
+        val benchmarkDirectories = BenchmarkSources.runtimeBenchmarksDirectory.listDirectoryEntries()
+            .filter { it.isDirectory() && it.resolve(PROJECT_CONFIG_FILE_NAME).exists() }
+            .filter { benchmarkNames.isEmpty() || it.name in benchmarkNames }
+            .sortedBy { it.name }
+
+        val results = benchmarkDirectories.associate { directory ->
+            directory.name to measure(directory)
+        }
+
+        val baseline: Map<String, RuntimeBenchmarkResult> = if (baselineFile.exists()) {
+            baselineFile.inputStream().use { objectMapper.readValue(it) }
+        } else {
+            echo("No baseline at $baselineFile, nothing to compare to")
+            emptyMap()
+        }
+
+        var anyRegressions = false
+        for ((name, result) in results) {
+            echo(name)
+            val baselineResult = baseline[name]
+            for (metric in Metric.entries) {
+                val value = metric.of(result) ?: continue
+                val baselineValue = baselineResult?.let { metric.of(it) }
+                if (baselineValue == null || baselineValue == 0.0) {
+                    echo("  ${metric.label}: ${metric.format(value)}")
+                    continue
+                }
+
+                val change = (value - baselineValue) / baselineValue
+                val isRegression = change > metric.tolerance
+                anyRegressions = anyRegressions || isRegression
+                echo("  ${metric.label}: ${metric.format(value)} (baseline ${metric.format(baselineValue)}, ${"%+.1f".format(change * 100.0)}%)${if (isRegression) " REGRESSION" else ""}")
+            }
+        }
+
+        if (updateBaseline) {
+            baselineFile.outputStream().use { objectMapper.writeValue(it, baseline + results) }
+            echo("Baseline updated at $baselineFile")
+        } else if (anyRegressions) {
+            throw ProgramResult(1)
+        }
+    }
+
+    private fun measure(benchmarkDirectory: Path): RuntimeBenchmarkResult {
+        val projectConfigFile = benchmarkDirectory.resolve(PROJECT_CONFIG_FILE_NAME)
+        echo("Compiling ${benchmarkDirectory.name}")
+        ToolchainMain().parse(listOf(
+            "--toolchain-config", toolchainConfigFile.toString(),
+            "project", "--project-config", projectConfigFile.toString(),
+            "compile", "--target", TARGET_NAME,
+        ))
+        val executable = projectConfigFile.parseAsConfig<ProjectConfig>()
+            .targets
+            .values
+            .filterIsInstance<Linux_x68_64_Backend.ProjectConfig>()
+            .singleOrNull()
+            ?.executablePath
+            ?: throw CliktError("${benchmarkDirectory.name} is not configured for the target $TARGET_NAME")
+
+        echo("Running ${benchmarkDirectory.name} $nRuns times")
+        val runs = List(nRuns) { runOnce(executable) }
+        return RuntimeBenchmarkResult(
+            wallTimeMillis = runs.map { it.wallTimeNanos / 1_000_000.0 }.median()!!,
+            instructions = runs.mapNotNull { it.instructions }.map { it.toDouble() }.median()?.toLong(),
+            peakRssKiB = runs.mapNotNull { it.peakRssKiB }.map { it.toDouble() }.median()?.toLong(),
+            allocations = countAllocations(executable),
+        )
+    }
+
+    private fun runOnce(executable: Path): Run {
+        val perfOutput = perf?.let { Files.createTempFile("emerge-benchmark-perf", ".csv") }
+        val timeOutput = gnuTime?.let { Files.createTempFile("emerge-benchmark-time", ".txt") }
+        try {
+            val command = ArrayList<String>()
+            if (perf != null) {
+                command.addAll(listOf(perf.toString(), "stat", "-x", ",", "-e", "instructions:u", "-o", perfOutput.toString(), "--"))
+            }
+            if (gnuTime != null) {
+                command.addAll(listOf(gnuTime.toString(), "-f", "%M", "-o", timeOutput.toString()))
+            }
+            command.add(executable.toString())
+
+            val startedAt = System.nanoTime()
+            val exitCode = ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start()
+                .waitFor()
+            val wallTimeNanos = System.nanoTime() - startedAt
+            if (exitCode != 0) {
+                throw CliktError("$executable exited with status $exitCode")
+            }
+
+            return Run(
+                wallTimeNanos,
+                instructions = perfOutput?.readLines()
+                    ?.firstOrNull { "instructions" in it }
+                    ?.substringBefore(',')
+                    ?.toLongOrNull(),
+                peakRssKiB = timeOutput?.readLines()?.lastOrNull { it.isNotBlank() }?.trim()?.toLongOrNull(),
+            )
+        } finally {
+            perfOutput?.deleteIfExists()
+            timeOutput?.deleteIfExists()
+        }
+    }
+
+    private fun countAllocations(executable: Path): Long? {
+        val ltrace = ltrace ?: return null
+        val ltraceOutput = Files.createTempFile("emerge-benchmark-ltrace", ".txt")
+        try {
+            ProcessBuilder(ltrace.toString(), "-c", "-e", "malloc", "-o", ltraceOutput.toString(), executable.toString())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start()
+                .waitFor()
+
+            // the summary has the number of calls in the fourth column, the function name in the last
+            return ltraceOutput.readLines()
+                .map { it.trim().split(Regex("\\s+")) }
+                .firstOrNull { it.size >= 5 && it.last() == "malloc" }
+                ?.get(3)
+                ?.toLongOrNull()
+        } finally {
+            ltraceOutput.deleteIfExists()
+        }
+    }
+
+    private class Run(
+        val wallTimeNanos: Long,
+        val instructions: Long?,
+        val peakRssKiB: Long?,
+    )
+
+    private enum class Metric(val label: String, val tolerance: Double, val of: (RuntimeBenchmarkResult) -> Double?) {
+        WALL_TIME("median wall time", 0.10, { it.wallTimeMillis }),
+        INSTRUCTIONS("instructions", 0.02, { it.instructions?.toDouble() }),
+        PEAK_RSS("peak RSS", 0.10, { it.peakRssKiB?.toDouble() }),
+        ALLOCATIONS("allocations", 0.0, { it.allocations?.toDouble() }),
+        ;
+
+        fun format(value: Double): String = when (this) {
+            WALL_TIME -> "%.1fms".format(value)
+            PEAK_RSS -> "${value.toLong()}KiB"
+            else -> value.toLong().toString()
+        }
+    }
+
+    private companion object {
+        const val PROJECT_CONFIG_FILE_NAME = "project-config.yml"
+        const val TARGET_NAME = "x86_64-pc-linux-gnu"
+
+        val perf: Path? = findOnPath("perf")
+        val gnuTime: Path? = Path.of("/usr/bin/time").takeIf { it.exists() }
+        val ltrace: Path? = findOnPath("ltrace")
+
+        val objectMapper = ObjectMapper().also {
+            it.registerKotlinModule()
+            it.enable(SerializationFeature.INDENT_OUTPUT)
+            it.enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+        }
+
+        fun findOnPath(executableName: String): Path? {
+            return System.getenv("PATH")
+                ?.split(java.io.File.pathSeparatorChar)
+                ?.map { Path.of(it, executableName) }
+                ?.firstOrNull { Files.isExecutable(it) }
+        }
+
+        fun List<Double>.median(): Double? {
+            if (isEmpty()) {
+                return null
+            }
+
+            val sorted = sorted()
+            return if (sorted.size % 2 == 1) sorted[sorted.size / 2] else (sorted[sorted.size / 2 - 1] + sorted[sorted.size / 2]) / 2.0
+        }
+    }
+}
+
+internal data class RuntimeBenchmarkResult(
+    val wallTimeMillis: Double,
+    val instructions: Long?,
+    val peakRssKiB: Long?,
+    val allocations: Long?,
+)
+
+fun main(args: Array<String>) = RuntimeBenchmarksCommand().main(args)
@@ -0,0 +1,105 @@
+package io.github.tmarsteel.emerge.benchmarks.synthetic
+
+import compiler.binding.context.SoftwareContext
+import compiler.diagnostic.Diagnosis
+import compiler.lexer.LexerSourceFile
+import compiler.lexer.Token
+import compiler.lexer.lex
+import compiler.parser.SourceFileRule
+import compiler.parser.grammar.rule.MatchingResult
+import io.github.tmarsteel.emerge.benchmarks.BenchmarkSources
+import io.github.tmarsteel.emerge.benchmarks.allFunctions
+import io.github.tmarsteel.emerge.benchmarks.bind
+import io.github.tmarsteel.emerge.benchmarks.loadSourceFiles
+import io.github.tmarsteel.emerge.common.config.ConfigModuleDefinition
+import java.nio.file.Files
+import java.nio.file.Paths
+import kotlin.io.path.ExperimentalPathApi
+import kotlin.io.path.deleteRecursively
+import kotlin.io.path.writeText
+import kotlin.math.ln
+
+/**
+ * Compiles [SyntheticProgram]s of growing size and reports the time each phase of the frontend takes, against the
+ * number of lines. Unlike the JMH benchmarks, this runs each size only a few times, so it is meant to spot the
+ * complexity class of a phase rather than small regressions: for each pair of consecutive sizes, the report
+ * contains the exponent `k` in `time ~ lines^k`; a `k` around 2 means the phase is quadratic. The stdlib is compiled
+ * along with each program, so `k` is too low for the smallest sizes.
+ *
+ * Arguments: the path of the CSV file to write, followed by the numbers of packages to try (default 1 to 64).
+ */
+@OptIn(ExperimentalPathApi::class)
+fun main(args: Array<String>) {
+    val outputFile = Paths.get(args.firstOrNull() ?: "scaling-report.csv")
+    val sizes = args.drop(1).map(String::toInt).ifEmpty { listOf(1, 2, 4, 8, 16, 32, 64) }
+
+    val measurements = sizes.map { nPackages ->
+        val program = SyntheticProgramGenerator(SyntheticProgramGenerator.Parameters(nPackages = nPackages)).generate()
+        val directory = Files.createTempDirectory("emerge-synthetic-program")
+        try {
+            val modules = BenchmarkSources.stdlibModules + program.writeTo(directory)
+            // the first runs warm up the JIT
+            repeat(WARMUP_RUNS) { measurePhases(modules) }
+            val phaseTimes = List(MEASURED_RUNS) { measurePhases(modules) }
+                .flatMap { it.entries }
+                .groupBy({ it.key }, { it.value })
+                .mapValues { (_, nanos) -> nanos.min() }
+
+            Measurement(program.nLines, phaseTimes).also {
+                println("$nPackages packages, ${it.nLines} lines: " + it.nanosByPhase.entries.joinToString { (phase, nanos) -> "$phase ${nanos / 1_000_000}ms" })
+            }
+        } finally {
+            directory.deleteRecursively()
+        }
+    }
+
+    val csv = StringBuilder("phase;lines;millis;exponent\n")
+    for (phase in PHASES) {
+        measurements.forEachIndexed { index, measurement ->
+            val nanos = measurement.nanosByPhase.getValue(phase)
+            val exponent = measurements.getOrNull(index - 1)?.let { previous ->
+                ln(nanos.toDouble() / previous.nanosByPhase.getValue(phase)) / ln(measurement.nLines.toDouble() / previous.nLines)
+            }
+            csv.append("$phase;${measurement.nLines};${nanos / 1_000_000.0};${exponent?.let { "%.2f".format(it) } ?: ""}\n")
+        }
+    }
+    outputFile.writeText(csv)
+    println("Report written to ${outputFile.toAbsolutePath()}")
+}
+
+private fun measurePhases(modules: List<ConfigModuleDefinition>): Map<String, Long> {
+    val nanosByPhase = LinkedHashMap<String, Long>()
+    fun <T> measure(phase: String, action: () -> T): T {
+        val startedAt = System.nanoTime()
+        val result = action()
+        nanosByPhase[phase] = System.nanoTime() - startedAt
+        return result
+    }
+
+    val sourceFiles = modules.loadSourceFiles()
+    val tokens = measure("lex") {
+        sourceFiles.mapValues { (_, files) -> files.map { it to lex(it) } }
+    }
+    val asts = measure("parse") {
+        tokens.mapValues { (_, filesAndTokens) -> filesAndTokens.map { (file, tokens) -> parse(file, tokens) } }
+    }
+    val softwareContext: SoftwareContext = measure("bind") { asts.bind() }
+    measure("semantic analysis") { softwareContext.doSemanticAnalysis(Diagnosis.failOnError()) }
+    measure("toBackendIr") { softwareContext.toBackendIr().allFunctions.forEach { it.body } }
+
+    return nanosByPhase
+}
+
+private fun parse(file: LexerSourceFile, tokens: Array<Token>) = when (val result = SourceFileRule.match(tokens, file)) {
+    is MatchingResult.Success -> result.item
+    is MatchingResult.Error -> throw IllegalStateException("Generated code in $file has errors: ${result.diagnostic}")
+}
+
+private class Measurement(
+    val nLines: Int,
+    val nanosByPhase: Map<String, Long>,
+)
+
+private const val WARMUP_RUNS = 3
+private const val MEASURED_RUNS = 5
+private val PHASES = listOf("lex", "parse", "bind", "semantic analysis", "toBackendIr")
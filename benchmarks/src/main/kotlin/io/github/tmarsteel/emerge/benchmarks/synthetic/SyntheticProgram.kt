@@ -0,0 +1,33 @@
+package io.github.tmarsteel.emerge.benchmarks.synthetic
+
+import io.github.tmarsteel.emerge.common.config.ConfigModuleDefinition
+import java.nio.file.Path
+import kotlin.io.path.createDirectories
+import kotlin.io.path.writeText
+
+/**
+ * A program made by [SyntheticProgramGenerator]; all of it is in one module.
+ */
+class SyntheticProgram(
+    val parameters: SyntheticProgramGenerator.Parameters,
+    /** source code by path relative to the module root */
+    val sourceFiles: Map<String, String>,
+) {
+    val nLines: Int by lazy {
+        sourceFiles.values.sumOf { code -> code.count { it == '\n' } }
+    }
+
+    /**
+     * Writes the sources of this program to [directory], so that they can be loaded with [compiler.lexer.SourceSet].
+     * @return the definition of the module, to be compiled along with `emerge.core` and `emerge.std`
+     */
+    fun writeTo(directory: Path): ConfigModuleDefinition {
+        sourceFiles.forEach { (relativePath, code) ->
+            val file = directory.resolve(relativePath)
+            file.parent.createDirectories()
+            file.writeText(code)
+        }
+
+        return ConfigModuleDefinition(parameters.moduleName, directory.toAbsolutePath())
+    }
+}
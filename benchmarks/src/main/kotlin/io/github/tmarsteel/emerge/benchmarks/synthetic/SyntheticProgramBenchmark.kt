@@ -0,0 +1,72 @@
+package io.github.tmarsteel.emerge.benchmarks.synthetic
+
+import compiler.ast.ASTSourceFile
+import compiler.binding.context.SoftwareContext
+import compiler.diagnostic.Diagnosis
+import compiler.lexer.LexerSourceFile
+import io.github.tmarsteel.emerge.benchmarks.BenchmarkSources
+import io.github.tmarsteel.emerge.benchmarks.bind
+import io.github.tmarsteel.emerge.benchmarks.loadSourceFiles
+import io.github.tmarsteel.emerge.benchmarks.parse
+import io.github.tmarsteel.emerge.common.config.ConfigModuleDefinition
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.io.path.ExperimentalPathApi
+import kotlin.io.path.deleteRecursively
+
+/**
+ * Compiles [SyntheticProgram]s of increasing size, along with the stdlib. Comparing the results for the
+ * different [SyntheticProgramState.nPackages] shows how the frontend scales; see also [main] in `ScalingReport.kt`.
+ */
+@Fork(value = 1, jvmArgsAppend = ["-Xss20M"])
+open class SyntheticProgramBenchmark {
+    @State(Scope.Benchmark)
+    open class SyntheticProgramState {
+        @Param("4", "16", "64")
+        var nPackages: Int = 0
+
+        private lateinit var directory: Path
+        lateinit var sourceFiles: Map<ConfigModuleDefinition, Collection<LexerSourceFile>>
+        lateinit var asts: Map<ConfigModuleDefinition, List<ASTSourceFile>>
+
+        @Setup
+        fun setUp() {
+            directory = Files.createTempDirectory("emerge-synthetic-program")
+            val program = SyntheticProgramGenerator(SyntheticProgramGenerator.Parameters(nPackages = nPackages)).generate()
+            sourceFiles = (BenchmarkSources.stdlibModules + program.writeTo(directory)).loadSourceFiles()
+            asts = sourceFiles.parse()
+        }
+
+        @OptIn(ExperimentalPathApi::class)
+        @TearDown
+        fun tearDown() {
+            directory.deleteRecursively()
+        }
+    }
+
+    @State(Scope.Thread)
+    open class BoundProgram {
+        lateinit var softwareContext: SoftwareContext
+
+        @Setup(Level.Invocation)
+        fun setUp(program: SyntheticProgramState) {
+            softwareContext = program.asts.bind()
+        }
+    }
+
+    @Benchmark
+    fun lexAndParse(program: SyntheticProgramState) = program.sourceFiles.parse()
+
+    @Benchmark
+    fun semanticAnalysis(program: BoundProgram) {
+        program.softwareContext.doSemanticAnalysis(Diagnosis.failOnError())
+    }
+}
@@ -0,0 +1,223 @@
+package io.github.tmarsteel.emerge.benchmarks.synthetic
+
+import io.github.tmarsteel.emerge.common.CanonicalElementName
+import java.util.Random
+
+/**
+ * Generates valid emerge programs of arbitrary size, to measure how the compiler scales with its input. The same
+ * [Parameters] always generate the same program.
+ *
+ * The packages of a generated program only import packages with a lower index, so there are no import cycles;
+ * apart from that, the program is a random mix of:
+ * * chains of interfaces, each extending the previous one, with a class implementing the last one
+ * * generic classes
+ * * top-level functions, each one an overload set of functions with different numbers of parameters
+ * * nested expressions made up of arithmetic, calls to these functions, constructors and member functions
+ */
+class SyntheticProgramGenerator(private val parameters: Parameters) {
+    private val random = Random(parameters.seed)
+
+    /** everything generated so far, by package index */
+    private val declarationsByPackage = ArrayList<List<FileDeclarations>>()
+
+    fun generate(): SyntheticProgram {
+        val sourceFiles = LinkedHashMap<String, String>()
+        for (packageIndex in 0 until parameters.nPackages) {
+            val importedPackages = (0 until packageIndex).shuffled(random).take(parameters.importsPerPackage).sorted()
+            val packageDeclarations = ArrayList<FileDeclarations>()
+            for (fileIndex in 0 until parameters.filesPerPackage) {
+                val file = FileDeclarations(packageIndex, fileIndex)
+                val visibleFromOtherFiles = packageDeclarations + importedPackages.flatMap { declarationsByPackage[it] }
+                sourceFiles["p$packageIndex/f$fileIndex.em"] = FileWriter(file, importedPackages, visibleFromOtherFiles).write()
+                packageDeclarations.add(file)
+            }
+            declarationsByPackage.add(packageDeclarations)
+        }
+
+        return SyntheticProgram(parameters, sourceFiles)
+    }
+
+    private inner class FileDeclarations(packageIndex: Int, fileIndex: Int) {
+        private val prefix = "P${packageIndex}F${fileIndex}"
+
+        val interfaceNames = List(parameters.hierarchyDepth) { level -> "I${prefix}L$level" }
+        val className = "C$prefix"
+        val genericClassNames = List(parameters.genericClassesPerFile) { "G${prefix}N$it" }
+        val functionNames = List(parameters.functionsPerFile) { "fn${prefix}N$it" }
+    }
+
+    private inner class FileWriter(
+        private val file: FileDeclarations,
+        private val importedPackages: List<Int>,
+        private val visibleFromOtherFiles: List<FileDeclarations>,
+    ) {
+        private val out = StringBuilder()
+
+        /** the parameters of the function currently being written */
+        private var parameterNames: List<String> = emptyList()
+
+        /** the functions that can be called from the function currently being written */
+        private var callableFunctionNames: List<String> = emptyList()
+
+        private val constructibleClasses = (visibleFromOtherFiles + file)
+            .filter { it.interfaceNames.isNotEmpty() }
+        private val genericClassNames = (visibleFromOtherFiles + file).flatMap { it.genericClassNames }
+
+        fun write(): String {
+            out.append("package ${parameters.moduleName}.p${declarationsByPackage.size}\n\n")
+            importedPackages.forEach { out.append("import ${parameters.moduleName}.p$it.*\n") }
+            out.append("\n")
+
+            writeTypes()
+            file.functionNames.forEachIndexed { index, functionName ->
+                // only call functions declared earlier, so there is no recursion
+                callableFunctionNames = visibleFromOtherFiles.flatMap { it.functionNames } + file.functionNames.take(index)
+                for (arity in 1..parameters.overloadSetSize) {
+                    writeFunction(functionName, arity)
+                }
+            }
+
+            return out.toString()
+        }
+
+        private fun writeTypes() {
+            file.interfaceNames.forEachIndexed { level, interfaceName ->
+                val supertype = if (level > 0) " : ${file.interfaceNames[level - 1]}" else ""
+                out.append("export interface $interfaceName$supertype {\n")
+                out.append("    export fn level$level(self) -> S32\n")
+                out.append("}\n\n")
+            }
+
+            val classSupertype = file.interfaceNames.lastOrNull()?.let { " : $it" } ?: ""
+            out.append("export class ${file.className}$classSupertype {\n")
+            out.append("    export x: S32 = init\n")
+            file.interfaceNames.indices.forEach { level ->
+                out.append("\n    export override fn level$level(self) -> S32 = self.x + $level\n")
+            }
+            out.append("}\n\n")
+
+            file.genericClassNames.forEach { genericClassName ->
+                out.append("export class $genericClassName<T : Any> {\n")
+                out.append("    export item: T = init\n\n")
+                out.append("    export fn unwrap(self) -> T = self.item\n")
+                out.append("}\n\n")
+            }
+        }
+
+        private fun writeFunction(name: String, arity: Int) {
+            parameterNames = List(arity) { "a$it" }
+            out.append("export fn $name(")
+            out.append(parameterNames.joinToString { "$it: S32" })
+            out.append(") -> S32 {\n")
+            out.append("    v = ")
+            writeExpression(parameters.expressionNestingDepth)
+            out.append("\n    return v + ")
+            writeExpression(parameters.expressionNestingDepth)
+            out.append("\n}\n\n")
+        }
+
+        private fun writeExpression(depth: Int) {
+            if (depth <= 0) {
+                writeLeaf()
+                return
+            }
+
+            when (random.nextInt(4)) {
+                0 -> writeFunctionCall(depth)
+                1 -> writeMemberFunctionCall(depth)
+                2 -> writeGenericRoundTrip(depth)
+                else -> writeArithmetic(depth)
+            }
+        }
+
+        private fun writeLeaf() {
+            if (random.nextBoolean()) {
+                out.append(parameterNames[random.nextInt(parameterNames.size)])
+            } else {
+                out.append(random.nextInt(1, 10))
+            }
+        }
+
+        private fun writeArithmetic(depth: Int) {
+            out.append('(')
+            writeExpression(depth - 1)
+            out.append(OPERATORS[random.nextInt(OPERATORS.size)])
+            writeExpression(depth - 1)
+            out.append(')')
+        }
+
+        private fun writeFunctionCall(depth: Int) {
+            if (callableFunctionNames.isEmpty()) {
+                return writeArithmetic(depth)
+            }
+
+            out.append(callableFunctionNames[random.nextInt(callableFunctionNames.size)])
+            out.append('(')
+            val arity = random.nextInt(1, parameters.overloadSetSize + 1)
+            repeat(arity) { argumentIndex ->
+                if (argumentIndex > 0) {
+                    out.append(", ")
+                }
+                writeExpression(depth - 1)
+            }
+            out.append(')')
+        }
+
+        private fun writeMemberFunctionCall(depth: Int) {
+            if (constructibleClasses.isEmpty()) {
+                return writeArithmetic(depth)
+            }
+
+            val declarations = constructibleClasses[random.nextInt(constructibleClasses.size)]
+            out.append(declarations.className)
+            out.append('(')
+            writeExpression(depth - 1)
+            out.append(").level")
+            out.append(random.nextInt(declarations.interfaceNames.size))
+            out.append("()")
+        }
+
+        private fun writeGenericRoundTrip(depth: Int) {
+            if (genericClassNames.isEmpty()) {
+                return writeArithmetic(depth)
+            }
+
+            out.append(genericClassNames[random.nextInt(genericClassNames.size)])
+            out.append('(')
+            writeExpression(depth - 1)
+            out.append(").unwrap()")
+        }
+    }
+
+    data class Parameters(
+        val seed: Long = 0,
+        val nPackages: Int = 8,
+        val filesPerPackage: Int = 4,
+        val functionsPerFile: Int = 8,
+        /** the number of interfaces in each chain of interfaces; the class of each file implements the last one */
+        val hierarchyDepth: Int = 3,
+        val genericClassesPerFile: Int = 1,
+        /** the number of overloads of each top-level function */
+        val overloadSetSize: Int = 2,
+        /** the depth of the expression trees in each function; their size grows exponentially with it */
+        val expressionNestingDepth: Int = 3,
+        /** the maximum number of packages each package imports */
+        val importsPerPackage: Int = 2,
+        val moduleName: CanonicalElementName.Package = CanonicalElementName.Package(listOf("synthetic")),
+    ) {
+        init {
+            require(nPackages > 0)
+            require(filesPerPackage > 0)
+            require(functionsPerFile >= 0)
+            require(hierarchyDepth >= 0)
+            require(genericClassesPerFile >= 0)
+            require(overloadSetSize > 0)
+            require(expressionNestingDepth >= 0)
+            require(importsPerPackage >= 0)
+        }
+    }
+
+    private companion object {
+        val OPERATORS = listOf(" + ", " - ", " * ")
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.tmarsteel.emerge.benchmarks.synthetic
+
+import compiler.diagnostic.CollectingDiagnosis
+import compiler.diagnostic.Diagnostic
+import io.github.tmarsteel.emerge.benchmarks.BenchmarkSources
+import io.github.tmarsteel.emerge.benchmarks.bind
+import io.github.tmarsteel.emerge.benchmarks.loadSourceFiles
+import io.github.tmarsteel.emerge.benchmarks.parse
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.shouldBe
+import java.nio.file.Files
+import kotlin.io.path.ExperimentalPathApi
+import kotlin.io.path.deleteRecursively
+
+@OptIn(ExperimentalPathApi::class)
+class SyntheticProgramGeneratorTest : FreeSpec({
+    val smallProgram = SyntheticProgramGenerator.Parameters(
+        nPackages = 3,
+        filesPerPackage = 2,
+        functionsPerFile = 3,
+        expressionNestingDepth = 2,
+    )
+
+    "same parameters generate the same program" {
+        val first = SyntheticProgramGenerator(smallProgram).generate()
+        val second = SyntheticProgramGenerator(smallProgram).generate()
+
+        second.sourceFiles shouldBe first.sourceFiles
+    }
+
+    "generated program compiles without errors" - {
+        for (seed in 0L until 3L) {
+            "seed $seed" {
+                val program = SyntheticProgramGenerator(smallProgram.copy(seed = seed)).generate()
+                val directory = Files.createTempDirectory("emerge-synthetic-program")
+                try {
+                    val swCtx = (BenchmarkSources.stdlibModules + program.writeTo(directory))
+                        .loadSourceFiles()
+                        .parse()
+                        .bind()
+                    val diagnosis = CollectingDiagnosis()
+                    swCtx.doSemanticAnalysis(diagnosis)
+
+                    diagnosis.findings
+                        .filter { it.severity >= Diagnostic.Severity.ERROR }
+                        .shouldBeEmpty()
+                } finally {
+                    directory.deleteRecursively()
+                }
+            }
+        }
+    }
+})
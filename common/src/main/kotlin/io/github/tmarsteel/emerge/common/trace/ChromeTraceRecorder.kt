@@ -0,0 +1,54 @@
+package io.github.tmarsteel.emerge.common.trace
+
+import com.fasterxml.jackson.core.JsonFactory
+import java.nio.file.Path
+import java.util.concurrent.ConcurrentLinkedQueue
+import kotlin.io.path.outputStream
+
+/**
+ * Collects spans in memory and writes them in the
+ * [Chrome trace event format](https://docs.google.com/document/d/1CvAClvFfyA5R-PhYUmn5OOQtYMH4h6I0nSsKchNAySU),
+ * which can be viewed with e.g. `chrome://tracing` or [Perfetto](https://ui.perfetto.dev).
+ */
+class ChromeTraceRecorder : CompilerTrace.SpanRecorder {
+    private val createdAtNanos = System.nanoTime()
+    private val spans = ConcurrentLinkedQueue<Span>()
+
+    override fun record(phase: String, subject: String, startedAtNanos: Long, endedAtNanos: Long, threadId: Long) {
+        spans.add(Span(phase, subject, startedAtNanos, endedAtNanos, threadId))
+    }
+
+    fun writeTo(path: Path) {
+        path.outputStream().use { outStream ->
+            JsonFactory().createGenerator(outStream).use { json ->
+                json.writeStartObject()
+                json.writeStringField("displayTimeUnit", "ms")
+                json.writeArrayFieldStart("traceEvents")
+                for (span in spans) {
+                    json.writeStartObject()
+                    json.writeStringField("name", "${span.phase} ${span.subject}")
+                    json.writeStringField("cat", span.phase)
+                    json.writeStringField("ph", "X")
+                    json.writeNumberField("ts", (span.startedAtNanos - createdAtNanos) / 1000.0)
+                    json.writeNumberField("dur", (span.endedAtNanos - span.startedAtNanos) / 1000.0)
+                    json.writeNumberField("pid", 1)
+                    json.writeNumberField("tid", span.threadId)
+                    json.writeObjectFieldStart("args")
+                    json.writeStringField("subject", span.subject)
+                    json.writeEndObject()
+                    json.writeEndObject()
+                }
+                json.writeEndArray()
+                json.writeEndObject()
+            }
+        }
+    }
+
+    private class Span(
+        val phase: String,
+        val subject: String,
+        val startedAtNanos: Long,
+        val endedAtNanos: Long,
+        val threadId: Long,
+    )
+}
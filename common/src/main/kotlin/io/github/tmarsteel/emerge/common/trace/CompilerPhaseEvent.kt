@@ -0,0 +1,25 @@
+package io.github.tmarsteel.emerge.common.trace
+
+import jdk.jfr.Category
+import jdk.jfr.Description
+import jdk.jfr.Event
+import jdk.jfr.Label
+import jdk.jfr.Name
+import jdk.jfr.StackTrace
+
+/**
+ * Java Flight Recorder event for a span recorded with [CompilerTrace.span].
+ */
+@Name("io.github.tmarsteel.emerge.CompilerPhase")
+@Label("Compiler Phase")
+@Category("Emerge Compiler")
+@Description("A step of the compilation of one module, package, source file or function")
+@StackTrace(false)
+class CompilerPhaseEvent(
+    @field:Label("Phase")
+    var phase: String,
+
+    @field:Label("Subject")
+    @field:Description("The module, package, source file or function the phase was done on")
+    var subject: String,
+) : Event()
@@ -0,0 +1,49 @@
+package io.github.tmarsteel.emerge.common.trace
+
+import jdk.jfr.EventType
+
+/**
+ * Records how long the individual steps of a compilation take. Every span is emitted as a [CompilerPhaseEvent]
+ * to Java Flight Recorder, and additionally passed on to [recorder] if one is set.
+ *
+ * When neither is active, a span costs no more than two field reads.
+ */
+object CompilerTrace {
+    @Volatile
+    var recorder: SpanRecorder? = null
+
+    @PublishedApi
+    internal val jfrEventType: EventType = EventType.getEventType(CompilerPhaseEvent::class.java)
+
+    /**
+     * Runs [action] and records how long it took.
+     * @param phase what is being done, e.g. `parse`
+     * @param subject what [phase] is done on, e.g. the source file being parsed. Only converted to a string if
+     * the span is actually recorded.
+     */
+    inline fun <T> span(phase: String, subject: Any, action: () -> T): T {
+        val recorder = this.recorder
+        if (recorder == null && !jfrEventType.isEnabled) {
+            return action()
+        }
+
+        val subjectString = subject.toString()
+        val event = CompilerPhaseEvent(phase, subjectString)
+        val startedAtNanos = System.nanoTime()
+        event.begin()
+        try {
+            return action()
+        } finally {
+            event.commit()
+            recorder?.record(phase, subjectString, startedAtNanos, System.nanoTime(), Thread.currentThread().threadId())
+        }
+    }
+
+    interface SpanRecorder {
+        /**
+         * Called once a span has ended; possibly from multiple threads at once.
+         * @param startedAtNanos, endedAtNanos as per [System.nanoTime]
+         */
+        fun record(phase: String, subject: String, startedAtNanos: Long, endedAtNanos: Long, threadId: Long)
+    }
+}
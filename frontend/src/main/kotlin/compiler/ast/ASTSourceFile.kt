@@ -59,7 +59,7 @@ class ASTSourceFile(
 
     val baseTypes: MutableList<BaseTypeDeclaration> = mutableListOf()
 
-    private var parseTimeDiagnosis = CollectingDiagnosis()
+    private val parseTimeDiagnosis = CollectingDiagnosis()
     fun addParseTimeReporting(diagnostic: Diagnostic) {
         parseTimeDiagnosis.add(diagnostic)
     }
@@ -69,9 +69,13 @@ class ASTSourceFile(
      * [CTContext]) this has its own signature.
      */
     fun bindTo(context: ModuleContext): SourceFile {
+        // the same AST may be bound multiple times (e.g. from a parse cache); findings of one binding mustn't leak into the next
+        val bindTimeDiagnosis = CollectingDiagnosis()
+        parseTimeDiagnosis.replayOnto(bindTimeDiagnosis)
+
         selfDeclaration?.packageName?.let { declaredPackageName ->
             if (declaredPackageName.names.map { it.value } != expectedPackageName.components) {
-                parseTimeDiagnosis.incorrectPackageDeclaration(declaredPackageName, expectedPackageName)
+                bindTimeDiagnosis.incorrectPackageDeclaration(declaredPackageName, expectedPackageName)
             }
         }
 
@@ -83,12 +87,12 @@ class ASTSourceFile(
         bindImportsInto(fileContext)
         bindFunctionsInto(fileContext)
         bindBaseTypesInto(fileContext)
-        bindVariablesInto(fileContext, parseTimeDiagnosis)
+        bindVariablesInto(fileContext, bindTimeDiagnosis)
 
         return SourceFile(
             lexerFile,
             fileContext,
-            parseTimeDiagnosis
+            bindTimeDiagnosis
         )
     }
 
@@ -3,14 +3,19 @@ package compiler.ast
 import compiler.ast.expression.AstCatchBlockExpression
 import compiler.ast.expression.AstInstanceOfExpression
 import compiler.ast.expression.AstTryCatchExpression
+import compiler.ast.expression.BinaryExpression
 import compiler.ast.expression.IdentifierExpression
 import compiler.ast.expression.InvocationExpression
 import compiler.ast.expression.MemberAccessExpression
+import compiler.ast.expression.NumericLiteralExpression
 import compiler.ast.type.AstAbsoluteTypeReference
 import compiler.ast.type.NamedTypeReference
 import compiler.ast.type.TypeMutability
+import compiler.binding.BoundCondition
 import compiler.binding.BoundForEachLoop
 import compiler.binding.BoundStatement
+import compiler.binding.BoundVariable
+import compiler.binding.ForEachArrayIndexLowering
 import compiler.binding.context.ExecutionScopedCTContext
 import compiler.binding.context.MutableExecutionScopedCTContext
 import compiler.binding.expression.BoundInvocationExpression
@@ -18,6 +23,7 @@ import compiler.binding.type.BoundTypeReference
 import compiler.lexer.IdentifierToken
 import compiler.lexer.Keyword
 import compiler.lexer.KeywordToken
+import compiler.lexer.NumericLiteralToken
 import compiler.lexer.Operator
 import compiler.lexer.OperatorToken
 import io.github.tmarsteel.emerge.common.EmergeConstants
@@ -31,6 +37,16 @@ class AstForEachLoop(
 ) : Statement {
     override val span = foreachKeyword.span .. body.span
 
+    /*
+    TODO: make context.findInternalVariableName work before binding is complete
+    if it is invoked before then, it will try and resolve imports. if it triggers an import that is currently
+    not bound yet (but will be bound later), that import settles to "erroneous" and will trigger incorrect and
+    incomprehensible errors later on
+     */
+    private val internalVarSuffix = "${foreachKeyword.span.fromLineNumber}${foreachKeyword.span.fromColumnNumber}"
+
+    private val generatedSpan = foreachKeyword.span.deriveGenerated()
+
     override fun bindTo(context: ExecutionScopedCTContext): BoundStatement<*> {
         /*
         foreach is syntax sugar:
@@ -59,17 +75,11 @@ class AstForEachLoop(
         } while true
 
         and any continue statements in BODY get amended with __range0.popFront()
-         */
 
-        /*
-        TODO: make context.findInternalVariableName work before binding is complete
-        if it is invoked before then, it will try and resolve imports. if it triggers an import that is currently
-        not bound yet (but will be bound later), that import settles to "erroneous" and will trigger incorrect and
-        incomprehensible errors later on
+        if i turns out to be an array, BoundForEachLoop uses a counted loop over its indices instead, see
+        bindArrayIndexLowering
          */
-        val internalVarSuffix = "${foreachKeyword.span.fromLineNumber}${foreachKeyword.span.fromColumnNumber}"
 
-        val generatedSpan = foreachKeyword.span.deriveGenerated()
         val rangeHolderDeclaration = VariableDeclaration(
             generatedSpan,
             null,
@@ -170,4 +180,77 @@ class AstForEachLoop(
 
         return boundForEachLoop
     }
+
+    /**
+     * Binds the parts of a counted loop over the indices of [iterable], see [ForEachArrayIndexLowering]. Only
+     * applicable if [iterable] refers to an array in a variable, which is only known after semantic analysis phase 2
+     * of [BoundForEachLoop.iterableExpression]; so this is invoked from there.
+     * @param context the context the loop was bound to
+     * @param cursor the variable that [ForEachArrayIndexLowering.element] gets assigned to
+     */
+    internal fun bindArrayIndexLowering(context: ExecutionScopedCTContext, cursor: BoundVariable): ForEachArrayIndexLowering {
+        val array = iterable as IdentifierExpression
+        val sizeDeclaration = VariableDeclaration(
+            generatedSpan,
+            null,
+            null,
+            null,
+            IdentifierToken("__size_$internalVarSuffix", generatedSpan),
+            null,
+            MemberAccessExpression(
+                array,
+                OperatorToken(Operator.DOT, generatedSpan),
+                IdentifierToken("size", generatedSpan),
+            ),
+        ).bindToAsLocalVariable(context)
+
+        val indexVariableName = IdentifierToken("__index_$internalVarSuffix", generatedSpan)
+        val indexDeclaration = VariableDeclaration(
+            generatedSpan,
+            null,
+            KeywordToken(Keyword.VAR, span = generatedSpan),
+            null,
+            indexVariableName,
+            AstAbsoluteTypeReference(EmergeConstants.CoreModule.UWORD_TYPE_NAME, span = generatedSpan),
+            NumericLiteralExpression(NumericLiteralToken(generatedSpan, "0")),
+        ).bindToAsLocalVariable(sizeDeclaration.modifiedContext)
+
+        val inLoopContext = MutableExecutionScopedCTContext.deriveNewScopeFrom(indexDeclaration.modifiedContext, ExecutionScopedCTContext.Repetition.ZERO_OR_MORE)
+        val indexInBounds = BoundCondition(inLoopContext, BinaryExpression(
+            IdentifierExpression(indexVariableName),
+            AstSemanticOperator(OperatorToken(Operator.LESS_THAN, generatedSpan)),
+            IdentifierExpression(IdentifierToken(sizeDeclaration.name, generatedSpan)),
+        ).bindTo(inLoopContext))
+
+        val element = InvocationExpression(
+            MemberAccessExpression(
+                array,
+                OperatorToken(Operator.DOT, generatedSpan),
+                IdentifierToken("getOrPanic", generatedSpan),
+            ),
+            null,
+            listOf(IdentifierExpression(indexVariableName)),
+            generatedSpan,
+        ).bindTo(inLoopContext)
+
+        val advanceIndex = AssignmentStatement(
+            KeywordToken(Keyword.SET, span = generatedSpan),
+            IdentifierExpression(indexVariableName),
+            OperatorToken(Operator.ASSIGNMENT, generatedSpan),
+            BinaryExpression(
+                IdentifierExpression(indexVariableName),
+                AstSemanticOperator(OperatorToken(Operator.PLUS, generatedSpan)),
+                NumericLiteralExpression(NumericLiteralToken(generatedSpan, "1")),
+            ),
+        ).bindTo(element.modifiedContext)
+
+        return ForEachArrayIndexLowering(
+            sizeDeclaration,
+            indexDeclaration,
+            indexInBounds,
+            element,
+            advanceIndex,
+            cursor,
+        )
+    }
 }
\ No newline at end of file
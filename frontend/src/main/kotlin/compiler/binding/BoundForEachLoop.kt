@@ -6,15 +6,25 @@ import compiler.binding.context.ExecutionScopedCTContext
 import compiler.binding.context.MutableExecutionScopedCTContext
 import compiler.binding.context.SingleBranchJoinExecutionScopedCTContext
 import compiler.binding.expression.BoundExpression
+import compiler.binding.expression.BoundIdentifierExpression
+import compiler.binding.expression.CreateReferenceValueUsage
+import compiler.binding.expression.IrConditionalBranchImpl
 import compiler.binding.impurity.ImpurityVisitor
+import compiler.binding.misc_ir.IrCreateStrongReferenceStatementImpl
+import compiler.binding.misc_ir.IrCreateTemporaryValueImpl
 import compiler.binding.misc_ir.IrLoopImpl
+import compiler.binding.misc_ir.IrTemporaryValueReferenceImpl
 import compiler.binding.type.BoundTypeReference
+import compiler.binding.type.RootResolvedTypeReference
+import compiler.binding.type.isAssignableTo
 import compiler.diagnostic.Diagnosis
 import compiler.diagnostic.Diagnosis.Companion.doWithIgnoringFindings
 import compiler.diagnostic.NothrowViolationDiagnostic
+import io.github.tmarsteel.emerge.backend.api.ir.IrBreakStatement
 import io.github.tmarsteel.emerge.backend.api.ir.IrCodeChunk
 import io.github.tmarsteel.emerge.backend.api.ir.IrExecutable
 import io.github.tmarsteel.emerge.backend.api.ir.IrLoop
+import io.github.tmarsteel.emerge.backend.api.ir.IrVariableDeclaration
 
 class BoundForEachLoop(
     override val context: ExecutionScopedCTContext,
@@ -25,11 +35,18 @@ class BoundForEachLoop(
     val advanceRange: BoundExecutable<*>,
     val body: BoundCodeChunk,
 ) : BoundLoop<AstForEachLoop> {
+    /** bound in [semanticAnalysisPhase2] if the iterable turns out to be an array, see [AstForEachLoop.bindArrayIndexLowering] */
+    private var arrayIndexLowering: ForEachArrayIndexLowering? = null
+
+    private var nothrowBoundary: NothrowViolationDiagnostic.SideEffectBoundary? = null
+
     override fun setNothrow(boundary: NothrowViolationDiagnostic.SideEffectBoundary) {
+        nothrowBoundary = boundary
         rangeHolderDeclaration.setNothrow(boundary)
         cursorInBodyDeclaration.setNothrow(boundary)
         advanceRange.setNothrow(boundary)
         body.setNothrow(boundary)
+        arrayIndexLowering?.setNothrow(boundary)
     }
 
     private val seanHelper = SeanHelper()
@@ -58,15 +75,36 @@ class BoundForEachLoop(
             cursorInBodyDeclaration.semanticAnalysisPhase2(diagnosis)
             advanceRange.semanticAnalysisPhase2(diagnosis)
             body.semanticAnalysisPhase2(diagnosis)
+
+            if (notAnIterableError == null && iterableIsArrayInFinalVariable()) {
+                val lowering = declaration.bindArrayIndexLowering(context, cursorInBodyDeclaration)
+                nothrowBoundary?.let(lowering::setNothrow)
+                lowering.semanticAnalysisPhase1(diagnosis)
+                lowering.semanticAnalysisPhase2(diagnosis)
+                arrayIndexLowering = lowering.takeIf { it.elementIsAssignableToCursor }
+            }
         }
     }
 
+    /**
+     * The lowering reads the array anew for every element, so the variable must not be re-assignable.
+     */
+    private fun iterableIsArrayInFinalVariable(): Boolean {
+        val iterableType = iterableExpression.type
+        val iterableVariable = ((iterableExpression as? BoundIdentifierExpression)?.referral as? BoundIdentifierExpression.ReferringVariable)?.variable
+        return iterableType is RootResolvedTypeReference
+            && iterableType.baseType == context.swCtx.array
+            && iterableVariable != null
+            && !iterableVariable.isReAssignable
+    }
+
     override fun semanticAnalysisPhase3(diagnosis: Diagnosis) {
         return seanHelper.phase3(diagnosis) {
             rangeHolderDeclaration.semanticAnalysisPhase3(diagnosis)
             cursorInBodyDeclaration.semanticAnalysisPhase3(diagnosis)
             advanceRange.semanticAnalysisPhase3(diagnosis)
             body.semanticAnalysisPhase3(diagnosis)
+            arrayIndexLowering?.semanticAnalysisPhase3(diagnosis)
         }
     }
 
@@ -108,6 +146,8 @@ class BoundForEachLoop(
         private set
 
     private val backendIr: IrCodeChunk by lazy {
+        arrayIndexLowering?.let { return@lazy buildIndexedBackendIr(it) }
+
         val cursorInBodyIr = cursorInBodyDeclaration.toBackendIrStatement()
         irBeforeContinue = advanceRange.toBackendIrStatement()
         val actualBodyIr = body.toBackendIrStatement()
@@ -121,7 +161,158 @@ class BoundForEachLoop(
         ))
     }
 
+    /**
+     * Like [backendIr], but without a range: a counted loop over the indices of the array. The cursor gets declared
+     * the same way, only its initial value comes from [ForEachArrayIndexLowering.element], so [body] can
+     * stay as is.
+     */
+    private fun buildIndexedBackendIr(lowering: ForEachArrayIndexLowering): IrCodeChunk {
+        // takes the place of the range holder: keeps the array alive during the loop, just like the range would. The
+        // deferred code of the body releases the range holder, e.g. on return; that has to release this one instead
+        val arrayHolderDeclarationIr = object : IrVariableDeclaration {
+            override val name = context.findInternalVariableName("array")
+            override val type = iterableExpression.type!!.toBackendIr()
+            override val isBorrowed = false
+            override val isReAssignable = false
+            override val isSSA = true
+            override val declaredAt = rangeHolderDeclaration.declaration.declaredAt
+            override val scope get() = rangeHolderDeclaration.backendIrDeclaration.scope
+        }
+        rangeHolderDeclaration.releasedBackendIrDeclaration = arrayHolderDeclarationIr
+        val arrayTemporary = IrCreateTemporaryValueImpl(iterableExpression.toBackendIrExpression())
+        val arrayTemporaryRefIncrement = IrCreateStrongReferenceStatementImpl(arrayTemporary).takeUnless { iterableExpression.isEvaluationResultReferenceCounted }
+
+        val cursorDeclarationIr = cursorInBodyDeclaration.backendIrDeclaration
+        val elementTemporary = IrCreateTemporaryValueImpl(lowering.element.toBackendIrExpression())
+        val elementTemporaryRefIncrement = IrCreateStrongReferenceStatementImpl(elementTemporary).takeUnless { lowering.element.isEvaluationResultReferenceCounted }
+        val advanceIndexIr = lowering.advanceIndex.toBackendIrStatement()
+        // the index is advanced before the body runs, so there is nothing left to do on continue
+        irBeforeContinue = IrCodeChunkImpl(emptyList())
+        val actualBodyIr = body.toBackendIrStatement()
+
+        val indexInBoundsTemporary = IrCreateTemporaryValueImpl(lowering.indexInBounds.toBackendIrExpression())
+        val breakStmt = object : IrBreakStatement {
+            override val fromLoop get() = irLoopNode
+        }
+        irLoopNode = IrLoopImpl(IrCodeChunkImpl(listOf(
+            indexInBoundsTemporary,
+            IrConditionalBranchImpl(
+                condition = IrTemporaryValueReferenceImpl(indexInBoundsTemporary),
+                thenBranch = IrCodeChunkImpl(listOfNotNull(
+                    cursorDeclarationIr,
+                    elementTemporary,
+                    elementTemporaryRefIncrement,
+                    IrAssignmentStatementImpl(
+                        IrAssignmentStatementTargetVariableImpl(cursorDeclarationIr),
+                        IrTemporaryValueReferenceImpl(elementTemporary),
+                    ),
+                    advanceIndexIr,
+                    actualBodyIr,
+                )),
+                elseBranch = breakStmt,
+            ),
+        )))
+
+        return IrCodeChunkImpl(listOfNotNull(
+            arrayHolderDeclarationIr,
+            arrayTemporary,
+            arrayTemporaryRefIncrement,
+            IrAssignmentStatementImpl(
+                IrAssignmentStatementTargetVariableImpl(arrayHolderDeclarationIr),
+                IrTemporaryValueReferenceImpl(arrayTemporary),
+            ),
+            lowering.sizeDeclaration.toBackendIrStatement(),
+            lowering.indexDeclaration.toBackendIrStatement(),
+            irLoopNode,
+        ))
+    }
+
     override fun toBackendIrStatement(): IrExecutable {
         return backendIr
     }
-}
\ No newline at end of file
+}
+
+/**
+ * The parts of a counted loop over the indices of an [emerge.core.Array]:
+ *
+ *     __size = array.size
+ *     var __index: UWord = 0
+ *     while __index < __size {
+ *         cursor = array.getOrPanic(__index)
+ *         set __index = __index + 1
+ *         BODY
+ *     }
+ *
+ * That does the same as the range-based desugaring of [AstForEachLoop], without allocating an `ArrayRange` and
+ * without the dynamic dispatch to `front`, `popFront` and `isEmpty` on every iteration.
+ *
+ * The type of the iterable isn't known before semantic analysis phase 2, so [BoundForEachLoop] only binds these
+ * nodes then, and only if the iterable is an array. Their findings are reported like any other.
+ */
+class ForEachArrayIndexLowering(
+    val sizeDeclaration: BoundVariable,
+    val indexDeclaration: BoundVariable,
+    val indexInBounds: BoundCondition,
+    val element: BoundExpression<*>,
+    val advanceIndex: BoundStatement<*>,
+    private val cursor: BoundVariable,
+) : SemanticallyAnalyzable {
+    private val seanHelper = SeanHelper()
+
+    /**
+     * Whether [element] can be assigned to the cursor of the loop; if not, the range-based code has to be used.
+     * Valid after [semanticAnalysisPhase2].
+     */
+    var elementIsAssignableToCursor = false
+        private set
+
+    fun setNothrow(boundary: NothrowViolationDiagnostic.SideEffectBoundary) {
+        sizeDeclaration.setNothrow(boundary)
+        indexDeclaration.setNothrow(boundary)
+        indexInBounds.setNothrow(boundary)
+        element.setNothrow(boundary)
+        advanceIndex.setNothrow(boundary)
+    }
+
+    override fun semanticAnalysisPhase1(diagnosis: Diagnosis) {
+        return seanHelper.phase1(diagnosis) {
+            sizeDeclaration.semanticAnalysisPhase1(diagnosis)
+            indexDeclaration.semanticAnalysisPhase1(diagnosis)
+            indexInBounds.semanticAnalysisPhase1(diagnosis)
+            element.semanticAnalysisPhase1(diagnosis)
+            element.markEvaluationResultUsed()
+            advanceIndex.semanticAnalysisPhase1(diagnosis)
+        }
+    }
+
+    override fun semanticAnalysisPhase2(diagnosis: Diagnosis) {
+        return seanHelper.phase2(diagnosis) {
+            sizeDeclaration.semanticAnalysisPhase2(diagnosis)
+            indexDeclaration.semanticAnalysisPhase2(diagnosis)
+            indexInBounds.semanticAnalysisPhase2(diagnosis)
+            element.semanticAnalysisPhase2(diagnosis)
+            advanceIndex.semanticAnalysisPhase2(diagnosis)
+
+            val elementType = element.type
+            val cursorType = cursor.typeAtDeclarationTime
+            elementIsAssignableToCursor = elementType != null && cursorType != null && elementType isAssignableTo cursorType
+            if (elementIsAssignableToCursor) {
+                element.setEvaluationResultUsage(CreateReferenceValueUsage(
+                    cursorType,
+                    cursor.declaration.declaredAt,
+                    cursor.ownershipAtDeclarationTime,
+                ))
+            }
+        }
+    }
+
+    override fun semanticAnalysisPhase3(diagnosis: Diagnosis) {
+        return seanHelper.phase3(diagnosis) {
+            sizeDeclaration.semanticAnalysisPhase3(diagnosis)
+            indexDeclaration.semanticAnalysisPhase3(diagnosis)
+            indexInBounds.semanticAnalysisPhase3(diagnosis)
+            element.semanticAnalysisPhase3(diagnosis)
+            advanceIndex.semanticAnalysisPhase3(diagnosis)
+        }
+    }
+}
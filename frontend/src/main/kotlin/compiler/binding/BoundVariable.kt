@@ -283,6 +283,12 @@ class BoundVariable(
         )
     }
 
+    /**
+     * The declaration [DeferredLocalVariableGCRelease] drops the value of; [backendIrDeclaration] if `null`. Set when a
+     * desugaring keeps the value of this variable in a different variable, see [BoundForEachLoop].
+     */
+    internal var releasedBackendIrDeclaration: IrVariableDeclaration? = null
+
     override fun toBackendIrStatement(): IrExecutable {
         if (initializerExpression == null) {
             return backendIrDeclaration
@@ -11,7 +11,7 @@ class DeferredLocalVariableGCRelease(
 ) : DeferrableExecutable {
     override val span = variable.declaration.span
     override fun toBackendIrStatement(): IrExecutable {
-        val valueTemporary = IrCreateTemporaryValueImpl(IrVariableAccessExpressionImpl(variable.backendIrDeclaration))
+        val valueTemporary = IrCreateTemporaryValueImpl(IrVariableAccessExpressionImpl(variable.releasedBackendIrDeclaration ?: variable.backendIrDeclaration))
         return IrCodeChunkImpl(listOf(
             valueTemporary,
             IrDropStrongReferenceStatementImpl(valueTemporary),
@@ -78,6 +78,14 @@ interface CTContext {
 
     val imports: Iterable<BoundImportDeclaration>
 
+    /**
+     * The innermost context in the hierarchy, below the [SourceFileRootContext], that has base types or imports
+     * of its own; `null` if there is none. Name resolution in two contexts of the same file gives the same results
+     * if they have the same [nameResolutionScope]; and so does name resolution in two files of the same package
+     * with equal [SourceFile.importedSymbols] if both have none.
+     */
+    val nameResolutionScope: CTContext? get() = this
+
     /**
      * E.g. when inside a class context, this is the visibility of the class
      */
@@ -300,6 +300,7 @@ open class MutableExecutionScopedCTContext protected constructor(
         }
 
         _variables[boundVariable.name] = boundVariable
+        onSymbolAdded()
     }
 
     private val sideEffectsBySubjectAndClass: MutableMap<Any, MutableMap<EphemeralStateClass<*, *, *>, SequencedSet<SideEffect<*>>>> by lazy { IdentityHashMap() }
@@ -322,7 +323,7 @@ open class MutableExecutionScopedCTContext protected constructor(
         return selfEffects.fold(parentState, stateClass::fold)
     }
 
-    override fun resolveVariable(name: String, fromOwnFileOnly: Boolean): BoundVariable? {
+    override fun resolveVariableUncached(name: String, fromOwnFileOnly: Boolean): BoundVariable? {
         _variables[name]?.let { return it }
 
         val fromImport = if (fromOwnFileOnly) null else {
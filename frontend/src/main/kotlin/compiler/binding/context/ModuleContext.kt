@@ -6,6 +6,7 @@ import compiler.binding.SemanticallyAnalyzable
 import compiler.diagnostic.Diagnosis
 import io.github.tmarsteel.emerge.backend.api.ir.IrModule
 import io.github.tmarsteel.emerge.common.CanonicalElementName
+import io.github.tmarsteel.emerge.common.trace.CompilerTrace
 
 /**
  * Bundles all source files of a single module.
@@ -16,9 +17,9 @@ class ModuleContext(
     val explicitlyDependsOnModules: Set<CanonicalElementName.Package>,
     val softwareContext: SoftwareContext,
 ) : SemanticallyAnalyzable {
-    private val seanHelper = SeanHelper()
+    private var seanHelper = SeanHelper()
 
-    private val _sourceFiles: MutableSet<SourceFile> = HashSet()
+    private val _sourceFiles: MutableSet<SourceFile> = LinkedHashSet()
     val sourceFiles: Set<SourceFile> = _sourceFiles
 
     fun addSourceFile(sourceFile: ASTSourceFile): SourceFile {
@@ -32,21 +33,43 @@ class ModuleContext(
         _sourceFiles.add(sourceFile)
     }
 
+    /**
+     * Removes all source files of the given packages, so that they can be bound again from changed sources.
+     * This module has to go through semantic analysis again afterward; the source files that are kept have
+     * their analysis done already and will not be analysed a second time.
+     */
+    internal fun removeSourceFilesForRebinding(packageNames: Set<CanonicalElementName.Package>) {
+        _sourceFiles.removeIf { it.lexerFile.packageName in packageNames }
+        seanHelper = SeanHelper()
+    }
+
     override fun semanticAnalysisPhase1(diagnosis: Diagnosis) {
         return seanHelper.phase1(diagnosis) {
-            _sourceFiles.forEach { it.semanticAnalysisPhase1(diagnosis) }
+            _sourceFiles.forEach { sourceFile ->
+                CompilerTrace.span("semantic analysis phase 1", sourceFile.lexerFile) {
+                    sourceFile.semanticAnalysisPhase1(diagnosis)
+                }
+            }
         }
     }
 
     override fun semanticAnalysisPhase2(diagnosis: Diagnosis) {
         return seanHelper.phase2(diagnosis) {
-            _sourceFiles.forEach { it.semanticAnalysisPhase2(diagnosis) }
+            _sourceFiles.forEach { sourceFile ->
+                CompilerTrace.span("semantic analysis phase 2", sourceFile.lexerFile) {
+                    sourceFile.semanticAnalysisPhase2(diagnosis)
+                }
+            }
         }
     }
 
     override fun semanticAnalysisPhase3(diagnosis: Diagnosis) {
         return seanHelper.phase3(diagnosis) {
-            _sourceFiles.forEach { it.semanticAnalysisPhase3(diagnosis) }
+            _sourceFiles.forEach { sourceFile ->
+                CompilerTrace.span("semantic analysis phase 3", sourceFile.lexerFile) {
+                    sourceFile.semanticAnalysisPhase3(diagnosis)
+                }
+            }
         }
     }
 
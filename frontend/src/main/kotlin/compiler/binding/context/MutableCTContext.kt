@@ -39,6 +39,7 @@ import compiler.binding.type.ErroneousType
 import compiler.binding.type.GenericTypeReference
 import compiler.binding.type.RootResolvedTypeReference
 import compiler.handleCyclicInvocation
+import java.util.concurrent.atomic.AtomicInteger
 
 /**
  * Mutable compile-time context; for explanation, see the doc of [CTContext].
@@ -75,21 +76,51 @@ open class MutableCTContext(
     protected val _variables: MutableMap<String, BoundVariable> = HashMap()
 
     /** Holds all the toplevel functions defined in this context */
-    protected val _functions: MutableSet<BoundDeclaredFunction> = HashSet()
+    protected val _functions: MutableSet<BoundDeclaredFunction> = LinkedHashSet()
 
     /** Holds all the base types defined in this context */
-    protected val _types: MutableSet<BoundBaseType> = HashSet()
+    protected val _types: MutableSet<BoundBaseType> = LinkedHashSet()
+
+    override val nameResolutionScope: CTContext?
+        get() = if (_types.isNotEmpty() || _imports.isNotEmpty()) this else parentContext.nameResolutionScope
 
     fun addImport(decl: AstImportDeclaration) {
         this._imports.add(decl.bindTo(this))
+        onSymbolAdded()
     }
 
     open fun addBaseType(definition: BaseTypeDeclaration): BoundBaseType {
         val bound = definition.bindTo(this)
         _types.add(bound)
+        onSymbolAdded()
         return bound
     }
 
+    /**
+     * Whether a name has been resolved through this context. If not, neither this context nor any context
+     * derived from it can have cached a lookup that depends on the symbols of this context.
+     */
+    private var resolvedThrough = false
+
+    /** see [SoftwareContext.nameResolutionGeneration]; looked up on first use because [moduleContext] can be set after construction */
+    private val nameResolutionGeneration: AtomicInteger by lazy { swCtx.nameResolutionGeneration }
+
+    /**
+     * Must be called when this context gains a symbol that can be found by name; invalidates the lookups cached
+     * in this context and its descendants.
+     */
+    protected fun onSymbolAdded() {
+        if (resolvedThrough) {
+            // the descendants aren't known, so all caches have to go
+            nameResolutionGeneration.incrementAndGet()
+        }
+    }
+
+    private val baseTypesBySimpleName = NameResolutionCache<List<BoundBaseType>>()
+    private val variablesBySimpleName = NameResolutionCache<BoundVariable?>()
+    private val variablesOfOwnFileBySimpleName = NameResolutionCache<BoundVariable?>()
+    private val overloadSetsBySimpleName = NameResolutionCache<Collection<BoundOverloadSet<*>>>()
+
     private val typeParameters = LinkedHashMap<String, BoundTypeParameter>()
 
     open fun addTypeParameter(parameter: BoundTypeParameter) {
@@ -106,6 +137,11 @@ open class MutableCTContext(
     }
 
     override fun resolveBaseType(simpleName: String): Sequence<BoundBaseType> {
+        resolvedThrough = true
+        return baseTypesBySimpleName.getOrPut(simpleName) { resolveBaseTypeUncached(simpleName).toList() }.asSequence()
+    }
+
+    private fun resolveBaseTypeUncached(simpleName: String): Sequence<BoundBaseType> {
         return handleCyclicInvocation(
             Pair(this, simpleName),
             action = {
@@ -152,6 +188,8 @@ open class MutableCTContext(
             resolveTypeArgument(typeArgAstNode, baseTypes.singleOrNull()?.typeParameters?.getOrNull(index))
         }
 
+        baseTypes.singleOrNull()?.let { swCtx.getPackage(packageName)?.onTypeReferenceResolved(it) }
+
         return baseTypes
             .singleOrNull()
             ?.let { RootResolvedTypeReference(this, ref, it, resolvedArguments) }
@@ -165,16 +203,60 @@ open class MutableCTContext(
         }
     }
 
-    override fun resolveVariable(name: String, fromOwnFileOnly: Boolean): BoundVariable? {
+    final override fun resolveVariable(name: String, fromOwnFileOnly: Boolean): BoundVariable? {
+        resolvedThrough = true
+        val cache = if (fromOwnFileOnly) variablesOfOwnFileBySimpleName else variablesBySimpleName
+        return cache.getOrPut(name) { resolveVariableUncached(name, fromOwnFileOnly) }
+    }
+
+    protected open fun resolveVariableUncached(name: String, fromOwnFileOnly: Boolean): BoundVariable? {
         return parentContext.resolveVariable(name, fromOwnFileOnly)
     }
 
     fun addFunction(fn: BoundDeclaredFunction) {
         this._functions.add(fn)
+        onSymbolAdded()
     }
 
     override fun getToplevelFunctionOverloadSetsBySimpleName(name: String): Collection<BoundOverloadSet<*>> {
-        val imported = _imports.flatMap { it.getOverloadSetsBySimpleName(name) }
-        return imported + parentContext.getToplevelFunctionOverloadSetsBySimpleName(name)
+        resolvedThrough = true
+        return overloadSetsBySimpleName.getOrPut(name) {
+            val imported = _imports.flatMap { it.getOverloadSetsBySimpleName(name) }
+            imported + parentContext.getToplevelFunctionOverloadSetsBySimpleName(name)
+        }
+    }
+
+    /**
+     * Memoizes the lookups of one kind of symbol by simple name in one context. As the results also depend on the
+     * parent contexts, all of these caches in the [SoftwareContext] are dropped whenever any of its contexts gains a
+     * symbol after names have been resolved through it; see [onSymbolAdded]. Once binding is done, that hardly happens
+     * anymore.
+     */
+    private inner class NameResolutionCache<T> {
+        private var generation = -1
+        private var results: HashMap<String, T>? = null
+
+        inline fun getOrPut(simpleName: String, compute: () -> T): T {
+            val generationBefore = nameResolutionGeneration.get()
+            var results = this.results
+            if (results == null || generation != generationBefore) {
+                results = HashMap()
+                this.results = results
+                generation = generationBefore
+            }
+
+            // results can be null, so get() alone can't tell whether the name was looked up before
+            results[simpleName]?.let { return it }
+            if (simpleName in results) {
+                @Suppress("UNCHECKED_CAST")
+                return results[simpleName] as T
+            }
+
+            val result = compute()
+            if (nameResolutionGeneration.get() == generationBefore) {
+                results[simpleName] = result
+            }
+            return result
+        }
     }
 }
\ No newline at end of file
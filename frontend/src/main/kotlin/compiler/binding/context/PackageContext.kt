@@ -7,6 +7,7 @@ import compiler.binding.BoundVariable
 import compiler.binding.SemanticallyAnalyzable
 import compiler.binding.basetype.BoundBaseType
 import compiler.binding.context.PackageContext.TypeBranch.Companion.groupTypeBranches
+import compiler.binding.expression.OverloadResolutionCache
 import compiler.binding.type.BoundTypeReference
 import compiler.binding.type.isAssignableTo
 import compiler.diagnostic.Diagnosis
@@ -38,6 +39,29 @@ class PackageContext(
             .flatMap { it.context.variables }
     }
 
+    private val packagesOfReferencedTypes = HashSet<CanonicalElementName.Package>()
+
+    /**
+     * To be called for every reference to [baseType] that code in this package resolves, see [dependsOnPackages]
+     */
+    fun onTypeReferenceResolved(baseType: BoundBaseType) {
+        packagesOfReferencedTypes.add(baseType.canonicalName.packageName)
+    }
+
+    /**
+     * The other packages that code in this package refers to: the imported ones, through which functions and
+     * variables are found, plus the packages of all the types that references in this package resolved to. The
+     * latter also covers references that don't go through an import, e.g. [compiler.ast.type.AstAbsoluteTypeReference]s.
+     * Everything else that code in this package can reach (e.g. the members of the return type of an imported
+     * function) is declared in a dependency of one of these packages, so following this transitively covers all
+     * type references and overload resolution.
+     */
+    val dependsOnPackages: Set<CanonicalElementName.Package> get() = (sourceFiles
+        .flatMap { it.context.imports }
+        .map { it.packageName } + packagesOfReferencedTypes)
+        .filter { it != packageName }
+        .toSet()
+
     private val typeByNameCache = HashMap<String, BoundBaseType>()
     fun resolveBaseType(simpleName: String): BoundBaseType? {
         typeByNameCache[simpleName]?.let { return it }
@@ -71,6 +95,9 @@ class PackageContext(
             }
     }
 
+    /** for the invocations in this package, see [compiler.binding.expression.BoundInvocationExpression] */
+    internal val overloadResolutionCache = OverloadResolutionCache()
+
     override fun semanticAnalysisPhase1(diagnosis: Diagnosis) {
         return overloadSetsBySimpleName.values
             .flatten()
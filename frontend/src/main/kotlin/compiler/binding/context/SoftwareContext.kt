@@ -19,15 +19,20 @@
 package compiler.binding.context
 
 import compiler.InternalCompilerError
+import compiler.ast.ASTSourceFile
 import compiler.ast.type.TypeMutability
 import compiler.ast.type.TypeReference
 import compiler.binding.basetype.BoundBaseType
+import compiler.binding.type.AssignabilityCache
 import compiler.diagnostic.Diagnosis
+import compiler.diagnostic.RedirectingDiagnosis
 import compiler.lexer.Span
 import io.github.tmarsteel.emerge.backend.api.ir.IrSoftwareContext
 import io.github.tmarsteel.emerge.common.CanonicalElementName
 import io.github.tmarsteel.emerge.common.EmergeConstants
+import io.github.tmarsteel.emerge.common.trace.CompilerTrace
 import textutils.capitalizeFirst
+import java.util.concurrent.atomic.AtomicInteger
 import kotlin.reflect.KProperty
 
 /**
@@ -82,10 +87,28 @@ class SoftwareContext {
         return emptyPackage
     }
 
+    /** answers [compiler.binding.type.isAssignableTo] */
+    val assignabilityCache = AssignabilityCache()
+
+    /**
+     * Bumped whenever a context of this software gains a symbol after names have been resolved through it; the
+     * name lookups cached in [MutableCTContext]s of an older generation are discarded.
+     */
+    internal val nameResolutionGeneration = AtomicInteger()
+
     fun resolveBaseType(canonicalName: CanonicalElementName.BaseType): BoundBaseType? {
         return getPackage(canonicalName.packageName)?.resolveBaseType(canonicalName.simpleName)
     }
 
+    /**
+     * All analysis of this context reports through this instance, so that packages analysed in an earlier
+     * [doSemanticAnalysis] can be kept after [rebindChangedSources].
+     */
+    private var analysisDiagnosis: RedirectingDiagnosis? = null
+
+    /** packages that have completed semantic analysis; these are skipped by [doSemanticAnalysis] */
+    private val analysedPackages = HashSet<CanonicalElementName.Package>()
+
     fun doSemanticAnalysis(diagnosis: Diagnosis) {
         modules
             .asSequence()
@@ -96,12 +119,101 @@ class SoftwareContext {
                 }
             }
 
-        modules.forEach { it.semanticAnalysisPhase1(diagnosis) }
-        packages.values.forEach() { it.semanticAnalysisPhase1(diagnosis) }
-        modules.forEach { it.semanticAnalysisPhase2(diagnosis) }
-        packages.values.forEach() { it.semanticAnalysisPhase2(diagnosis) }
-        modules.forEach { it.semanticAnalysisPhase3(diagnosis) }
-        packages.values.forEach() { it.semanticAnalysisPhase3(diagnosis) }
+        val redirectingDiagnosis = analysisDiagnosis?.also { it.target = diagnosis }
+            ?: RedirectingDiagnosis(diagnosis).also { analysisDiagnosis = it }
+
+        fun packagesToAnalyse() = packages.values.filter { it.packageName !in analysedPackages }
+
+        modules.forEach { CompilerTrace.span("semantic analysis phase 1", it) { it.semanticAnalysisPhase1(redirectingDiagnosis) } }
+        packagesToAnalyse().forEach() { CompilerTrace.span("semantic analysis phase 1", it.packageName) { it.semanticAnalysisPhase1(redirectingDiagnosis) } }
+        modules.forEach { CompilerTrace.span("semantic analysis phase 2", it) { it.semanticAnalysisPhase2(redirectingDiagnosis) } }
+        packagesToAnalyse().forEach() { CompilerTrace.span("semantic analysis phase 2", it.packageName) { it.semanticAnalysisPhase2(redirectingDiagnosis) } }
+        modules.forEach { CompilerTrace.span("semantic analysis phase 3", it) { it.semanticAnalysisPhase3(redirectingDiagnosis) } }
+        packagesToAnalyse().forEach() { CompilerTrace.span("semantic analysis phase 3", it.packageName) { it.semanticAnalysisPhase3(redirectingDiagnosis) } }
+        analysedPackages.addAll(packages.keys)
+    }
+
+    /**
+     * Brings this context, after [doSemanticAnalysis] was done on it, up to date with changed sources. Only the
+     * packages that changed, and those that depend on them ([getPackagesAffectedByChangesTo]), are bound again;
+     * all other packages keep their bound and analysed state. The next [doSemanticAnalysis] then only analyses
+     * the packages that were bound again.
+     *
+     * Source files are considered unchanged if they are represented by the same [ASTSourceFile.lexerFile]
+     * instance as before, e.g. because they come from a [compiler.parser.SourceFileParseCache].
+     *
+     * This is only sound if the previous [doSemanticAnalysis] reported no errors.
+     *
+     * @param sourcesByModule all source files, changed or not, of the modules that may have changed. Modules that
+     * aren't mentioned are considered unchanged.
+     * @return whether this context was updated. If `false`, the change can't be applied incrementally (e.g. because
+     * the core module changed, or an unknown module is mentioned) and this context was left untouched; a new
+     * [SoftwareContext] has to be built instead.
+     */
+    fun rebindChangedSources(sourcesByModule: Map<CanonicalElementName.Package, Collection<ASTSourceFile>>): Boolean {
+        if (!modules.map { it.moduleName }.containsAll(sourcesByModule.keys)) {
+            return false
+        }
+
+        val previousSourcesByPackage = sourcesByModule.keys
+            .flatMap { getRegisteredModule(it).sourceFiles }
+            .groupBy({ it.lexerFile.packageName }, { it.lexerFile })
+        val currentSourcesByPackage = sourcesByModule.values
+            .flatten()
+            .groupBy({ it.expectedPackageName }, { it.lexerFile })
+        val changedPackages = (previousSourcesByPackage.keys + currentSourcesByPackage.keys)
+            .filter { packageName ->
+                val previousSources = previousSourcesByPackage[packageName] ?: emptyList()
+                val currentSources = currentSourcesByPackage[packageName] ?: emptyList()
+                previousSources.size != currentSources.size || currentSources.any { current -> previousSources.none { it === current } }
+            }
+            .toSet()
+
+        val affectedPackages = getPackagesAffectedByChangesTo(changedPackages)
+        if (affectedPackages.any { EmergeConstants.CoreModule.NAME.containsOrEquals(it) }) {
+            // types from the core module are referenced from this object directly
+            return false
+        }
+
+        modules.forEach { it.removeSourceFilesForRebinding(affectedPackages) }
+        assignabilityCache.clear()
+        affectedPackages.forEach {
+            // bound anew, so caches like the overload sets get re-built
+            packages.remove(it)
+            analysedPackages.remove(it)
+        }
+        for ((moduleName, sourceFiles) in sourcesByModule) {
+            val moduleContext = getRegisteredModule(moduleName)
+            sourceFiles
+                .filter { it.expectedPackageName in affectedPackages }
+                .forEach { CompilerTrace.span("bind", it.lexerFile) { moduleContext.addSourceFile(it) } }
+        }
+
+        return true
+    }
+
+    /**
+     * @return [changedPackages] plus all the packages that depend on any of them, directly or transitively; see
+     * [PackageContext.dependsOnPackages]
+     */
+    fun getPackagesAffectedByChangesTo(changedPackages: Set<CanonicalElementName.Package>): Set<CanonicalElementName.Package> {
+        val dependentsByPackage = HashMap<CanonicalElementName.Package, MutableSet<CanonicalElementName.Package>>()
+        for (pkg in packages.values) {
+            for (dependency in pkg.dependsOnPackages) {
+                dependentsByPackage.getOrPut(dependency, ::HashSet).add(pkg.packageName)
+            }
+        }
+
+        val affected = HashSet<CanonicalElementName.Package>()
+        val queue = ArrayDeque(changedPackages)
+        while (queue.isNotEmpty()) {
+            val pkg = queue.removeFirst()
+            if (affected.add(pkg)) {
+                dependentsByPackage[pkg]?.let(queue::addAll)
+            }
+        }
+
+        return affected
     }
 
     /**
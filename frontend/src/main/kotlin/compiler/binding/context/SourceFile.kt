@@ -18,6 +18,8 @@
 
 package compiler.binding.context
 
+import compiler.binding.BoundImportDeclaration
+import compiler.binding.SeanHelper
 import compiler.binding.SemanticallyAnalyzable
 import compiler.diagnostic.CollectingDiagnosis
 import compiler.diagnostic.Diagnosis
@@ -26,6 +28,7 @@ import compiler.diagnostic.ambiguousOrRedundantImports
 import compiler.diagnostic.toplevelFunctionWithOverrideAttribute
 import compiler.lexer.LexerSourceFile
 import compiler.lexer.Operator
+import io.github.tmarsteel.emerge.common.CanonicalElementName
 
 class SourceFile(
     val lexerFile: LexerSourceFile,
@@ -33,36 +36,59 @@ class SourceFile(
     /** [Diagnostic]s generated at bind-time: double declarations, ... */
     val bindTimeDiagnosis: CollectingDiagnosis,
 ) : SemanticallyAnalyzable {
+    private val seanHelper = SeanHelper()
+
     init {
         context.sourceFile = this
     }
 
+    /**
+     * What the imports of this file refer to, regardless of how they are written: `import a.{B, C}` is the same
+     * as `import a.C` plus `import a.B`. Files of the same package with equal [importedSymbols] resolve names
+     * to the same symbols.
+     */
+    val importedSymbols: Set<ImportedSymbol> by lazy {
+        context.imports.flatMapTo(HashSet()) { import ->
+            import.declaration.symbols.map { ImportedSymbol(import.packageName, it.value) }
+        }
+    }
+
+    /**
+     * @param simpleName the imported name, or [BoundImportDeclaration.WILDCARD_SYMBOL]
+     */
+    data class ImportedSymbol(
+        val packageName: CanonicalElementName.Package,
+        val simpleName: String,
+    )
+
     /**
      * Delegates to semantic analysis phase 1 of all components that make up this file;
      * collects the results and returns them. Also returns the [Diagnostic]s found when binding
      * elements to the file (such as doubly declared variables).
      */
     override fun semanticAnalysisPhase1(diagnosis: Diagnosis) {
-        bindTimeDiagnosis.replayOnto(diagnosis)
-        context.imports.forEach { it.semanticAnalysisPhase1(diagnosis) }
-        context.types.forEach { it.semanticAnalysisPhase1(diagnosis) }
-        context.variables.forEach { it.semanticAnalysisPhase1(diagnosis) }
-        context.functions.forEach { it.semanticAnalysisPhase1(diagnosis) }
+        return seanHelper.phase1(diagnosis) {
+            bindTimeDiagnosis.replayOnto(diagnosis)
+            context.imports.forEach { it.semanticAnalysisPhase1(diagnosis) }
+            context.types.forEach { it.semanticAnalysisPhase1(diagnosis) }
+            context.variables.forEach { it.semanticAnalysisPhase1(diagnosis) }
+            context.functions.forEach { it.semanticAnalysisPhase1(diagnosis) }
 
-        context.imports
-            .flatMap { import ->
-                import.declaration.symbols.map { Pair(it.value, import) }
-            }
-            .filter { (simpleName, _) -> simpleName != Operator.TIMES.text }
-            .groupBy(
-                keySelector = { (simpleName, _) -> simpleName },
-                valueTransform = { (_, import) -> import }
-            )
-            .filter { (_, imports) -> imports.size > 1 }
-            .forEach { (simpleName, ambiguousImports) ->
-                context.markSimpleNameAmbiguousByImports(simpleName)
-                diagnosis.ambiguousOrRedundantImports(ambiguousImports, simpleName)
-            }
+            context.imports
+                .flatMap { import ->
+                    import.declaration.symbols.map { Pair(it.value, import) }
+                }
+                .filter { (simpleName, _) -> simpleName != Operator.TIMES.text }
+                .groupBy(
+                    keySelector = { (simpleName, _) -> simpleName },
+                    valueTransform = { (_, import) -> import }
+                )
+                .filter { (_, imports) -> imports.size > 1 }
+                .forEach { (simpleName, ambiguousImports) ->
+                    context.markSimpleNameAmbiguousByImports(simpleName)
+                    diagnosis.ambiguousOrRedundantImports(ambiguousImports, simpleName)
+                }
+        }
     }
 
     /**
@@ -70,10 +96,12 @@ class SourceFile(
      * collects the results and returns them.
      */
     override fun semanticAnalysisPhase2(diagnosis: Diagnosis) {
-        context.imports.forEach { it.semanticAnalysisPhase2(diagnosis) }
-        context.types.forEach { it.semanticAnalysisPhase2(diagnosis) }
-        context.variables.forEach { it.semanticAnalysisPhase2(diagnosis) }
-        context.functions.forEach { it.semanticAnalysisPhase2(diagnosis) }
+        return seanHelper.phase2(diagnosis) {
+            context.imports.forEach { it.semanticAnalysisPhase2(diagnosis) }
+            context.types.forEach { it.semanticAnalysisPhase2(diagnosis) }
+            context.variables.forEach { it.semanticAnalysisPhase2(diagnosis) }
+            context.functions.forEach { it.semanticAnalysisPhase2(diagnosis) }
+        }
     }
 
     /**
@@ -81,13 +109,15 @@ class SourceFile(
      * collects the results and returns them.
      */
     override fun semanticAnalysisPhase3(diagnosis: Diagnosis) {
-        context.imports.forEach { it.semanticAnalysisPhase3(diagnosis) }
-        context.types.forEach { it.semanticAnalysisPhase3(diagnosis) }
-        context.variables.forEach { it.semanticAnalysisPhase3(diagnosis) }
-        context.functions.forEach { topLevelFn ->
-            topLevelFn.semanticAnalysisPhase3(diagnosis)
-            topLevelFn.attributes.firstOverrideAttribute?.let { overrideAttr ->
-                diagnosis.toplevelFunctionWithOverrideAttribute(overrideAttr)
+        return seanHelper.phase3(diagnosis) {
+            context.imports.forEach { it.semanticAnalysisPhase3(diagnosis) }
+            context.types.forEach { it.semanticAnalysisPhase3(diagnosis) }
+            context.variables.forEach { it.semanticAnalysisPhase3(diagnosis) }
+            context.functions.forEach { topLevelFn ->
+                topLevelFn.semanticAnalysisPhase3(diagnosis)
+                topLevelFn.attributes.firstOverrideAttribute?.let { overrideAttr ->
+                    diagnosis.toplevelFunctionWithOverrideAttribute(overrideAttr)
+                }
             }
         }
     }
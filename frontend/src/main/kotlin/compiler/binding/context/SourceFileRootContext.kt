@@ -34,6 +34,9 @@ class SourceFileRootContext(
     override val packageName: CanonicalElementName.Package = declaredOrInferredPackageName
     override lateinit var sourceFile: SourceFile
 
+    // the types of the file are also found through the package, and its imports are covered by SourceFile.importedSymbols
+    override val nameResolutionScope: CTContext? get() = null
+
     val variables: Collection<BoundVariable> = _variables.values
     val functions: Collection<BoundDeclaredFunction> = _functions
     val types: Collection<BoundBaseType> = _types
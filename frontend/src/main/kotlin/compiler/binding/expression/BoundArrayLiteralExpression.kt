@@ -192,7 +192,7 @@ class BoundArrayLiteralExpression(
     }
 }
 
-private class IrNullInitializedArrayExpressionImpl(
+internal class IrNullInitializedArrayExpressionImpl(
     override val evaluatesTo: IrType,
     override val elementType: IrType,
     override val size: ULong,
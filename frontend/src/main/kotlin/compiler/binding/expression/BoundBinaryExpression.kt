@@ -20,14 +20,29 @@ package compiler.binding.expression
 
 import compiler.ast.Expression
 import compiler.ast.expression.BinaryExpression
+import compiler.binding.BoundMemberFunction
+import compiler.binding.IrCodeChunkImpl
 import compiler.binding.context.ExecutionScopedCTContext
+import compiler.binding.expression.BoundExpression.Companion.wrapIrAsStatement
+import compiler.binding.misc_ir.IrCreateTemporaryValueImpl
+import compiler.binding.misc_ir.IrDropStrongReferenceStatementImpl
+import compiler.binding.misc_ir.IrImplicitEvaluationExpressionImpl
+import compiler.binding.misc_ir.IrTemporaryValueReferenceImpl
 import compiler.binding.type.BoundTypeReference
+import compiler.binding.type.IrSimpleTypeImpl
 import compiler.binding.type.RootResolvedTypeReference
 import compiler.diagnostic.Diagnosis
 import compiler.diagnostic.Diagnosis.Companion.doWithTransformedFindings
 import compiler.diagnostic.FunctionMissingAttributeDiagnostic
 import compiler.diagnostic.OperatorNotDeclaredDiagnostic
 import compiler.diagnostic.UnresolvableFunctionOverloadDiagnostic
+import io.github.tmarsteel.emerge.backend.api.ir.IrExecutable
+import io.github.tmarsteel.emerge.backend.api.ir.IrExpression
+import io.github.tmarsteel.emerge.backend.api.ir.IrInvocationExpression
+import io.github.tmarsteel.emerge.backend.api.ir.IrParameterizedType
+import io.github.tmarsteel.emerge.backend.api.ir.IrTypeMutability
+import io.github.tmarsteel.emerge.common.indexed
+import java.math.BigInteger
 
 class BoundBinaryExpression(
     override val context: ExecutionScopedCTContext,
@@ -63,4 +78,116 @@ class BoundBinaryExpression(
             diagnosis,
         )
     }
+
+    /**
+     * Whether this is an invocation of `emerge.core.String.plus`. Meaningful after [semanticAnalysisPhase2].
+     */
+    private val isStringConcatenation: Boolean get() {
+        val fn = hiddenInvocation.functionToInvoke as? BoundMemberFunction ?: return false
+        return fn.name == "plus" && fn.declaresReceiver && fn.ownerBaseType == context.swCtx.string
+    }
+
+    /**
+     * Collects the operands of a chain of `+` on strings, e.g. `a`, `b`, `c` and `d` for `a + b + (c + d)`, in
+     * evaluation order.
+     */
+    private fun collectStringConcatenationOperands(into: MutableList<BoundExpression<*>>) {
+        for (operand in listOf(hiddenInvocation.receiverExpression!!, hiddenInvocation.valueArguments.single())) {
+            if (operand is BoundBinaryExpression && operand.isStringConcatenation) {
+                operand.collectStringConcatenationOperands(into)
+            } else {
+                into.add(operand)
+            }
+        }
+    }
+
+    override fun toBackendIrExpression(): IrExpression {
+        if (!isStringConcatenation) {
+            return hiddenInvocation.toBackendIrExpression()
+        }
+
+        val operands = ArrayList<BoundExpression<*>>()
+        collectStringConcatenationOperands(operands)
+        if (operands.size <= 2) {
+            return hiddenInvocation.toBackendIrExpression()
+        }
+
+        return buildStringConcatenationIr(operands)
+    }
+
+    override fun toBackendIrStatement(): IrExecutable {
+        return wrapIrAsStatement()
+    }
+
+    /**
+     * Evaluating `a + b + c + d` with [String.plus] allocates and copies three intermediate strings; the work is
+     * quadratic in the number of operands. Instead, this puts all the operands into an array and passes that
+     * to `String.concat`, which allocates the result exactly once.
+     */
+    private fun buildStringConcatenationIr(operands: List<BoundExpression<*>>): IrExpression {
+        val swCtx = context.swCtx
+        val concatFn = swCtx.string.resolveMemberFunction("concat")
+            .single()
+            .overloads
+            .single()
+            .toBackendIr()
+        val arraySetFn = swCtx.array.resolveMemberFunction("setOrPanic")
+            .single()
+            .overloads
+            .single()
+            .toBackendIr()
+        val irArrayType = concatFn.parameters.single().type as IrParameterizedType
+        val irElementType = irArrayType.arguments.values.single().type
+        val irUWordType = IrSimpleTypeImpl(swCtx.uword.toBackendIr(), IrTypeMutability.IMMUTABLE, false)
+        val irUnitType = IrSimpleTypeImpl(swCtx.unit.toBackendIr(), IrTypeMutability.IMMUTABLE, false)
+
+        return buildGenericInvocationLikeIr(
+            hiddenInvocation.context,
+            declaration.span,
+            operands,
+            { args, landingpad ->
+                val instrs = mutableListOf<IrExecutable>()
+                val arrayTemporary = IrCreateTemporaryValueImpl(
+                    IrNullInitializedArrayExpressionImpl(irArrayType, irElementType, args.size.toULong(), landingpad!!)
+                )
+                val arrayTemporaryRef = IrTemporaryValueReferenceImpl(arrayTemporary)
+                instrs.add(arrayTemporary)
+                for ((index, operand) in args.indexed()) {
+                    val indexTemporary = IrCreateTemporaryValueImpl(
+                        IrIntegerLiteralExpressionImpl(BigInteger.valueOf(index.toLong()), irUWordType)
+                    )
+                    instrs.add(indexTemporary)
+                    instrs.add(IrCreateTemporaryValueImpl(
+                        IrStaticDispatchFunctionInvocationImpl(
+                            arraySetFn,
+                            listOf(arrayTemporaryRef, IrTemporaryValueReferenceImpl(indexTemporary), operand),
+                            mapOf(swCtx.array.typeParameters!!.single().name to irElementType),
+                            irUnitType,
+                            null, // the set will not throw, index is guaranteed to be in bounds
+                        )
+                    ))
+                }
+
+                // the array has to be released, too, if concat throws
+                val concatLandingpad = IrInvocationExpression.Landingpad(
+                    landingpad.throwableVariable,
+                    IrCodeChunkImpl(listOf(IrDropStrongReferenceStatementImpl(arrayTemporaryRef), landingpad.code)),
+                )
+                val resultTemporary = IrCreateTemporaryValueImpl(
+                    IrStaticDispatchFunctionInvocationImpl(
+                        concatFn,
+                        listOf(arrayTemporaryRef),
+                        emptyMap(),
+                        type!!.toBackendIr(),
+                        concatLandingpad,
+                    )
+                )
+                instrs.add(resultTemporary)
+                instrs.add(IrDropStrongReferenceStatementImpl(arrayTemporaryRef))
+
+                IrImplicitEvaluationExpressionImpl(IrCodeChunkImpl(instrs), IrTemporaryValueReferenceImpl(resultTemporary))
+            },
+            assumeNothrow = false, // allocating the array and the result can always throw an OOM error
+        )
+    }
 }
\ No newline at end of file
@@ -199,9 +199,47 @@ class BoundInvocationExpression(
         }
     }
 
+    /** is `null` if the [context] doesn't belong to a package */
+    private val overloadResolutionCache: OverloadResolutionCache? by lazy {
+        context.swCtx.getPackage(context.packageName)?.overloadResolutionCache
+    }
+
+    /** needs the type of the [receiverExpression], so must not be accessed before its phase 2 */
+    private val invocationTarget: OverloadResolutionCache.InvocationTarget by lazy {
+        OverloadResolutionCache.InvocationTarget(
+            functionNameToken.value,
+            receiverExpression?.type,
+            receiverExpression != null && receiverExceptReferringType == null,
+            context.sourceFile.importedSymbols,
+            context.nameResolutionScope,
+        )
+    }
+
+    /**
+     * @return the key to cache the chosen overload under, or `null` if the choice depends on more than the types
+     * involved
+     */
+    private fun buildCallSiteSignature(): OverloadResolutionCache.CallSiteSignature? {
+        if (overloadResolutionCache == null || candidateFilter != null || disambiguationBehavior !== DisambiguationBehavior.AllParametersDisambiguate) {
+            return null
+        }
+
+        return OverloadResolutionCache.CallSiteSignature(
+            invocationTarget,
+            valueArguments.map { it.type!! },
+            typeArguments,
+        )
+    }
+
     private fun collectOverloadCandidates(): AvailableOverloads {
         assert((receiverExpression == null) xor (receiverExpression?.type != null))
 
+        return overloadResolutionCache
+            ?.getCandidates(invocationTarget, ::collectOverloadCandidatesUncached)
+            ?: collectOverloadCandidatesUncached()
+    }
+
+    private fun collectOverloadCandidatesUncached(): AvailableOverloads {
         val candidateConstructors: Collection<BoundOverloadSet<*>>? = if (receiverExpression != null) null else {
             context.resolveBaseType(functionNameToken.value)
                 .distinct()
@@ -249,6 +287,11 @@ class BoundInvocationExpression(
             return null
         }
 
+        val callSiteSignature = buildCallSiteSignature()
+        callSiteSignature
+            ?.let { overloadResolutionCache!!.getChosenOverload(it) }
+            ?.let { return evaluateChosenOverload(it) }
+
         val evaluations = allCandidates.evaluateInvocationCandidates(
             // for static member fns, receiverExpression helps discover them. But for the actual invocation,
             // the receiver stops to matter
@@ -314,7 +357,15 @@ class BoundInvocationExpression(
                     return applicableInvalidCandidates.firstOrNull()
                 }
             }
-            1 -> return legalMatches.single()
+            1 -> {
+                val chosen = legalMatches.single()
+                // a candidate whose parameter types are not yet known was skipped; it might be the better match later on
+                val allCandidatesEvaluated = allCandidates.all { overloadSet -> overloadSet.overloads.all { fn -> fn.parameterTypes.none { it == null } } }
+                if (callSiteSignature != null && allCandidatesEvaluated) {
+                    overloadResolutionCache!!.putChosenOverload(callSiteSignature, chosen.candidate)
+                }
+                return chosen
+            }
             else -> {
                 if (legalMatches.all { it.candidate is InheritedBoundMemberFunction }) {
                     legalMatches
@@ -336,6 +387,26 @@ class BoundInvocationExpression(
         }
     }
 
+    /**
+     * Evaluates [chosen], which is known to be the only legal candidate for this invocation from an earlier
+     * invocation with the same [OverloadResolutionCache.CallSiteSignature].
+     */
+    private fun evaluateChosenOverload(chosen: BoundFunction): OverloadCandidateEvaluation {
+        if (chosen.allTypeParameters.isEmpty() && typeArguments == null) {
+            // nothing to infer, so the unification is necessarily empty
+            return OverloadCandidateEvaluation(
+                chosen,
+                TypeUnification.EMPTY,
+                chosen.returnType,
+                emptyList(),
+                null,
+                isLegalCandidate = true,
+            )
+        }
+
+        return sequenceOf(chosen).evaluateInvocationCandidates(receiverExceptReferringType).single()
+    }
+
     private fun Iterable<BoundOverloadSet<*>>.evaluateInvocationCandidates(receiver: BoundExpression<*>?): Sequence<OverloadCandidateEvaluation> {
         return this.asSequence()
             .flatMap { it.overloads }
@@ -409,7 +480,7 @@ class BoundInvocationExpression(
                     returnTypeWithVariables?.instantiateFreeVariables(unification),
                     indicesOfErroneousParameters,
                     inapplicableReason,
-                    isLegalCandidate = unificationBeforeParameters.diagnostics.none { it.severity >= Diagnostic.Severity.ERROR }
+                    isLegalCandidate = !unificationBeforeParameters.hasErrors
                         && inapplicableReason == null
                         && allDisambiguatingArgumentsAreErrorFree
                 )
@@ -599,7 +670,7 @@ class BoundInvocationExpression(
     }
 }
 
-private data class AvailableOverloads(
+internal data class AvailableOverloads(
     val candidates: Collection<BoundOverloadSet<*>>,
     val constructorsConsidered: Boolean,
     val anyTopLevelFunctions: Boolean,
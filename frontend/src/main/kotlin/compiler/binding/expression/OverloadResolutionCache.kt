@@ -0,0 +1,61 @@
+package compiler.binding.expression
+
+import compiler.binding.BoundFunction
+import compiler.binding.context.CTContext
+import compiler.binding.context.PackageContext
+import compiler.binding.context.SourceFile
+import compiler.binding.type.BoundTypeArgument
+import compiler.binding.type.BoundTypeReference
+
+/**
+ * Remembers the overload resolution of the [BoundInvocationExpression]s in one [PackageContext]. Which functions
+ * an invocation can refer to depends only on the package, the [SourceFile.importedSymbols] of the file it is in and
+ * the [CTContext.nameResolutionScope]; so calls with the same [CallSiteSignature] in the same package always resolve
+ * to the same overload, even if they are in different files.
+ *
+ * Only what doesn't refer to the call site is kept: the candidates and, if there was exactly one legal candidate,
+ * that one. The [compiler.binding.type.TypeUnification] of that candidate holds the locations of the arguments,
+ * so it has to be re-done for each call site; unless the candidate is not generic, then it is empty anyways.
+ *
+ * As the [PackageContext] is bound anew when the package or one of its dependencies change, so is this cache.
+ */
+internal class OverloadResolutionCache {
+    private val candidatesByTarget = HashMap<InvocationTarget, AvailableOverloads>()
+    private val chosenOverloadBySignature = HashMap<CallSiteSignature, BoundFunction>()
+
+    fun getCandidates(target: InvocationTarget, compute: () -> AvailableOverloads): AvailableOverloads {
+        return candidatesByTarget.getOrPut(target, compute)
+    }
+
+    /** the targets for which the candidates are cached */
+    val cachedTargets: Set<InvocationTarget> get() = candidatesByTarget.keys
+
+    fun getChosenOverload(signature: CallSiteSignature): BoundFunction? = chosenOverloadBySignature[signature]
+
+    fun putChosenOverload(signature: CallSiteSignature, chosen: BoundFunction) {
+        chosenOverloadBySignature[signature] = chosen
+    }
+
+    /**
+     * Everything that determines the candidates of an invocation
+     */
+    data class InvocationTarget(
+        val functionName: String,
+        val receiverType: BoundTypeReference?,
+        /** whether the receiver refers to a base type, e.g. for static member functions */
+        val receiverRefersToType: Boolean,
+        val importedSymbols: Set<SourceFile.ImportedSymbol>,
+        /** compared by identity */
+        val nameResolutionScope: CTContext?,
+    )
+
+    /**
+     * Everything that determines which of the candidates of an invocation gets chosen, given that the invocation
+     * doesn't use a [BoundInvocationExpression.CandidateFilter] and all parameters disambiguate.
+     */
+    data class CallSiteSignature(
+        val target: InvocationTarget,
+        val argumentTypes: List<BoundTypeReference>,
+        val typeArguments: List<BoundTypeArgument>?,
+    )
+}
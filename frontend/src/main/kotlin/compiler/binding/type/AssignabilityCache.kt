@@ -0,0 +1,42 @@
+package compiler.binding.type
+
+import compiler.binding.context.SoftwareContext
+import compiler.lexer.Span
+
+/**
+ * Remembers the results of [isAssignableTo] for a [SoftwareContext], so that the same pair of types only has to go
+ * through [BoundTypeReference.evaluateAssignabilityTo] once. That way, the rules stay in one place; but every miss
+ * still describes a mismatch with a diagnostic, just to throw it away.
+ *
+ * The results are only valid as long as the types involved don't change, so the [SoftwareContext] must [clear] this
+ * cache when it binds sources anew. Because a [SoftwareContext] can live across many compilations (e.g. in a
+ * persistent worker), at most [maxEntries] results are kept; the least recently used ones are dropped first.
+ */
+class AssignabilityCache(private val maxEntries: Int = 1 shl 16) {
+    init {
+        require(maxEntries > 0)
+    }
+
+    private val results = object : LinkedHashMap<Query, Boolean>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Query, Boolean>): Boolean {
+            return size > maxEntries
+        }
+    }
+
+    val size: Int get() = results.size
+
+    fun isAssignable(assigneeType: BoundTypeReference, targetType: BoundTypeReference): Boolean {
+        return results.getOrPut(Query(assigneeType, targetType)) {
+            assigneeType.evaluateAssignabilityTo(targetType, Span.UNKNOWN) == null
+        }
+    }
+
+    fun clear() {
+        results.clear()
+    }
+
+    private data class Query(
+        val assigneeType: BoundTypeReference,
+        val targetType: BoundTypeReference,
+    )
+}
@@ -245,18 +245,83 @@ sealed interface BoundTypeReference {
     }
 }
 
+/**
+ * @return the pairs of parameters whose types are not [BoundTypeReference.isDisjointWith] each other. Parameters
+ * whose type is not resolved are ignored.
+ */
 fun List<BoundParameter>.nonDisjointPairs(): Sequence<Pair<BoundParameter, BoundParameter>> {
-    /*
-    this has approximately O(2n²) performance; not good. Maye it can be improved by implementing
-    closestCommonSupertypeOf(List<BoundTypeReference>) and using it here. Thats pretty complex to do
-    soll i'll do it if i can confirm that the overloading semantics based on this are actually good/what i want.
-    */
-    return this
-        .filter { it.typeAtDeclarationTime != null }
-        .twoElementPermutationsUnordered()
-        .filterNot { (a, b) -> a.typeAtDeclarationTime!!.isDisjointWith(b.typeAtDeclarationTime!!) }
+    val typedParameters = filter { it.typeAtDeclarationTime != null }
+    val types = typedParameters.map { it.typeAtDeclarationTime!! }
+    return possiblyNonDisjointIndexPairs(types)
+        .filterNot { (aIndex, bIndex) -> types[aIndex].isDisjointWith(types[bIndex]) }
+        .map { (aIndex, bIndex) -> Pair(typedParameters[aIndex], typedParameters[bIndex]) }
 }
 
+/**
+ * Types whose base types are not subtypes of one another can't be assigned to each other, so they are disjoint
+ * without having to check. This groups the [types] by base type and only pairs up the types within a group and
+ * those of groups related by inheritance; with all unrelated base types, that takes linear time instead of
+ * checking every pair.
+ *
+ * @return pairs of indices into [types], the lower index first, of the types that might not be disjoint
+ */
+private fun possiblyNonDisjointIndexPairs(types: List<BoundTypeReference>): Sequence<Pair<Int, Int>> = sequence {
+    val indicesByBaseType = LinkedHashMap<BoundBaseType, MutableList<Int>>()
+    val isUngrouped = BooleanArray(types.size)
+    types.forEachIndexed { index, type ->
+        val baseType = type.baseTypeForDisjointness
+        if (baseType == null) {
+            isUngrouped[index] = true
+        } else {
+            indicesByBaseType.getOrPut(baseType, ::ArrayList).add(index)
+        }
+    }
+
+    for (ungroupedIndex in types.indices.filter { isUngrouped[it] }) {
+        for (otherIndex in types.indices) {
+            if (otherIndex == ungroupedIndex || (isUngrouped[otherIndex] && otherIndex < ungroupedIndex)) {
+                continue
+            }
+            yield(Pair(minOf(ungroupedIndex, otherIndex), maxOf(ungroupedIndex, otherIndex)))
+        }
+    }
+
+    for ((baseType, indices) in indicesByBaseType) {
+        yieldAll(indices.twoElementPermutationsUnordered())
+        for (supertype in baseType.superTypes.preprocessedInheritanceTree.parameterizedSupertypes.keys) {
+            if (supertype === baseType) {
+                continue
+            }
+            val supertypeIndices = indicesByBaseType[supertype] ?: continue
+            for (index in indices) {
+                for (supertypeIndex in supertypeIndices) {
+                    yield(Pair(minOf(index, supertypeIndex), maxOf(index, supertypeIndex)))
+                }
+            }
+        }
+    }
+}
+
+/**
+ * The base type by which [possiblyNonDisjointIndexPairs] groups this type, or `null` if this type can't be grouped
+ * and has to be paired up with all the others. `Any` and `Nothing` are related to every base type, so they are
+ * not grouped either.
+ */
+private val BoundTypeReference.baseTypeForDisjointness: BoundBaseType? get() {
+    val rootResolved = when (this) {
+        is RootResolvedTypeReference -> this
+        is NullableTypeReference -> nested as? RootResolvedTypeReference
+        else -> null
+    } ?: return null
+
+    val swCtx = rootResolved.baseType.context.swCtx
+    return rootResolved.baseType.takeUnless { it === swCtx.any || it === swCtx.nothing }
+}
+
+/**
+ * Like [BoundTypeReference.evaluateAssignabilityTo], but only determines whether the assignment is possible. The
+ * result is remembered per pair of types; see [AssignabilityCache].
+ */
 infix fun BoundTypeReference.isAssignableTo(other: BoundTypeReference): Boolean {
-    return evaluateAssignabilityTo(other, Span.UNKNOWN) == null
+    return context.swCtx.assignabilityCache.isAssignable(this, other)
 }
\ No newline at end of file
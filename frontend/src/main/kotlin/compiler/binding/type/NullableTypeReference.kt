@@ -133,6 +133,11 @@ class NullableTypeReference private constructor(
             return newNested
         }
 
+        if (newNested is RootResolvedTypeReference) {
+            // re-uses the instance, if there is one already
+            return newNested.withCombinedNullability(TypeReference.Nullability.NULLABLE)
+        }
+
         return NullableTypeReference(newNested.withCombinedNullability(TypeReference.Nullability.NOT_NULLABLE))
     }
 
@@ -32,6 +32,7 @@ class RootResolvedTypeReference private constructor(
     private val explicitMutability: TypeMutability?,
     val baseType: BoundBaseType,
     val arguments: List<BoundTypeArgument>?,
+    derivedFrom: RootResolvedTypeReference? = null,
 ) : BoundTypeReference {
     override val isNullable = false
     override val mutability = if (baseType.isCoreScalar) TypeMutability.IMMUTABLE else (explicitMutability ?: original?.mutability ?: TypeMutability.READONLY)
@@ -41,7 +42,20 @@ class RootResolvedTypeReference private constructor(
     override val isNonNullableNothing get()= baseType == context.swCtx.nothing
     override val isPartiallyUnresolved get()= arguments?.any { it.isPartiallyUnresolved } == true
 
-    override val inherentTypeBindings by lazy {
+    /** the reference all [derive]d references share their instances through */
+    private val derivationRoot: RootResolvedTypeReference = derivedFrom ?: this
+
+    /** by [TypeMutability.ordinal], `null` last; only used on the [derivationRoot] */
+    private var derivations: Array<RootResolvedTypeReference?>? = null
+
+    private var nullable: BoundTypeReference? = null
+
+    override val inherentTypeBindings: TypeUnification by lazy {
+        if (derivationRoot !== this) {
+            // doesn't depend on the mutability
+            return@lazy derivationRoot.inherentTypeBindings
+        }
+
         val params = baseType.typeParameters ?: emptyList()
         TypeUnification.fromExplicit(params, params, arguments, span ?: Span.UNKNOWN)
     }
@@ -75,14 +89,7 @@ class RootResolvedTypeReference private constructor(
             return this
         }
 
-        return RootResolvedTypeReference(
-            context,
-            original,
-            true,
-            newMutability,
-            baseType,
-            arguments,
-        )
+        return derive(newMutability)
     }
 
     override fun withMutabilityUnionedWith(mutability: TypeMutability?): RootResolvedTypeReference {
@@ -91,14 +98,7 @@ class RootResolvedTypeReference private constructor(
             return this
         }
 
-        return RootResolvedTypeReference(
-            context,
-            original,
-            true,
-            combinedMutability,
-            baseType,
-            arguments,
-        )
+        return derive(combinedMutability)
     }
 
     override fun withMutabilityLimitedTo(limitToMutability: TypeMutability?): BoundTypeReference {
@@ -107,19 +107,12 @@ class RootResolvedTypeReference private constructor(
             return this
         }
 
-        return RootResolvedTypeReference(
-            context,
-            original,
-            true,
-            limitedMutability,
-            baseType,
-            arguments,
-        )
+        return derive(limitedMutability)
     }
 
     override fun withCombinedNullability(nullability: TypeReference.Nullability): BoundTypeReference {
         if (nullability == TypeReference.Nullability.NULLABLE) {
-            return NullableTypeReference(this)
+            return nullable ?: NullableTypeReference(this).also { nullable = it }
         }
         return this
     }
@@ -129,14 +122,25 @@ class RootResolvedTypeReference private constructor(
             return this
         }
 
-        return RootResolvedTypeReference(
-            context,
-            original,
-            true,
-            mutability,
-            baseType,
-            arguments,
-        )
+        return derive(mutability)
+    }
+
+    /**
+     * References that differ from another one only in their mutability are very common, e.g. from [withMutability]
+     * or from instantiating a type without arguments. So all of them are created only once, and shared by
+     * all the references derived from the same [derivationRoot].
+     *
+     * @return this reference, [modifiedSinceOriginal], with the given [explicitMutability]
+     */
+    private fun derive(explicitMutability: TypeMutability?): RootResolvedTypeReference {
+        val root = derivationRoot
+        val derivations = root.derivations
+            ?: arrayOfNulls<RootResolvedTypeReference>(TypeMutability.entries.size + 1).also { root.derivations = it }
+        val index = explicitMutability?.ordinal ?: TypeMutability.entries.size
+
+        return derivations[index]
+            ?: RootResolvedTypeReference(context, original, true, explicitMutability, baseType, arguments, root)
+                .also { derivations[index] = it }
     }
 
     override fun validate(forUsage: TypeUseSite, diagnosis: Diagnosis) {
@@ -239,13 +243,17 @@ class RootResolvedTypeReference private constructor(
     }
 
     override fun withTypeVariables(variables: Collection<BoundTypeParameter>): RootResolvedTypeReference {
+        if (arguments == null) {
+            return derive(explicitMutability)
+        }
+
         return RootResolvedTypeReference(
             context,
             original,
             true,
             explicitMutability,
             baseType,
-            arguments?.map { it.withTypeVariables(variables) },
+            arguments.map { it.withTypeVariables(variables) },
         )
     }
 
@@ -307,24 +315,32 @@ class RootResolvedTypeReference private constructor(
     }
 
     override fun instantiateFreeVariables(context: TypeUnification): RootResolvedTypeReference {
+        if (arguments == null) {
+            return derive(explicitMutability)
+        }
+
         return RootResolvedTypeReference(
             this.context,
             original,
             true,
             explicitMutability,
             baseType,
-            arguments?.map { it.instantiateFreeVariables(context) },
+            arguments.map { it.instantiateFreeVariables(context) },
         )
     }
 
     override fun instantiateAllParameters(context: TypeUnification): RootResolvedTypeReference {
+        if (arguments == null) {
+            return derive(explicitMutability)
+        }
+
         return RootResolvedTypeReference(
             this.context,
             original,
             true,
             explicitMutability,
             baseType,
-            arguments?.map { it.instantiateAllParameters(context) },
+            arguments.map { it.instantiateAllParameters(context) },
         )
     }
 
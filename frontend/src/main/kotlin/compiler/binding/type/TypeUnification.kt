@@ -11,24 +11,45 @@ import compiler.diagnostic.UnsatisfiableTypeVariableConstraintsDiagnostic
 import compiler.diagnostic.ValueNotAssignableDiagnostic
 import compiler.lexer.Span
 
-/* TODO: optimization potential
- * Have a custom collection class that optimizes the get-a-copy-plus-one-element use-case
- * Set-properties are probably not needed because we can track changes there explicitly
- * and answer the question "Did this unification produce any errors?" without the set-contains
- * operation done now
+/**
+ * The state of inferring the type parameters of a generic type or function. Instances are immutable; each new
+ * constraint or diagnostic results in a new instance that shares almost all of its data with the previous one.
  */
 class TypeUnification private constructor(
-    private val variableStates: Map<BoundTypeParameter, TypeUnification.VariableState>,
-    val diagnostics: Set<Diagnostic>,
+    private val variableStates: VariableStates,
+    /** newest first */
+    private val diagnosticsChain: DiagnosticsChain?,
 ) {
+    private var diagnosticsSet: Set<Diagnostic>? = null
+
+    /** in the order they were added */
+    val diagnostics: Set<Diagnostic>
+        get() = diagnosticsSet ?: DiagnosticsChain.toSet(diagnosticsChain).also { diagnosticsSet = it }
+
+    val hasErrors: Boolean get() = diagnosticsChain != null && diagnosticsChain.nErrors > 0
+
     fun getErrorsNotIn(previous: TypeUnification): Sequence<Diagnostic> {
-        return diagnostics.asSequence()
+        if (!hasErrors) {
+            return emptySequence()
+        }
+
+        val newNodes = DiagnosticsChain.nodesAddedSince(diagnosticsChain, previous.diagnosticsChain)
+            ?: return diagnostics.asSequence()
+                .filter { it.severity >= Diagnostic.Severity.ERROR }
+                .filter { it !in previous.diagnostics }
+
+        val newErrors = newNodes
+            .asReversed()
+            .asSequence()
+            .map { it.diagnostic }
             .filter { it.severity >= Diagnostic.Severity.ERROR }
-            .filter { it !in previous.diagnostics }
+            .distinct()
+
+        return if (previous.hasErrors) newErrors.filter { it !in previous.diagnostics } else newErrors
     }
 
     fun plusDiagnostic(diagnostic: Diagnostic): TypeUnification {
-        return TypeUnification(variableStates, this.diagnostics + diagnostic)
+        return TypeUnification(variableStates, DiagnosticsChain(diagnostic, diagnosticsChain))
     }
 
     /**
@@ -61,8 +82,8 @@ class TypeUnification private constructor(
         }
 
         return TypeUnification(
-            unificationWithLowerBound.variableStates + mapOf(parameter to stateBefore.copy(upperBound = newUpperBound)),
-            diagnostics,
+            unificationWithLowerBound.variableStates.with(parameter, stateBefore.copy(upperBound = newUpperBound)),
+            diagnosticsChain,
         )
     }
 
@@ -91,8 +112,8 @@ class TypeUnification private constructor(
         }
 
         return TypeUnification(
-            unificationWithUpperBound.variableStates + mapOf(parameter to stateBefore.copy(lowerBound = newLowerBound)),
-            diagnostics,
+            unificationWithUpperBound.variableStates.with(parameter, stateBefore.copy(lowerBound = newLowerBound)),
+            diagnosticsChain,
         )
     }
 
@@ -118,15 +139,16 @@ class TypeUnification private constructor(
         }
 
         return TypeUnification(
-            unificationWithLowerBound.variableStates + mapOf(parameter to stateBefore.copy(upperBound = binding, lowerBound = binding, isExact = true)),
-            diagnostics,
+            unificationWithLowerBound.variableStates.with(parameter, stateBefore.copy(upperBound = binding, lowerBound = binding, isExact = true)),
+            diagnosticsChain,
         )
     }
 
     fun mergedWith(other: TypeUnification, dupeHandler: (BoundTypeParameter, VariableState, VariableState, Diagnosis) -> VariableState): TypeUnification {
         val diagnosis = CollectingDiagnosis()
-        val resultStates = this.variableStates.toMutableMap()
-        for ((param, otherState) in other.variableStates) {
+        val resultStates = LinkedHashMap<BoundTypeParameter, VariableState>()
+        this.variableStates.forEach(resultStates::put)
+        other.variableStates.forEach { param, otherState ->
             resultStates.merge(param, otherState) { selfState, _ ->
                 if (selfState == otherState) {
                     selfState
@@ -135,9 +157,18 @@ class TypeUnification private constructor(
                 }
             }
         }
+
+        var resultDiagnostics = this.diagnosticsChain
+        val presentDiagnostics = HashSet(this.diagnostics)
+        for (diagnostic in other.diagnostics + diagnosis.findings) {
+            if (presentDiagnostics.add(diagnostic)) {
+                resultDiagnostics = DiagnosticsChain(diagnostic, resultDiagnostics)
+            }
+        }
+
         return TypeUnification(
-            resultStates,
-            this.diagnostics + other.diagnostics + diagnosis.findings,
+            VariableStates.of(resultStates),
+            resultDiagnostics,
         )
     }
 
@@ -152,14 +183,15 @@ class TypeUnification private constructor(
 
     val bindings: Iterable<Pair<BoundTypeParameter, BoundTypeReference>> = object : Iterable<Pair<BoundTypeParameter, BoundTypeReference>> {
         override fun iterator(): Iterator<Pair<BoundTypeParameter, BoundTypeReference>> {
-            return variableStates.keys
+            return variableStates.parameters
                 .map { param -> param to getFinalValueFor(param) }
                 .iterator()
         }
     }
 
     override fun toString(): String {
-        val bindingsStr = variableStates.entries.asSequence()
+        val bindingsStr = variableStates.parameters.asSequence()
+            .zip(variableStates.states.asSequence())
             .flatMap { (param, state) ->
                 if (state.isExact || state.lowerBound == state.upperBound) return@flatMap sequenceOf("${param.name} = ${state.lowerBound}")
                 sequenceOf("${param.name} : ${state.upperBound}") + (
@@ -179,15 +211,19 @@ class TypeUnification private constructor(
     }
 
     companion object {
-        val EMPTY = TypeUnification(emptyMap(), emptySet())
+        val EMPTY = TypeUnification(VariableStates.EMPTY, null)
 
         fun forInferenceOf(parameters: Collection<BoundTypeParameter>): TypeUnification {
+            if (parameters.isEmpty()) {
+                return EMPTY
+            }
+
             return TypeUnification(
-                parameters.associateWith {
+                VariableStates.of(parameters.associateWith {
                     val upperBound = it.bound.withTypeVariables(parameters)
                     VariableState(upperBound, upperBound, it.context.swCtx.getBottomType(it.astNode.span), false)
-                },
-                emptySet(),
+                }),
+                null,
             )
         }
         
@@ -265,4 +301,102 @@ class TypeUnification private constructor(
     )
 }
 
-class TypeVariableNotUnderInferenceException(val parameter: BoundTypeParameter) : RuntimeException("Cannot work with type variable ${parameter.name} because of missing inference context")
\ No newline at end of file
+class TypeVariableNotUnderInferenceException(val parameter: BoundTypeParameter) : RuntimeException("Cannot work with type variable ${parameter.name} because of missing inference context")
+
+/**
+ * The [TypeUnification.VariableState]s of a [TypeUnification]. There are hardly ever more than a handful of type
+ * parameters being inferred at once, so a linear search is fast. Apart from [TypeUnification.mergedWith],
+ * the [parameters] never change, so they are shared between all the unifications derived from one another.
+ */
+private class VariableStates private constructor(
+    val parameters: List<BoundTypeParameter>,
+    val states: Array<TypeUnification.VariableState>,
+) {
+    private fun indexOf(parameter: BoundTypeParameter): Int {
+        for (index in parameters.indices) {
+            if (parameters[index] === parameter) {
+                return index
+            }
+        }
+
+        return parameters.indexOf(parameter)
+    }
+
+    operator fun get(parameter: BoundTypeParameter): TypeUnification.VariableState? {
+        val index = indexOf(parameter)
+        return if (index < 0) null else states[index]
+    }
+
+    /**
+     * @param parameter must be one of [parameters]
+     */
+    fun with(parameter: BoundTypeParameter, state: TypeUnification.VariableState): VariableStates {
+        val index = indexOf(parameter)
+        check(index >= 0)
+        if (states[index] == state) {
+            return this
+        }
+
+        val newStates = states.copyOf()
+        newStates[index] = state
+        return VariableStates(parameters, newStates)
+    }
+
+    inline fun forEach(action: (BoundTypeParameter, TypeUnification.VariableState) -> Unit) {
+        for (index in parameters.indices) {
+            action(parameters[index], states[index])
+        }
+    }
+
+    companion object {
+        val EMPTY = VariableStates(emptyList(), emptyArray())
+
+        fun of(states: Map<BoundTypeParameter, TypeUnification.VariableState>): VariableStates {
+            if (states.isEmpty()) {
+                return EMPTY
+            }
+
+            return VariableStates(states.keys.toList(), states.values.toTypedArray())
+        }
+    }
+}
+
+/**
+ * The diagnostics of a [TypeUnification] as a linked list, so that adding one doesn't copy the others.
+ */
+private class DiagnosticsChain(
+    val diagnostic: Diagnostic,
+    val previous: DiagnosticsChain?,
+) {
+    /** the number of diagnostics of [Diagnostic.Severity.ERROR] in this chain */
+    val nErrors: Int = (previous?.nErrors ?: 0) + (if (diagnostic.severity >= Diagnostic.Severity.ERROR) 1 else 0)
+
+    companion object {
+        fun toSet(chain: DiagnosticsChain?): Set<Diagnostic> {
+            if (chain == null) {
+                return emptySet()
+            }
+
+            val newestFirst = generateSequence(chain) { it.previous }.map { it.diagnostic }.toList()
+            return newestFirst.asReversed().toCollection(LinkedHashSet())
+        }
+
+        /**
+         * @return the nodes of [chain] that come after [ancestor], newest first; `null` if [chain] doesn't
+         * continue [ancestor]
+         */
+        fun nodesAddedSince(chain: DiagnosticsChain?, ancestor: DiagnosticsChain?): List<DiagnosticsChain>? {
+            val nodes = ArrayList<DiagnosticsChain>()
+            var node = chain
+            while (node !== ancestor) {
+                if (node == null) {
+                    return null
+                }
+                nodes.add(node)
+                node = node.previous
+            }
+
+            return nodes
+        }
+    }
+}
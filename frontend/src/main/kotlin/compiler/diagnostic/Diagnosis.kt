@@ -80,6 +80,24 @@ class CollectingDiagnosis : Diagnosis {
     }
 }
 
+/**
+ * Passes all findings on to [target], which can be exchanged. Elements that completed a phase of semantic analysis
+ * remember the [Diagnosis] they reported to (see [compiler.binding.SeanHelper]); reporting through the same instance
+ * of this class allows these elements to be re-used in a later analysis that reports somewhere else.
+ */
+class RedirectingDiagnosis(var target: Diagnosis) : Diagnosis {
+    override val nErrors: ULong
+        get() = target.nErrors
+
+    override fun add(finding: Diagnostic) {
+        target.add(finding)
+    }
+
+    override fun hasSameDrainAs(other: Diagnosis): Boolean {
+        return other === this || other === target || other.hasSameDrainAs(this)
+    }
+}
+
 private class TransformingDiagnosis(
     private val delegate: Diagnosis,
     private val transformer: (Sequence<Diagnostic>) -> Sequence<Diagnostic>,
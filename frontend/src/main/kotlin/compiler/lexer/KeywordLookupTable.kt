@@ -0,0 +1,79 @@
+package compiler.lexer
+
+/**
+ * Finds the [Keyword] for a piece of source text, ignoring case, with a single hash computation and at most one
+ * string comparison. The hash function is chosen when the table is built, such that no two keywords
+ * end up in the same slot (a perfect hash).
+ */
+internal class KeywordLookupTable(keywords: Iterable<Keyword>) {
+    private val slots: Array<Keyword?>
+    private val hashMultiplier: Int
+    private val minLength: Int
+    private val maxLength: Int
+
+    init {
+        // some keywords share their text, e.g. PACKAGE and INTERNAL; like a linear search, prefer the first one
+        val distinctKeywords = keywords.distinctBy { it.text.lowercase() }
+        minLength = distinctKeywords.minOf { it.text.length }
+        maxLength = distinctKeywords.maxOf { it.text.length }
+
+        var nSlots = Integer.highestOneBit(distinctKeywords.size) shl 2
+        var result: Pair<Int, Array<Keyword?>>? = null
+        while (result == null) {
+            result = (31 until 31 + MULTIPLIER_CANDIDATES step 2).firstNotNullOfOrNull { multiplier ->
+                tryBuildSlots(distinctKeywords, multiplier, nSlots)?.let { multiplier to it }
+            }
+            nSlots *= 2
+        }
+        hashMultiplier = result.first
+        slots = result.second
+    }
+
+    operator fun get(text: String): Keyword? {
+        if (text.length < minLength || text.length > maxLength) {
+            return null
+        }
+
+        val candidate = slots[slotOf(text, hashMultiplier, slots.size)] ?: return null
+        return candidate.takeIf { it.text.equals(text, ignoreCase = true) }
+    }
+
+    private companion object {
+        const val MULTIPLIER_CANDIDATES = 2000
+
+        fun tryBuildSlots(keywords: List<Keyword>, multiplier: Int, nSlots: Int): Array<Keyword?>? {
+            val slots = arrayOfNulls<Keyword>(nSlots)
+            for (keyword in keywords) {
+                val slot = slotOf(keyword.text, multiplier, nSlots)
+                if (slots[slot] != null) {
+                    return null
+                }
+                slots[slot] = keyword
+            }
+
+            return slots
+        }
+
+        /** @param nSlots must be a power of two */
+        fun slotOf(text: String, multiplier: Int, nSlots: Int): Int {
+            var hash = text.length
+            for (char in text) {
+                hash = hash * multiplier + foldCase(char).code
+            }
+
+            return (hash xor (hash ushr 16)) and (nSlots - 1)
+        }
+
+        /**
+         * Maps all chars that [String.equals] with `ignoreCase = true` considers equal onto the same char,
+         * so that the hash agrees with that comparison.
+         */
+        fun foldCase(char: Char): Char {
+            if (char < '\u0080') {
+                return if (char in 'A'..'Z') char + ('a' - 'A') else char
+            }
+
+            return char.uppercaseChar().lowercaseChar()
+        }
+    }
+}
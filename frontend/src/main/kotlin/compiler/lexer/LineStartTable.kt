@@ -0,0 +1,86 @@
+package compiler.lexer
+
+/**
+ * Knows where the lines of a source text start, so the lexer can track its position as a plain char offset and
+ * only compute line and column numbers when it creates a [Span]. Like everywhere else in the compiler, line
+ * and column numbers start at 1 and columns count code points, not chars.
+ */
+class LineStartTable private constructor(
+    private val code: String,
+    /** the offset of the first char of each line, ascending */
+    private val lineStarts: IntArray,
+    private val nLines: Int,
+    /** if false, every char is a code point of its own, which makes computing column numbers trivial */
+    private val hasSurrogates: Boolean,
+) {
+    /**
+     * @return the line the char at [offset] is on; a linefeed is on the line it terminates. An offset of `-1`
+     * is on line 1, column 0, right before the first char.
+     */
+    fun lineNumberAt(offset: Int): UInt = (lineIndexOf(offset) + 1).toUInt()
+
+    /** @see lineNumberAt */
+    fun columnNumberAt(offset: Int): UInt = columnNumberAt(lineIndexOf(offset), offset)
+
+    /**
+     * @return the span from the char at [fromOffset] up to and including the char at [toOffset]
+     */
+    fun span(sourceFile: LexerSourceFile, fromOffset: Int, toOffset: Int): Span {
+        val fromLineIndex = lineIndexOf(fromOffset)
+        val toLineIndex = lineIndexOf(toOffset)
+        return Span(
+            sourceFile,
+            (fromLineIndex + 1).toUInt(),
+            columnNumberAt(fromLineIndex, fromOffset),
+            (toLineIndex + 1).toUInt(),
+            columnNumberAt(toLineIndex, toOffset),
+        )
+    }
+
+    private fun lineIndexOf(offset: Int): Int {
+        var low = 0
+        var high = nLines - 1
+        while (low < high) {
+            val mid = (low + high + 1) ushr 1
+            if (lineStarts[mid] <= offset) {
+                low = mid
+            } else {
+                high = mid - 1
+            }
+        }
+
+        return low
+    }
+
+    private fun columnNumberAt(lineIndex: Int, offset: Int): UInt {
+        val lineStart = lineStarts[lineIndex]
+        if (!hasSurrogates || offset <= lineStart || offset >= code.length) {
+            return (offset - lineStart + 1).toUInt()
+        }
+
+        // the second half of a surrogate pair is in the same column as the first half
+        val codePointStart = if (Character.isLowSurrogate(code[offset]) && Character.isHighSurrogate(code[offset - 1])) offset - 1 else offset
+        return (Character.codePointCount(code, lineStart, codePointStart) + 1).toUInt()
+    }
+
+    companion object {
+        fun of(code: String): LineStartTable {
+            var lineStarts = IntArray(code.length / 32 + 1)
+            var nLines = 1
+            var hasSurrogates = false
+            for (index in code.indices) {
+                val char = code[index]
+                if (char == '\n') {
+                    if (nLines == lineStarts.size) {
+                        lineStarts = lineStarts.copyOf(nLines * 2)
+                    }
+                    lineStarts[nLines++] = index + 1
+                } else if (Character.isSurrogate(char)) {
+                    hasSurrogates = true
+                }
+            }
+
+            return LineStartTable(code, lineStarts, nLines, hasSurrogates)
+        }
+    }
+}
@@ -23,75 +23,12 @@ package compiler.lexer
  * the result and that the very last token is an [EndOfInputToken].
  */
 fun lex(sourceFile: LexerSourceFile, addTrailingNewline: Boolean = true): Array<Token> {
-    val iterator = PositionTrackingCodePointTransactionalSequence(sourceFile.content.codePoints().toArray())
-    val tokens = ArrayList<Token>()
-
-    tokenLoop@ while (iterator.hasNext) {
-        iterator.skipWhitespace()
-        if (!iterator.hasNext) {
-            break@tokenLoop
-        }
-
-        val numericLiteralToken = iterator.tryMatchNumericLiteral(sourceFile)
-        if (numericLiteralToken != null) {
-            tokens.add(numericLiteralToken)
-            continue@tokenLoop
-        }
-
-        val operatorToken = iterator.tryMatchOperator(sourceFile)
-        if (operatorToken != null) {
-            if (operatorToken.operator == Operator.COMMENT) {
-                iterator.skipRestOfLine()
-                continue@tokenLoop
-            }
-
-            tokens.add(operatorToken)
-
-            when (operatorToken.operator) {
-                Operator.STRING_DELIMITER -> {
-                    val (content, contentLocation) = iterator.collectStringContent(sourceFile)
-                    tokens.add(StringLiteralContentToken(contentLocation, content))
-                    if (!iterator.hasNext) {
-                        break@tokenLoop
-                    }
-                    val endDelimiter = iterator.tryMatchOperator(sourceFile)
-                    check(endDelimiter != null && endDelimiter.operator == Operator.STRING_DELIMITER)
-                    tokens.add(endDelimiter)
-                }
-                Operator.IDENTIFIER_DELIMITER -> {
-                    val (content, contentLocation) = iterator.collectDelimitedIdentifierContent(sourceFile)
-                    tokens.add(DelimitedIdentifierContentToken(contentLocation, content))
-                    if (!iterator.hasNext) {
-                        break@tokenLoop
-                    }
-                    val endDelimiter = iterator.tryMatchOperator(sourceFile)
-                    check(endDelimiter != null && endDelimiter.operator == Operator.IDENTIFIER_DELIMITER)
-                    tokens.add(endDelimiter)
-                }
-                else -> {}
-            }
-
-            continue@tokenLoop
-        }
-
-        // IDENTIFIER or KEYWORD
-        val text = iterator.collectUntilOperatorOrWhitespace(sourceFile)
-
-        // check against keywords
-        val keyword = Keyword.entries.firstOrNull { it.text.equals(text.first, true) }
-
-        if (keyword != null) {
-            tokens.add(KeywordToken(keyword, text.first, text.second))
-            continue@tokenLoop
-        }
-
-        tokens.add(IdentifierToken(text.first, text.second))
-    }
+    val tokens = Lexer(sourceFile).lexAll()
 
     if (addTrailingNewline) {
         // this is not needed for lexing or parsing in general; but the grammar for the emerge language wants
         // a newline at the end of the file, always
-        var lastToken = tokens.lastOrNull()
+        val lastToken = tokens.lastOrNull()
         if (lastToken !is OperatorToken || lastToken.operator != Operator.NEWLINE) {
             tokens.add(
                 OperatorToken(
@@ -104,8 +41,6 @@ fun lex(sourceFile: LexerSourceFile, addTrailingNewline: Boolean = true): Array<
                 )
             )
         }
-
-        lastToken = tokens.last()
     }
 
     // this is also not strictly needed for lexing, but enables parsing
@@ -114,199 +49,224 @@ fun lex(sourceFile: LexerSourceFile, addTrailingNewline: Boolean = true): Array<
     return tokens.toTypedArray()
 }
 
-private fun PositionTrackingCodePointTransactionalSequence.skipWhitespace() {
-    while (peek()?.isWhitespace == true)
-    {
-        nextOrThrow()
-    }
-}
+/**
+ * Works on the chars of the source directly; its only state is the [offset] of the next char. Line and column
+ * numbers are computed through [LineStartTable] once per token.
+ */
+private class Lexer(private val sourceFile: LexerSourceFile) {
+    private val code = sourceFile.content
+    private val lines = LineStartTable.of(code)
+    private val tokens = ArrayList<Token>()
 
-private fun PositionTrackingCodePointTransactionalSequence.skipRestOfLine() {
-    while (hasNext) {
-        val next = peek()!!
-        if (next.isLinefeed) {
-            break
-        }
-        nextOrThrow()
-    }
-}
+    /** the offset of the next char to lex */
+    private var offset = 0
 
-private fun PositionTrackingCodePointTransactionalSequence.nextCodePointsAsString(sourceFile: LexerSourceFile, n: Int): Pair<String, Span>? {
-    check(n > 0)
-    if (nCodePointsRemaining < n) {
-        return null
-    }
+    private val hasNext: Boolean get() = offset < code.length
 
-    val buf = StringBuffer(n)
-    buf.appendCodePoint(nextOrThrow().value)
-    val start = currentPosition
-    repeat(n - 1) {
-        buf.appendCodePoint(nextOrThrow().value)
-    }
+    fun lexAll(): ArrayList<Token> {
+        tokenLoop@ while (hasNext) {
+            skipWhitespace()
+            if (!hasNext) {
+                break@tokenLoop
+            }
 
-    return Pair(buf.toString(), Span(sourceFile, start, currentPosition))
-}
+            val numericLiteralToken = tryMatchNumericLiteral()
+            if (numericLiteralToken != null) {
+                tokens.add(numericLiteralToken)
+                continue@tokenLoop
+            }
 
-private fun PositionTrackingCodePointTransactionalSequence.tryMatchOperator(sourceFile: LexerSourceFile, doCommit: Boolean = true): OperatorToken? {
-    for (operator in Operator.valuesSortedForLexing) {
-        mark()
+            val operator = operatorAt(offset)
+            if (operator != null) {
+                if (operator == Operator.COMMENT) {
+                    skipRestOfLine()
+                    continue@tokenLoop
+                }
 
-        val nextText = nextCodePointsAsString(sourceFile, operator.text.length)
-        if (nextText != null && nextText.first == operator.text) {
-            if (doCommit) commit() else rollback()
-            return OperatorToken(operator, nextText.second)
-        }
+                tokens.add(consumeOperator(operator))
 
-        rollback()
-    }
+                when (operator) {
+                    Operator.STRING_DELIMITER -> {
+                        tokens.add(collectStringContent())
+                        if (!hasNext) {
+                            break@tokenLoop
+                        }
+                        check(operatorAt(offset) == Operator.STRING_DELIMITER)
+                        tokens.add(consumeOperator(Operator.STRING_DELIMITER))
+                    }
+                    Operator.IDENTIFIER_DELIMITER -> {
+                        tokens.add(collectDelimitedIdentifierContent())
+                        if (!hasNext) {
+                            break@tokenLoop
+                        }
+                        check(operatorAt(offset) == Operator.IDENTIFIER_DELIMITER)
+                        tokens.add(consumeOperator(Operator.IDENTIFIER_DELIMITER))
+                    }
+                    else -> {}
+                }
 
-    return null
-}
+                continue@tokenLoop
+            }
 
-private fun PositionTrackingCodePointTransactionalSequence.collectUntilOperatorOrWhitespace(sourceFile: LexerSourceFile): Pair<String, Span> {
-    val buf = StringBuilder()
-    var start: SourceSpot? = null
+            // IDENTIFIER or KEYWORD
+            val start = offset
+            skipUntilOperatorOrWhitespace()
+            val text = code.substring(start, offset)
+            val span = spanFrom(start)
 
-    while (hasNext) {
-        val operator = tryMatchOperator(sourceFile, false)
-        if (operator != null) break
+            val keyword = Keyword.ofSourceText(text)
+            if (keyword != null) {
+                tokens.add(KeywordToken(keyword, text, span))
+                continue@tokenLoop
+            }
 
-        if (peek()!!.isWhitespace) {
-            break
+            tokens.add(IdentifierToken(text, span))
         }
 
-        buf.appendCodePoint(nextOrThrow().value)
-        start = start ?: currentPosition
+        return tokens
     }
 
-    return Pair(buf.toString(), Span(sourceFile, start ?: currentPosition, currentPosition))
-}
+    /**
+     * @return the span of everything consumed since [start]. If that is nothing, the span of the last char
+     * consumed before [start].
+     */
+    private fun spanFrom(start: Int): Span {
+        if (offset == start) {
+            return lines.span(sourceFile, start - 1, start - 1)
+        }
 
-private fun PositionTrackingCodePointTransactionalSequence.tryMatchNumericLiteral(sourceFile: LexerSourceFile): NumericLiteralToken? {
-    val startLocation = currentPosition
-    val firstCodePoint = peek() ?: return null
+        return lines.span(sourceFile, start, offset - 1)
+    }
 
-    mark()
+    private fun skipWhitespace() {
+        while (hasNext && isWhitespace(code[offset])) {
+            offset++
+        }
+    }
 
-    var isNegative = false
-    if (firstCodePoint == MINUS_CODEPOINT) {
-        isNegative = true
-        nextOrThrow()
+    private fun skipRestOfLine() {
+        val linefeedOffset = code.indexOf('\n', offset)
+        offset = if (linefeedOffset < 0) code.length else linefeedOffset
     }
 
-    if (!hasNext) {
-        rollback()
-        return null
+    private fun skipUntilOperatorOrWhitespace() {
+        while (hasNext && !isWhitespace(code[offset]) && operatorAt(offset) == null) {
+            offset++
+        }
     }
 
-    if (!peek()!!.isDigit) {
-        rollback()
+    /**
+     * @return the operator that starts at [position], without consuming it
+     */
+    private fun operatorAt(position: Int): Operator? {
+        val firstChar = code[position]
+        if (firstChar.code >= OPERATORS_BY_FIRST_CHAR.size) {
+            return null
+        }
+
+        val candidates = OPERATORS_BY_FIRST_CHAR[firstChar.code] ?: return null
+        for (operator in candidates) {
+            if (code.startsWith(operator.text, position)) {
+                return operator
+            }
+        }
+
         return null
     }
 
-    commit()
+    private fun consumeOperator(operator: Operator): OperatorToken {
+        val start = offset
+        offset += operator.text.length
+        return OperatorToken(operator, spanFrom(start))
+    }
 
-    // NUMERIC_LITERAL
-    val (firstIntegerString, firstIntegerStringLocation) = collectUntilOperatorOrWhitespace(sourceFile)
-    if (peek() == DECIMAL_SEPARATOR) {
-        mark()
+    private fun isDigitAt(position: Int): Boolean = Character.isDigit(code.codePointAt(position))
 
-        // skip the dot
-        nextOrThrow()
+    private fun tryMatchNumericLiteral(): NumericLiteralToken? {
+        val start = offset
+        val digitsStart = if (code[offset] == MINUS_CHAR) offset + 1 else offset
+        if (digitsStart >= code.length || !isDigitAt(digitsStart)) {
+            return null
+        }
 
-        if (peek()?.isDigit != false) {
+        offset = digitsStart
+        skipUntilOperatorOrWhitespace()
+        if (hasNext && code[offset] == DECIMAL_SEPARATOR && (offset + 1 >= code.length || isDigitAt(offset + 1))) {
             // <DIGIT, ...> <DOT> <DIGIT, ...> => Floating point literal
-
-            // floating point literal
-            val floatBuilder = StringBuilder()
-            if (isNegative) {
-                floatBuilder.append('-')
-            }
-            floatBuilder.append(firstIntegerString)
-            floatBuilder.appendCodePoint(DECIMAL_SEPARATOR.value)
-            val (fractionalString, fractionalStringLocation) = collectUntilOperatorOrWhitespace(sourceFile)
-            floatBuilder.append(fractionalString)
-
-            // return numericStr later
-            return NumericLiteralToken(
-                Span(sourceFile, startLocation.lineNumber, startLocation.columnNumber, fractionalStringLocation.toLineNumber, fractionalStringLocation.toColumnNumber),
-                floatBuilder.toString(),
-            )
+            offset++
+            skipUntilOperatorOrWhitespace()
         }
-        else {
-            // <DIGIT, ...> <DOT> <!DIGIT, ...> => member access on numeric literal
-            // rollback before the ., so that the next invocation yields an OperatorToken
-            rollback()
+        // otherwise, <DIGIT, ...> <DOT> <!DIGIT, ...> => member access on numeric literal
+        // the dot is not consumed, so that the next invocation yields an OperatorToken
 
-            // return numericStr later
-        }
+        return NumericLiteralToken(spanFrom(start), code.substring(start, offset))
     }
 
-    return NumericLiteralToken(
-        Span(sourceFile, startLocation.lineNumber, startLocation.columnNumber, firstIntegerStringLocation.toLineNumber, firstIntegerStringLocation.toColumnNumber),
-        if (isNegative) "-$firstIntegerString" else firstIntegerString,
-    )
-}
+    private fun collectStringContent(): StringLiteralContentToken {
+        val start = offset
+        // only needed when there are escape sequences; otherwise the content is a substring of the code
+        var unescaped: StringBuilder? = null
+        while (hasNext) {
+            val char = code[offset]
 
-private fun PositionTrackingCodePointTransactionalSequence.collectStringContent(sourceFile: LexerSourceFile): Pair<String, Span> {
-    val data = StringBuilder()
-    var start: SourceSpot? = null
-    while (true) {
-        val peeked = peek() ?: break
-
-        if (peeked == STRING_ESCAPE_CHAR) {
-            nextOrThrow()
-            val escapeStart = currentPosition
-            val next = try {
-                nextOrThrow() // consume
-            } catch (ex: NoSuchElementException) {
-                throw IllegalEscapeSequenceException(Span(sourceFile, escapeStart, currentPosition), "Unexpected EOF in escape sequence", ex)
-            }
+            if (char == STRING_ESCAPE_CHAR) {
+                if (unescaped == null) {
+                    unescaped = StringBuilder().append(code, start, offset)
+                }
+                val escapeStart = offset
+                offset++
+                if (!hasNext) {
+                    throw IllegalEscapeSequenceException(lines.span(sourceFile, escapeStart, escapeStart), "Unexpected EOF in escape sequence")
+                }
+
+                val escapedChar = ESCAPE_SEQUENCES[code[offset]]
+                offset += Character.charCount(code.codePointAt(offset))
+                if (escapedChar == null) {
+                    throw IllegalEscapeSequenceException(spanFrom(escapeStart), "Illegal escape sequence")
+                }
 
-            val actualChar = ESCAPE_SEQUENCES[next]
-                ?: throw IllegalEscapeSequenceException(Span(sourceFile, escapeStart, currentPosition), "Illegal escape sequence")
+                unescaped.append(escapedChar)
+                continue
+            }
 
-            data.appendCodePoint(actualChar.value)
-            continue
-        }
+            if (char == STRING_DELIMITER) {
+                // ending delimiter will be processed by the caller
+                break
+            }
 
-        if (peeked == STRING_DELIMITER) {
-            // ending delimiter will be processed by the caller
-            break
+            offset++
+            unescaped?.append(char)
         }
 
-        nextOrThrow() // consume
-        start = start ?: currentPosition
-        data.appendCodePoint(peeked.value)
+        return StringLiteralContentToken(spanFrom(start), unescaped?.toString() ?: code.substring(start, offset))
     }
 
-    return Pair(data.toString(), Span(sourceFile, start ?: currentPosition, currentPosition))
+    private fun collectDelimitedIdentifierContent(): DelimitedIdentifierContentToken {
+        val start = offset
+        val endDelimiterOffset = code.indexOf(IDENTIFIER_DELIMITER, offset)
+        // the ending delimiter will be processed by the caller
+        offset = if (endDelimiterOffset < 0) code.length else endDelimiterOffset
+
+        return DelimitedIdentifierContentToken(spanFrom(start), code.substring(start, offset))
+    }
 }
 
-private fun PositionTrackingCodePointTransactionalSequence.collectDelimitedIdentifierContent(sourceFile: LexerSourceFile): Pair<String, Span> {
-    val data = StringBuilder()
-    var start: SourceSpot? = null
-    while (true) {
-        val peeked = peek() ?: break
+private fun isWhitespace(char: Char): Boolean = char == ' ' || char == '\t' || char == '\r'
 
-        if (peeked == IDENTIFIER_DELIMITER) {
-            // ending delimiter will be processed by the caller
-            break
-        }
+private val MINUS_CHAR = Operator.MINUS.text.single()
 
-        nextOrThrow()
-        start = start ?: currentPosition
-        data.appendCodePoint(peeked.value)
+/**
+ * The operators in the order of [Operator.valuesSortedForLexing], indexed by the code of their first char.
+ */
+private val OPERATORS_BY_FIRST_CHAR: Array<Array<Operator>?> = run {
+    val byFirstChar = Operator.valuesSortedForLexing.groupBy { it.text.first() }
+    Array(byFirstChar.keys.maxOf { it.code } + 1) { code ->
+        byFirstChar[Char(code)]?.toTypedArray()
     }
-
-    return Pair(data.toString(), Span(sourceFile, start ?: currentPosition, currentPosition))
 }
 
-private val MINUS_CODEPOINT = CodePoint(Operator.MINUS.text.single().code)
-private val ESCAPE_SEQUENCES: Map<CodePoint, CodePoint> = mapOf<Char, Char>(
+private val ESCAPE_SEQUENCES: Map<Char, Char> = mapOf(
     'n' to '\n',
     't' to '\t',
     'r' to '\r',
-).entries.associate {
-    CodePoint(it.key.code) to CodePoint(it.value.code)
-}
\ No newline at end of file
+)
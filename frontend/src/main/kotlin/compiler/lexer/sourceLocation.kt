@@ -147,14 +147,6 @@ data class Span(
     val toColumnNumber: UInt,
     val generated: Boolean = false,
 ) : IrSourceLocation {
-    constructor(sourceFile: LexerSourceFile, start: SourceSpot, end: SourceSpot) : this(
-        sourceFile,
-        start.lineNumber,
-        start.columnNumber,
-        end.lineNumber,
-        end.columnNumber,
-    )
-
     fun deriveGenerated() = if (generated) this else copy(generated = true)
 
     override fun toString(): String {
@@ -85,6 +85,15 @@ enum class Keyword(val text: String)
     TRY("try"),
     CATCH("catch"),
     ;
+
+    companion object {
+        private val lookupTable = KeywordLookupTable(entries)
+
+        /**
+         * @return the keyword that [sourceText] spells, ignoring case, or `null` if it isn't one
+         */
+        fun ofSourceText(sourceText: String): Keyword? = lookupTable[sourceText]
+    }
 }
 
 enum class Operator(val text: String, private val _humanReadableName: String? = null)
@@ -117,8 +126,8 @@ enum class Operator(val text: String, private val _humanReadableName: String? =
     QUESTION_MARK         ("?"),
     NOTNULL               ("!!"), // find a better name for this...
     EXCLAMATION_MARK      ("!", "exclamation mark"),
-    STRING_DELIMITER      (Char(compiler.lexer.STRING_DELIMITER.value).toString()),
-    IDENTIFIER_DELIMITER  (Char(compiler.lexer.IDENTIFIER_DELIMITER.value).toString()),
+    STRING_DELIMITER      (compiler.lexer.STRING_DELIMITER.toString()),
+    IDENTIFIER_DELIMITER  (compiler.lexer.IDENTIFIER_DELIMITER.toString()),
     COMMENT               ("//", "comment marker"),
     INTERSECTION          ("&"),
     ;
@@ -134,10 +143,10 @@ enum class Operator(val text: String, private val _humanReadableName: String? =
     }
 }
 
-val DECIMAL_SEPARATOR = CodePoint('.'.code)
-val STRING_ESCAPE_CHAR = CodePoint('\\'.code)
-val STRING_DELIMITER = CodePoint('"'.code)
-val IDENTIFIER_DELIMITER = CodePoint('`'.code)
+const val DECIMAL_SEPARATOR = '.'
+const val STRING_ESCAPE_CHAR = '\\'
+const val STRING_DELIMITER = '"'
+const val IDENTIFIER_DELIMITER = '`'
 
 abstract class Token {
     abstract val span: Span
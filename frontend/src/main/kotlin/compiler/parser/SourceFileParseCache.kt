@@ -0,0 +1,72 @@
+package compiler.parser
+
+import compiler.ast.ASTSourceFile
+import compiler.lexer.DiskLexerSourceFile
+import compiler.lexer.LexerSourceFile
+import compiler.lexer.lex
+import compiler.parser.grammar.rule.MatchingResult
+import io.github.tmarsteel.emerge.common.CanonicalElementName
+import io.github.tmarsteel.emerge.common.trace.CompilerTrace
+import java.security.MessageDigest
+import java.util.HexFormat
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Remembers the result of lexing and parsing source files, so that a file that didn't change since it was last
+ * seen doesn't have to be lexed and parsed again. Only useful if the compiler process outlives a single compilation,
+ * e.g. when running as a persistent worker.
+ *
+ * A file is considered unchanged if it has the same normalized location, package and content hash as the one
+ * parsed earlier. There is at most one entry per location; call [retainOnly] once per compilation so that files
+ * that are no longer part of it don't stay in memory.
+ * [ASTSourceFile]s can be bound any number of times, so handing out the same instance to multiple compilations is safe.
+ */
+class SourceFileParseCache {
+    private val entries = ConcurrentHashMap<String, Entry>()
+
+    /**
+     * @return the result of parsing [file]. If that comes from the cache, the [ASTSourceFile] and all spans within
+     * it refer to the [LexerSourceFile] that was parsed originally, not to [file].
+     */
+    fun getOrParse(file: LexerSourceFile): MatchingResult<ASTSourceFile> {
+        val location = file.cacheLocation
+        val contentHash = sha256(file.content)
+        entries[location]?.let { cached ->
+            if (cached.packageName == file.packageName && cached.contentHash == contentHash) {
+                return cached.result
+            }
+        }
+
+        val tokens = CompilerTrace.span("lex", file) { lex(file) }
+        val result = CompilerTrace.span("parse", file) { SourceFileRule.match(tokens, file) }
+        entries[location] = Entry(file.packageName, contentHash, result)
+        return result
+    }
+
+    /**
+     * Evicts the entries for all files other than [files], e.g. ones that were deleted or belong to a module
+     * that isn't compiled anymore.
+     */
+    fun retainOnly(files: Collection<LexerSourceFile>) {
+        val locations = files.mapTo(HashSet()) { it.cacheLocation }
+        entries.keys.retainAll(locations)
+    }
+
+    val size: Int get() = entries.size
+
+    private class Entry(
+        val packageName: CanonicalElementName.Package,
+        val contentHash: String,
+        val result: MatchingResult<ASTSourceFile>,
+    )
+}
+
+private val LexerSourceFile.cacheLocation: String get() = when (this) {
+    is DiskLexerSourceFile -> sourceFilePath.toAbsolutePath().normalize().toString()
+    else -> "$packageName/$name"
+}
+
+private fun sha256(content: String): String {
+    val digest = MessageDigest.getInstance("SHA-256").digest(content.toByteArray(Charsets.UTF_8))
+    return HexFormat.of().formatHex(digest)
+}
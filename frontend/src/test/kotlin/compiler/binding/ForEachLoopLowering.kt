@@ -0,0 +1,113 @@
+package compiler.compiler.binding
+
+import compiler.compiler.negative.moduleBackendIrAssumingNoErrors
+import compiler.compiler.negative.namesOfFunctionsInvokedIn
+import compiler.compiler.negative.validateModule
+import io.github.tmarsteel.emerge.backend.api.ir.IrCodeChunk
+import io.github.tmarsteel.emerge.backend.api.ir.IrConditionalBranch
+import io.github.tmarsteel.emerge.backend.api.ir.IrCreateTemporaryValue
+import io.github.tmarsteel.emerge.backend.api.ir.IrExecutable
+import io.github.tmarsteel.emerge.backend.api.ir.IrLoop
+import io.github.tmarsteel.emerge.backend.api.ir.IrModule
+import io.github.tmarsteel.emerge.backend.api.ir.IrVariableAccessExpression
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.inspectors.forNone
+import io.kotest.inspectors.forOne
+import io.kotest.matchers.collections.shouldContain
+import io.kotest.matchers.collections.shouldNotContain
+import io.kotest.matchers.string.shouldStartWith
+
+class ForEachLoopLowering : FreeSpec({
+    "array in a variable that cannot be re-assigned is iterated by index" {
+        val invoked = validateModule("""
+            fn test(arr: Array<S32>) -> S32 {
+                var sum: S32 = 0
+                foreach e in arr {
+                    set sum = sum + e
+                }
+                return sum
+            }
+        """.trimIndent())
+            .moduleBackendIrAssumingNoErrors()
+            .namesOfFunctionsInvokedIn("test")
+
+        invoked shouldNotContain "asRange"
+        invoked shouldContain "getOrPanic"
+    }
+
+    "returning from the body of an index loop releases the array instead of a range" {
+        val readVariables = validateModule("""
+            fn test(arr: Array<S32>) -> S32 {
+                foreach e in arr {
+                    if e > 0 {
+                        return e
+                    }
+                }
+                return 0
+            }
+        """.trimIndent())
+            .moduleBackendIrAssumingNoErrors()
+            .namesOfVariablesReadIn("test")
+
+        readVariables.forNone { it shouldStartWith "__range" }
+        readVariables.forOne { it shouldStartWith "__array" }
+    }
+
+    "array in a re-assignable variable is iterated through a range" {
+        val invoked = validateModule("""
+            fn test(p: Array<S32>) -> S32 {
+                var arr = p
+                var sum: S32 = 0
+                foreach e in arr {
+                    set sum = sum + e
+                }
+                return sum
+            }
+        """.trimIndent())
+            .moduleBackendIrAssumingNoErrors()
+            .namesOfFunctionsInvokedIn("test")
+
+        invoked shouldContain "asRange"
+    }
+
+    "other iterables are iterated through a range" {
+        val invoked = validateModule("""
+            import emerge.std.collections.ArrayList
+            fn test(list: ArrayList<S32>) -> S32 {
+                var sum: S32 = 0
+                foreach e in list {
+                    set sum = sum + e
+                }
+                return sum
+            }
+        """.trimIndent())
+            .moduleBackendIrAssumingNoErrors()
+            .namesOfFunctionsInvokedIn("test")
+
+        invoked shouldContain "asRange"
+    }
+})
+
+private fun IrModule.namesOfVariablesReadIn(functionName: String): Set<String> {
+    val names = HashSet<String>()
+    fun visit(executable: IrExecutable) {
+        when (executable) {
+            is IrCodeChunk -> executable.components.forEach(::visit)
+            is IrLoop -> visit(executable.body)
+            is IrConditionalBranch -> {
+                visit(executable.thenBranch)
+                executable.elseBranch?.let(::visit)
+            }
+            is IrCreateTemporaryValue -> (executable.value as? IrVariableAccessExpression)?.let { names.add(it.variable.name) }
+            else -> {}
+        }
+    }
+    packages
+        .flatMap { it.functions }
+        .flatMap { it.overloads }
+        .single { it.canonicalName.simpleName == functionName }
+        .body
+        ?.let(::visit)
+
+    return names
+}
@@ -1,8 +1,24 @@
 package compiler.compiler.binding
 
+import compiler.ast.ASTSourceFile
+import compiler.binding.context.SoftwareContext
+import compiler.compiler.negative.emptySoftwareContext
+import compiler.compiler.negative.shouldFind
 import compiler.compiler.negative.shouldHaveNoDiagnostics
 import compiler.compiler.negative.validateModule
+import compiler.diagnostic.CollectingDiagnosis
+import compiler.diagnostic.Diagnostic
+import compiler.diagnostic.UnresolvableFunctionOverloadDiagnostic
+import compiler.diagnostic.ValueNotAssignableDiagnostic
+import compiler.lexer.MemoryLexerSourceFile
+import compiler.lexer.lex
+import compiler.parser.SourceFileRule
+import compiler.parser.grammar.rule.MatchingResult
+import io.github.tmarsteel.emerge.common.CanonicalElementName
 import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.collections.shouldHaveSize
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeInstanceOf
 
 class InvocationRules : FreeSpec({
     // ignored for now because this requires a larger refactoring in BoundInvocationExpression, not in focus rn
@@ -16,4 +32,83 @@ class InvocationRules : FreeSpec({
         """.trimIndent())
             .shouldHaveNoDiagnostics()
     }
-})
\ No newline at end of file
+
+    "repeated invocations" - {
+        "invocations with different argument types resolve independently" {
+            validateModule("""
+                class A {}
+                class B {}
+                fn foo(p: A) {}
+                fn foo(p: B) {}
+                fn test() {
+                    foo(A())
+                    foo(A())
+                    foo(true)
+                }
+            """.trimIndent())
+                .shouldFind<UnresolvableFunctionOverloadDiagnostic>()
+        }
+
+        "invocations of a generic function are inferred for each call site" {
+            validateModule("""
+                intrinsic fn id<T>(p: T) -> T
+                fn test() {
+                    a: String = id("a")
+                    b: String = id("b")
+                    c: Bool = id("c")
+                }
+            """.trimIndent())
+                .shouldFind<ValueNotAssignableDiagnostic> {
+                    it.sourceType.toString() shouldBe "const String"
+                    it.targetType.toString() shouldBe "const Bool"
+                }
+        }
+
+        "in different files of the same package" - {
+            val lib = CanonicalElementName.Package(listOf("lib"))
+            val testmodule = CanonicalElementName.Package(listOf("testmodule"))
+            val libFiles = listOf(
+                "package lib.one\nexport fn foo(p: S32) -> S32 = p\nexport fn bar() {}",
+                "package lib.two\nexport fn foo(p: S32) -> String = \"two\"",
+            )
+
+            fun validateFiles(vararg testmoduleFiles: String): Pair<SoftwareContext, Collection<Diagnostic>> {
+                val swCtx = emptySoftwareContext(validate = false)
+                for ((moduleName, uses, files) in listOf(Triple(lib, emptySet<CanonicalElementName.Package>(), libFiles), Triple(testmodule, setOf(lib), testmoduleFiles.toList()))) {
+                    val moduleCtx = swCtx.registerModule(moduleName, uses)
+                    files.forEachIndexed { index, code ->
+                        val packageName = CanonicalElementName.Package(code.lineSequence().first().removePrefix("package ").split('.'))
+                        val lexerFile = MemoryLexerSourceFile("file$index.em", packageName, code + "\n")
+                        moduleCtx.addSourceFile(SourceFileRule.match(lex(lexerFile), lexerFile).shouldBeInstanceOf<MatchingResult.Success<ASTSourceFile>>().item)
+                    }
+                }
+                val diagnosis = CollectingDiagnosis()
+                swCtx.doSemanticAnalysis(diagnosis)
+                return Pair(swCtx, diagnosis.findings)
+            }
+
+            fun SoftwareContext.cachedTargetsOfFoo() = getPackage(testmodule)!!
+                .overloadResolutionCache
+                .cachedTargets
+                .filter { it.functionName == "foo" }
+
+            "share the cached candidates if the imports refer to the same symbols" {
+                val (swCtx, _) = validateFiles(
+                    "package testmodule\nimport lib.one.{foo, bar}\nfn a() -> S32 = foo(1)",
+                    "package testmodule\nimport lib.one.{bar, foo}\nfn b() -> S32 = foo(2)",
+                ).shouldHaveNoDiagnostics()
+
+                swCtx.cachedTargetsOfFoo() shouldHaveSize 1
+            }
+
+            "don't share the cached candidates if the imports refer to different symbols" {
+                val (swCtx, _) = validateFiles(
+                    "package testmodule\nimport lib.one.foo\nfn a() -> S32 = foo(1)",
+                    "package testmodule\nimport lib.two.foo\nfn b() -> String = foo(1)",
+                ).shouldHaveNoDiagnostics()
+
+                swCtx.cachedTargetsOfFoo() shouldHaveSize 2
+            }
+        }
+    }
+})
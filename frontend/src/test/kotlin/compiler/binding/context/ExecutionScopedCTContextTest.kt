@@ -1,14 +1,25 @@
 package compiler.compiler.binding.context
 
+import compiler.ast.AstImportDeclaration
+import compiler.ast.VariableDeclaration
 import compiler.binding.context.DeferrableExecutable
 import compiler.binding.context.ModuleContext
 import compiler.binding.context.MutableExecutionScopedCTContext
 import compiler.binding.context.PackageContext
+import compiler.binding.context.SoftwareContext
 import compiler.binding.context.SourceFileRootContext
+import compiler.compiler.negative.IntegrationTestModule
+import compiler.compiler.negative.parseAsOneSourceFileOfMultiple
+import compiler.compiler.negative.registerModule
+import compiler.lexer.IdentifierToken
+import compiler.lexer.Span
 import io.github.tmarsteel.emerge.common.CanonicalElementName
 import io.kotest.core.spec.style.FreeSpec
 import io.kotest.inspectors.forNone
+import io.kotest.matchers.collections.beEmpty
+import io.kotest.matchers.should
 import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
 import io.mockk.mockk
 
 class ExecutionScopedCTContextTest : FreeSpec({
@@ -134,9 +145,52 @@ class ExecutionScopedCTContextTest : FreeSpec({
             }
         }
     }
+    "name resolution" - {
+        "variable added to a parent after a lookup through it is found" {
+            val functionBoundary = MutableExecutionScopedCTContext.functionRootIn(mockSourceFileContext())
+            val leafContext = MutableExecutionScopedCTContext.deriveFrom(MutableExecutionScopedCTContext.deriveFrom(functionBoundary))
+            leafContext.resolveVariable("x") shouldBe null
+
+            val variable = VariableDeclaration(Span.UNKNOWN, null, null, null, IdentifierToken("x"), null, null).bindTo(functionBoundary)
+            functionBoundary.addVariable(variable)
+
+            leafContext.resolveVariable("x") shouldBeSameInstanceAs variable
+        }
+
+        "base type added to a parent after a lookup through it is found" {
+            val sourceFileContext = mockSourceFileContext()
+            val leafContext = MutableExecutionScopedCTContext.deriveFrom(MutableExecutionScopedCTContext.functionRootIn(sourceFileContext))
+            leafContext.resolveBaseType("Foo").toList() should beEmpty()
+
+            val declaration = IntegrationTestModule.of("mock", """
+                package mock
+                
+                class Foo {}
+            """.trimIndent()).parseAsOneSourceFileOfMultiple().baseTypes.single()
+            val baseType = sourceFileContext.addBaseType(declaration)
+
+            leafContext.resolveBaseType("Foo").toList() shouldBe listOf(baseType)
+        }
+
+        "function imported into a parent after a lookup through it is found" {
+            val swCtx = SoftwareContext()
+            swCtx.registerModule(IntegrationTestModule.of("lib", """
+                package lib
+                
+                export fn foo() {}
+            """.trimIndent()))
+            val sourceFileContext = mockSourceFileContext(swCtx)
+            val leafContext = MutableExecutionScopedCTContext.deriveFrom(MutableExecutionScopedCTContext.functionRootIn(sourceFileContext))
+            leafContext.getToplevelFunctionOverloadSetsBySimpleName("foo") should beEmpty()
+
+            sourceFileContext.addImport(AstImportDeclaration(Span.UNKNOWN, listOf(IdentifierToken("lib")), listOf(IdentifierToken("foo"))))
+
+            leafContext.getToplevelFunctionOverloadSetsBySimpleName("foo").single().canonicalName.toString() shouldBe "lib.foo"
+        }
+    }
 })
 
-private fun mockSourceFileContext(): SourceFileRootContext {
+private fun mockSourceFileContext(swCtx: SoftwareContext = SoftwareContext()): SourceFileRootContext {
     val name = CanonicalElementName.Package(listOf("mock"))
-    return SourceFileRootContext(PackageContext(ModuleContext(name, emptySet(), mockk()), name), name)
+    return SourceFileRootContext(PackageContext(ModuleContext(name, emptySet(), swCtx), name), name)
 }
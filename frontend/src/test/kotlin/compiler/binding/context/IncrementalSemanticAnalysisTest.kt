@@ -0,0 +1,144 @@
+package compiler.compiler.binding.context
+
+import compiler.ast.ASTSourceFile
+import compiler.ast.type.AstAbsoluteTypeReference
+import compiler.binding.context.SoftwareContext
+import compiler.binding.type.RootResolvedTypeReference
+import compiler.compiler.negative.emptySoftwareContext
+import compiler.diagnostic.CollectingDiagnosis
+import compiler.diagnostic.Diagnostic
+import compiler.lexer.MemoryLexerSourceFile
+import compiler.lexer.Span
+import compiler.parser.SourceFileParseCache
+import compiler.parser.grammar.rule.MatchingResult
+import io.github.tmarsteel.emerge.common.CanonicalElementName
+import io.github.tmarsteel.emerge.common.EmergeConstants
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldContain
+import io.kotest.matchers.collections.shouldContainAll
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeInstanceOf
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import io.kotest.matchers.types.shouldNotBeSameInstanceAs
+
+class IncrementalSemanticAnalysisTest : FreeSpec({
+    val packageA = CanonicalElementName.Package(listOf("test", "a"))
+    val packageB = CanonicalElementName.Package(listOf("test", "b"))
+    val packageC = CanonicalElementName.Package(listOf("test", "c"))
+
+    val codeB = """
+        package test.b
+
+        import test.a.*
+
+        export fn useFoo() -> S32 {
+            return foo()
+        }
+    """.trimIndent()
+    val codeC = """
+        package test.c
+
+        export fn bar() -> S32 {
+            return 3
+        }
+    """.trimIndent()
+
+    fun SourceFileParseCache.parse(packageName: CanonicalElementName.Package, code: String): ASTSourceFile {
+        return getOrParse(MemoryLexerSourceFile("$packageName.em", packageName, code + "\n"))
+            .shouldBeInstanceOf<MatchingResult.Success<ASTSourceFile>>()
+            .item
+    }
+
+    fun SourceFileParseCache.sources(fooResult: Int) = mapOf(
+        packageA to listOf(parse(packageA, """
+            package test.a
+
+            export class Thing {}
+
+            export fn foo() -> S32 {
+                return $fooResult
+            }
+        """.trimIndent())),
+        packageB to listOf(parse(packageB, codeB)),
+        packageC to listOf(parse(packageC, codeC)),
+    )
+
+    fun SoftwareContext.analyseWithoutErrors() {
+        val diagnosis = CollectingDiagnosis()
+        doSemanticAnalysis(diagnosis)
+        diagnosis.findings.filter { it.severity >= Diagnostic.Severity.ERROR }.shouldBeEmpty()
+    }
+
+    fun SoftwareContext.sourceFileOf(packageName: CanonicalElementName.Package) = getRegisteredModule(packageName)
+        .sourceFiles
+        .single()
+
+    fun setUp(cache: SourceFileParseCache): SoftwareContext {
+        val swCtx = emptySoftwareContext(validate = false)
+        swCtx.registerModule(packageA, emptySet())
+        swCtx.registerModule(packageB, setOf(packageA))
+        swCtx.registerModule(packageC, emptySet())
+        cache.sources(1).forEach { (moduleName, sources) ->
+            sources.forEach(swCtx.getRegisteredModule(moduleName)::addSourceFile)
+        }
+        swCtx.analyseWithoutErrors()
+        return swCtx
+    }
+
+    "a package is affected by changes to itself and the packages it imports, transitively" {
+        val swCtx = setUp(SourceFileParseCache())
+
+        swCtx.getPackagesAffectedByChangesTo(setOf(packageA)) shouldContainExactlyInAnyOrder setOf(packageA, packageB)
+        swCtx.getPackagesAffectedByChangesTo(setOf(packageC)) shouldContainExactlyInAnyOrder setOf(packageC)
+        // imported by default
+        swCtx.getPackagesAffectedByChangesTo(setOf(EmergeConstants.CoreModule.NAME)).shouldContainAll(packageA, packageB, packageC)
+    }
+
+    "a package depends on the packages of the types it refers to, also without an import" {
+        val swCtx = setUp(SourceFileParseCache())
+        val thingInA = CanonicalElementName.BaseType(packageA, "Thing")
+
+        swCtx.sourceFileOf(packageC).context
+            .resolveType(AstAbsoluteTypeReference(thingInA, span = Span.UNKNOWN))
+            .shouldBeInstanceOf<RootResolvedTypeReference>()
+
+        swCtx.getPackage(packageC)!!.dependsOnPackages shouldContain packageA
+        swCtx.getPackagesAffectedByChangesTo(setOf(packageA)) shouldContainExactlyInAnyOrder setOf(packageA, packageB, packageC)
+    }
+
+    "only the changed package and its dependents are bound again" {
+        val cache = SourceFileParseCache()
+        val swCtx = setUp(cache)
+        val sourceA = swCtx.sourceFileOf(packageA)
+        val sourceB = swCtx.sourceFileOf(packageB)
+        val sourceC = swCtx.sourceFileOf(packageC)
+
+        swCtx.rebindChangedSources(cache.sources(2)) shouldBe true
+        swCtx.analyseWithoutErrors()
+
+        swCtx.sourceFileOf(packageA) shouldNotBeSameInstanceAs sourceA
+        swCtx.sourceFileOf(packageB) shouldNotBeSameInstanceAs sourceB
+        swCtx.sourceFileOf(packageC) shouldBeSameInstanceAs sourceC
+    }
+
+    "nothing is bound again without changes" {
+        val cache = SourceFileParseCache()
+        val swCtx = setUp(cache)
+        val sourceA = swCtx.sourceFileOf(packageA)
+
+        swCtx.rebindChangedSources(cache.sources(1)) shouldBe true
+        swCtx.analyseWithoutErrors()
+
+        swCtx.sourceFileOf(packageA) shouldBeSameInstanceAs sourceA
+    }
+
+    "changes to an unknown module cannot be applied incrementally" {
+        val cache = SourceFileParseCache()
+        val swCtx = setUp(cache)
+        val unknownPackage = CanonicalElementName.Package(listOf("test", "unknown"))
+
+        swCtx.rebindChangedSources(mapOf(unknownPackage to listOf(cache.parse(unknownPackage, codeC.replace("test.c", "test.unknown"))))) shouldBe false
+    }
+})
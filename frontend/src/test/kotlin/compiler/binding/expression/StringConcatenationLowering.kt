@@ -0,0 +1,66 @@
+package compiler.compiler.binding.expression
+
+import compiler.compiler.negative.moduleBackendIrAssumingNoErrors
+import compiler.compiler.negative.namesOfFunctionsInvokedIn
+import compiler.compiler.negative.shouldHaveNoDiagnostics
+import compiler.compiler.negative.validateModule
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.collections.shouldContain
+import io.kotest.matchers.collections.shouldNotContain
+
+class StringConcatenationLowering : FreeSpec({
+    "two operands use String.plus" {
+        val invoked = validateModule("""
+            fn test(a: String, b: String) -> String {
+                return a + b
+            }
+        """.trimIndent())
+            .shouldHaveNoDiagnostics()
+            .moduleBackendIrAssumingNoErrors()
+            .namesOfFunctionsInvokedIn("test")
+
+        invoked shouldContain "plus"
+        invoked shouldNotContain "concat"
+    }
+
+    "three operands are lowered to String.concat" {
+        val invoked = validateModule("""
+            fn test(a: String, b: String, c: String) -> String {
+                return a + b + c
+            }
+        """.trimIndent())
+            .shouldHaveNoDiagnostics()
+            .moduleBackendIrAssumingNoErrors()
+            .namesOfFunctionsInvokedIn("test")
+
+        invoked shouldContain "concat"
+        invoked shouldNotContain "plus"
+    }
+
+    "parenthesized chains are flattened into one call to String.concat" {
+        val invoked = validateModule("""
+            fn test(a: String, b: String, c: String, d: String) -> String {
+                return a + (b + c) + d
+            }
+        """.trimIndent())
+            .shouldHaveNoDiagnostics()
+            .moduleBackendIrAssumingNoErrors()
+            .namesOfFunctionsInvokedIn("test")
+
+        invoked shouldContain "concat"
+        invoked shouldNotContain "plus"
+    }
+
+    "String.concat can be invoked with an array" {
+        val invoked = validateModule("""
+            fn test(a: String, b: String) -> String {
+                return String.concat([a, b, "c"])
+            }
+        """.trimIndent())
+            .shouldHaveNoDiagnostics()
+            .moduleBackendIrAssumingNoErrors()
+            .namesOfFunctionsInvokedIn("test")
+
+        invoked shouldContain "concat"
+    }
+})
@@ -0,0 +1,50 @@
+package compiler.compiler.binding.type
+
+import compiler.binding.type.AssignabilityCache
+import compiler.binding.type.isAssignableTo
+import compiler.compiler.negative.shouldHaveNoDiagnostics
+import compiler.compiler.negative.validateModule
+import compiler.lexer.Span
+import io.kotest.assertions.withClue
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.shouldBe
+
+class AssignabilityCacheTests : FreeSpec({
+    val ctx = validateModule("""
+        class Box {
+            var n: S32 = 0
+        }
+    """.trimIndent())
+        .shouldHaveNoDiagnostics()
+        .first
+
+    val types = listOf(
+        "Any", "Any?", "Nothing", "S32", "S32?", "mut Box", "read Box", "const Box", "exclusive Box", "Box?",
+        "mut Array<S32>", "read Array<S32>", "Array<out Any>", "Array<in S32>", "Array<out Any?>", "Array<Box?>",
+        "Array<read Box>", "Array<out read Box>",
+    ).map(ctx::parseType)
+
+    "isAssignableTo agrees with evaluateAssignabilityTo" {
+        for (assignee in types) {
+            for (target in types) {
+                val expected = assignee.evaluateAssignabilityTo(target, Span.UNKNOWN) == null
+                withClue("$assignee to $target") {
+                    (assignee isAssignableTo target) shouldBe expected
+                    // second time from the cache
+                    (assignee isAssignableTo target) shouldBe expected
+                }
+            }
+        }
+    }
+
+    "keeps at most maxEntries results" {
+        val cache = AssignabilityCache(maxEntries = 8)
+        for (assignee in types) {
+            for (target in types) {
+                cache.isAssignable(assignee, target) shouldBe (assignee.evaluateAssignabilityTo(target, Span.UNKNOWN) == null)
+            }
+        }
+
+        cache.size shouldBe 8
+    }
+})
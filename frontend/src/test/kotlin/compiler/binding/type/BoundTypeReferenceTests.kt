@@ -1,10 +1,12 @@
 package compiler.compiler.binding.type
 
 import compiler.ast.type.TypeMutability
+import compiler.ast.type.TypeReference
 import compiler.compiler.negative.shouldHaveNoDiagnostics
 import compiler.compiler.negative.validateModule
 import io.kotest.core.spec.style.FreeSpec
 import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
 
 class BoundTypeReferenceTests : FreeSpec({
     val ctx = validateModule("""
@@ -123,4 +125,18 @@ class BoundTypeReferenceTests : FreeSpec({
             // no need to test because exclusive object members are not allowed
         }
     }
+
+    "derived references are shared" - {
+        "by mutability" {
+            val box = ctx.parseType("Box")
+            val mutBox = box.withMutability(TypeMutability.MUTABLE)
+            box.withMutability(TypeMutability.MUTABLE) shouldBeSameInstanceAs mutBox
+            mutBox.withMutability(TypeMutability.IMMUTABLE) shouldBeSameInstanceAs box.withMutability(TypeMutability.IMMUTABLE)
+        }
+
+        "by nullability" {
+            val box = ctx.parseType("Box")
+            box.withCombinedNullability(TypeReference.Nullability.NULLABLE) shouldBeSameInstanceAs box.withCombinedNullability(TypeReference.Nullability.NULLABLE)
+        }
+    }
 })
\ No newline at end of file
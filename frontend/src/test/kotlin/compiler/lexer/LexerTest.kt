@@ -57,6 +57,14 @@ class LexerTest : FreeSpec() {init {
             result[0] should beInstanceOf(KeywordToken::class)
             (result[0] as KeywordToken).keyword shouldBe Keyword.PACKAGE
         }
+
+        "all keywords are recognized" {
+            for (keyword in Keyword.entries.distinctBy { it.text }) {
+                val result = lexCode(keyword.text.uppercase(), false)
+
+                result[0].shouldBeInstanceOf<KeywordToken>().keyword shouldBe keyword
+            }
+        }
     }
 
     "newlines are semantic" {
@@ -86,6 +94,17 @@ class LexerTest : FreeSpec() {init {
             result[0] should beInstanceOf(NumericLiteralToken::class)
             (result[0] as NumericLiteralToken).stringContent shouldBe "21498743"
         }
+
+        "negative" {
+            val result = lexCode("  -42", false)
+
+            result.size shouldBe 2
+            result[0].shouldBeInstanceOf<NumericLiteralToken>().let {
+                it.stringContent shouldBe "-42"
+                it.span.fromColumnNumber shouldBe 3u
+                it.span.toColumnNumber shouldBe 5u
+            }
+        }
     }
 
     "decimals" - {
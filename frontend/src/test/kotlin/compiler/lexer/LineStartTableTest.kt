@@ -0,0 +1,53 @@
+package compiler.compiler.lexer
+
+import compiler.lexer.LineStartTable
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.shouldBe
+
+class LineStartTableTest : FreeSpec({
+    "starts at line 1 column 0" {
+        val table = LineStartTable.of("abc")
+
+        table.lineNumberAt(-1) shouldBe 1u
+        table.columnNumberAt(-1) shouldBe 0u
+    }
+
+    "handles characters on single line" {
+        val table = LineStartTable.of("abc")
+
+        table.lineNumberAt(0) shouldBe 1u
+        table.columnNumberAt(0) shouldBe 1u
+        table.lineNumberAt(2) shouldBe 1u
+        table.columnNumberAt(2) shouldBe 3u
+    }
+
+    "handles newlines (LF codepoint)" {
+        val table = LineStartTable.of("ab\ncd\n\nef")
+
+        // the linefeed belongs to the line it terminates
+        table.lineNumberAt(2) shouldBe 1u
+        table.columnNumberAt(2) shouldBe 3u
+
+        table.lineNumberAt(3) shouldBe 2u
+        table.columnNumberAt(3) shouldBe 1u
+        table.lineNumberAt(5) shouldBe 2u
+        table.columnNumberAt(5) shouldBe 3u
+
+        table.lineNumberAt(6) shouldBe 3u
+        table.columnNumberAt(6) shouldBe 1u
+
+        table.lineNumberAt(7) shouldBe 4u
+        table.columnNumberAt(7) shouldBe 1u
+        table.lineNumberAt(8) shouldBe 4u
+        table.columnNumberAt(8) shouldBe 2u
+    }
+
+    "counts columns in code points" {
+        // U+1F600 takes two chars
+        val table = LineStartTable.of("a😀b")
+
+        table.columnNumberAt(1) shouldBe 2u
+        table.columnNumberAt(2) shouldBe 2u
+        table.columnNumberAt(3) shouldBe 3u
+    }
+})
@@ -139,6 +139,37 @@ class FunctionErrors : FreeSpec({
                 .shouldHaveNoDiagnostics()
         }
 
+        "overload-set with many unrelated parameter types is valid" {
+            validateModule("""
+                interface I {}
+                class A : I {}
+                class B {}
+                class C {}
+                class D {}
+                fn foo(p: A) {}
+                fn foo(p: B) {}
+                fn foo(p: C?) {}
+                fn foo(p: D) {}
+            """.trimIndent())
+                .shouldHaveNoDiagnostics()
+        }
+
+        "overload-set with a parameter type related by inheritance among many unrelated ones is not valid" {
+            validateModule("""
+                interface I {}
+                class A : I {}
+                class B {}
+                class C {}
+                class D {}
+                fn foo(p: A) {}
+                fn foo(p: B) {}
+                fn foo(p: C) {}
+                fn foo(p: D) {}
+                fn foo(p: I?) {}
+            """.trimIndent())
+                .shouldFind<OverloadSetHasNoDisjointParameterDiagnostic>()
+        }
+
         "ambiguous invocation involving valid overload sets" {
             validateModule("""
                 fn println(p: Any) {}
@@ -12,7 +12,16 @@ import compiler.lexer.Token
 import compiler.lexer.lex
 import compiler.parser.SourceFileRule
 import compiler.parser.grammar.rule.MatchingResult
+import io.github.tmarsteel.emerge.backend.api.ir.IrCodeChunk
+import io.github.tmarsteel.emerge.backend.api.ir.IrConditionalBranch
+import io.github.tmarsteel.emerge.backend.api.ir.IrCreateTemporaryValue
+import io.github.tmarsteel.emerge.backend.api.ir.IrExecutable
+import io.github.tmarsteel.emerge.backend.api.ir.IrFunction
+import io.github.tmarsteel.emerge.backend.api.ir.IrImplicitEvaluationExpression
+import io.github.tmarsteel.emerge.backend.api.ir.IrInvocationExpression
+import io.github.tmarsteel.emerge.backend.api.ir.IrLoop
 import io.github.tmarsteel.emerge.backend.api.ir.IrModule
+import io.github.tmarsteel.emerge.backend.api.ir.IrTryCatchExpression
 import io.github.tmarsteel.emerge.backend.noop.NoopBackend
 import io.github.tmarsteel.emerge.common.CanonicalElementName
 import io.github.tmarsteel.emerge.common.EmergeConstants
@@ -278,6 +287,47 @@ fun Pair<SoftwareContext, Collection<Diagnostic>>.moduleBackendIrAssumingNoError
     return first.toBackendIr().modules.single { it.name == CanonicalElementName.Package(listOf("testmodule")) }
 }
 
+/**
+ * @return the simple names of all the functions invoked in the body of the top-level function [functionName]
+ */
+fun IrModule.namesOfFunctionsInvokedIn(functionName: String): Set<String> {
+    return packages
+        .flatMap { it.functions }
+        .flatMap { it.overloads }
+        .single { it.canonicalName.simpleName == functionName }
+        .namesOfInvokedFunctions()
+}
+
+/**
+ * @return the simple names of all the functions invoked in the body of this function
+ */
+fun IrFunction.namesOfInvokedFunctions(): Set<String> {
+    val names = HashSet<String>()
+    fun visit(executable: IrExecutable) {
+        when (executable) {
+            is IrCodeChunk -> executable.components.forEach(::visit)
+            is IrLoop -> visit(executable.body)
+            is IrConditionalBranch -> {
+                visit(executable.thenBranch)
+                executable.elseBranch?.let(::visit)
+            }
+            is IrCreateTemporaryValue -> when (val value = executable.value) {
+                is IrInvocationExpression -> names.add(value.function.canonicalName.simpleName)
+                is IrImplicitEvaluationExpression -> visit(value.code)
+                is IrTryCatchExpression -> {
+                    (value.fallibleCode as? IrImplicitEvaluationExpression)?.let { visit(it.code) }
+                    (value.fallibleCode as? IrInvocationExpression)?.let { names.add(it.function.canonicalName.simpleName) }
+                }
+                else -> {}
+            }
+            else -> {}
+        }
+    }
+    body?.let(::visit)
+
+    return names
+}
+
 private fun String.assureEndsWith(suffix: Char): String {
     return if (endsWith(suffix)) this else this + suffix
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package compiler.compiler.parser
+
+import compiler.ast.ASTSourceFile
+import compiler.compiler.negative.emptySoftwareContext
+import compiler.diagnostic.CollectingDiagnosis
+import compiler.diagnostic.IncorrectPackageDeclarationDiagnostic
+import compiler.lexer.MemoryLexerSourceFile
+import compiler.parser.SourceFileParseCache
+import compiler.parser.grammar.rule.MatchingResult
+import io.github.tmarsteel.emerge.common.CanonicalElementName
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.collections.shouldHaveSize
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeInstanceOf
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import io.kotest.matchers.types.shouldNotBeSameInstanceAs
+
+class SourceFileParseCacheTest : FreeSpec({
+    val packageName = CanonicalElementName.Package(listOf("testmodule"))
+
+    fun SourceFileParseCache.parse(content: String): ASTSourceFile {
+        return getOrParse(MemoryLexerSourceFile("code.em", packageName, content))
+            .shouldBeInstanceOf<MatchingResult.Success<ASTSourceFile>>()
+            .item
+    }
+
+    "unchanged file is not parsed again" {
+        val cache = SourceFileParseCache()
+        val first = cache.parse("package testmodule\nfn foo() {}\n")
+        val second = cache.parse("package testmodule\nfn foo() {}\n")
+
+        second shouldBeSameInstanceAs first
+    }
+
+    "changed file is parsed again" {
+        val cache = SourceFileParseCache()
+        val first = cache.parse("package testmodule\nfn foo() {}\n")
+        val second = cache.parse("package testmodule\nfn bar() {}\n")
+
+        second shouldNotBeSameInstanceAs first
+        second.functions.single().name.value shouldBe "bar"
+    }
+
+    "file with the same content in another package is parsed again" {
+        val cache = SourceFileParseCache()
+        val first = cache.getOrParse(MemoryLexerSourceFile("code.em", packageName, "fn foo() {}\n"))
+        val second = cache.getOrParse(MemoryLexerSourceFile("code.em", CanonicalElementName.Package(listOf("other")), "fn foo() {}\n"))
+
+        second shouldNotBeSameInstanceAs first
+    }
+
+    "a changed file replaces its previous entry" {
+        val cache = SourceFileParseCache()
+        cache.parse("package testmodule\nfn foo() {}\n")
+        cache.parse("package testmodule\nfn bar() {}\n")
+
+        cache.size shouldBe 1
+    }
+
+    "retainOnly evicts files that are not part of the compilation anymore" {
+        val cache = SourceFileParseCache()
+        val kept = MemoryLexerSourceFile("kept.em", packageName, "package testmodule\nfn foo() {}\n")
+        val first = cache.getOrParse(kept)
+        cache.getOrParse(MemoryLexerSourceFile("deleted.em", packageName, "package testmodule\nfn bar() {}\n"))
+
+        cache.retainOnly(listOf(kept))
+
+        cache.size shouldBe 1
+        cache.getOrParse(kept) shouldBeSameInstanceAs first
+    }
+
+    "findings from binding a cached file are reported once per binding" {
+        val ast = SourceFileParseCache().parse("package wrongpackage\nfn foo() {}\n")
+
+        repeat(2) {
+            val swCtx = emptySoftwareContext(validate = false)
+            swCtx.registerModule(packageName, emptySet()).addSourceFile(ast)
+            val diagnosis = CollectingDiagnosis()
+            swCtx.doSemanticAnalysis(diagnosis)
+
+            diagnosis.findings.filterIsInstance<IncorrectPackageDeclarationDiagnostic>() shouldHaveSize 1
+        }
+    }
+})
@@ -0,0 +1,94 @@
+package compiler.compiler.stdlib
+
+import compiler.compiler.negative.namesOfInvokedFunctions
+import compiler.compiler.negative.shouldHaveNoDiagnostics
+import compiler.compiler.negative.validateModule
+import io.github.tmarsteel.emerge.common.CanonicalElementName
+import io.github.tmarsteel.emerge.common.EmergeConstants
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.inspectors.forAll
+import io.kotest.matchers.collections.shouldContain
+
+class HashMapTests : FreeSpec({
+    "slots are chosen from mixed hash codes" {
+        val hashMap = validateModule("")
+            .shouldHaveNoDiagnostics()
+            .first
+            .toBackendIr()
+            .modules
+            .single { it.name == EmergeConstants.StdModule.NAME }
+            .packages
+            .single { it.name == CanonicalElementName.Package(listOf("emerge", "std", "collections")) }
+            .classes
+            .single { it.canonicalName.simpleName == "HashMap" }
+
+        listOf("get", "containsKey", "put", "remove").forAll { fnName ->
+            hashMap.memberFunctions
+                .single { it.canonicalName.simpleName == fnName }
+                .overloads
+                .single()
+                .namesOfInvokedFunctions() shouldContain "mixHash"
+        }
+    }
+
+    "colliding and strided keys" {
+        validateModule("""
+            import emerge.std.Hashable
+            import emerge.std.collections.HashMap
+
+            class CollidingKey : Hashable {
+                n: UWord = init
+
+                override fn hashCode(self) -> UWord = 42
+
+                override fn hashEquals(self, borrow other: read Hashable) -> Bool {
+                    otherKey = other as? CollidingKey ?: return false
+                    return self.n == otherKey.n
+                }
+            }
+
+            fn collidingKeysAreDistinguished() -> Bool {
+                map: mut _ = HashMap::<CollidingKey, UWord>()
+                var n: UWord = 0
+                while n < 64 {
+                    map.put(CollidingKey(n), n)
+                    set n = n + 1
+                }
+
+                set n = 0
+                while n < 64 {
+                    value = map.get(CollidingKey(n)) ?: return false
+                    if value != n {
+                        return false
+                    }
+                    set n = n + 1
+                }
+
+                return map.size == 64
+            }
+
+            fn stridedKeysAreFound() -> Bool {
+                map: mut _ = HashMap::<UWord, UWord>()
+                var n: UWord = 0
+                while n < 256 {
+                    map.put(n * 4096, n)
+                    set n = n + 1
+                }
+
+                set n = 0
+                while n < 256 {
+                    if not map.containsKey(n * 4096) {
+                        return false
+                    }
+                    if map.containsKey(n * 4096 + 8) {
+                        return false
+                    }
+                    set n = n + 1
+                }
+
+                return map.size == 256
+            }
+        """.trimIndent())
+            .shouldHaveNoDiagnostics()
+    }
+})
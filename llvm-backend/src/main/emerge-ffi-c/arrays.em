@@ -2,3 +2,15 @@ package emerge.ffi.c
 
 export intrinsic nothrow fn addressOfFirst(self: read Array<out read Any?>) -> COpaquePointer
 
+// @return the address of the byte at [index] in the array; panics if [index] is out of bounds
+export intrinsic nothrow fn addressOfByte(self: read Array<out S8>, index: UWord) -> COpaquePointer
+
+// @return the address of the first byte of the slice; valid only as long as the slice is kept alive.
+// Not named addressOfFirst because intrinsics are looked up by name, so it cannot be an overload of that.
+export nothrow fn startAddress(self: read ArraySlice<out S8>) -> COpaquePointer {
+    if self.size == 0 {
+        return self.base.addressOfFirst()
+    }
+
+    return self.base.addressOfByte(self.offset)
+}
@@ -3,7 +3,8 @@ package emerge.platform
 import emerge.std.io.PrintStream
 import emerge.linux.libc.write
 import emerge.linux.libc.getErrno
-import emerge.ffi.c.addressOfFirst
+import emerge.ffi.c.addressOfByte
+import emerge.core.ArrayIndexOutOfBoundsError
 import emerge.ffi.c.COpaquePointer
 import emerge.std.io.IOException
 import emerge.std.collections.ArrayList
@@ -15,22 +16,22 @@ class FileDescriptorPrintStream : PrintStream {
     private fd: S32 = init
     
     override fn put(self: mut _, str: String) {
-        var bufToWrite: read Array<S8> = str.utf8Data
-        while true {
-            writeResult = pureWrite(self.fd, bufToWrite.addressOfFirst(), bufToWrite.size)
+        self.putUtf8(str.utf8Data, str.utf8Data.size)
+    }
+
+    override fn putUtf8(self: mut _, borrow utf8Data: read Array<S8>, nBytes: UWord) {
+        if nBytes > utf8Data.size {
+            throw ArrayIndexOutOfBoundsError(nBytes)
+        }
+
+        var offset: UWord = 0
+        while offset < nBytes {
+            writeResult = pureWrite(self.fd, utf8Data.addressOfByte(offset), nBytes - offset)
             if writeResult <= 0 {
                 throw WriteFailedException(getErrno())
             }
-            
-            nBytesWritten = writeResult.asUWord()
-            if nBytesWritten >= bufToWrite.size {
-                break
-            }
-            
-            // workaround until there are array slices / pointer arithmetic
-            newBuf: mut _ = Array.new::<S8>(bufToWrite.size - nBytesWritten, 0 as S8)
-            Array.copy(bufToWrite, nBytesWritten, newBuf, 0, newBuf.size)
-            set bufToWrite = newBuf
+
+            set offset = offset + writeResult.asUWord()
         }
     }
     
@@ -13,7 +13,7 @@ read fn collectStackTrace(nFramesToSkip: U32, includeRuntimeFrames: Bool) -> exc
     // are being called. They need to be called from the same stack frame. Additionally, when a function
     // returns, any unwind cursor has to have been unwound past that stackframe, otherwise unwinding will be UB
 
-    stackList: exclusive _ = ArrayList::<const StackTraceElement>()
+    stackList: exclusive _ = ArrayList::<const StackTraceElement>(0)
     var contextBuffer = Array.new::<S8>(unwind_context_size(), 0 as S8)
     var errorCode = unw_getcontext(contextBuffer.addressOfFirst())
     if errorCode != UNWIND_ERROR_SUCCESS {
@@ -167,6 +167,9 @@ public class Llvm {
             @NotNull LlvmMetadataRef value
     );
 
+    /** see Core.h */
+    public static native @NotNull LlvmMessage LLVMPrintModuleToString(@NotNull LlvmModuleRef module);
+
     /** see Core.h */
     public static native @LlvmBool int LLVMPrintModuleToFile(LlvmModuleRef module, String filename, @Out PointerByReference errorMessage);
 
@@ -211,6 +214,9 @@ public class Llvm {
     /** see Core.h */
     public static native void LLVMSetLinkage(@NotNull LlvmValueRef globalVar, @NotNull LlvmLinkage linkage);
 
+    /** see Core.h */
+    public static native void LLVMSetGlobalConstant(@NotNull LlvmValueRef globalVar, @LlvmBool int isConstant);
+
     /** see Core.h */
     public static native void LLVMSetThreadLocalMode(@NotNull LlvmValueRef globalVar, @NotNull LlvmThreadLocalMode mode);
 
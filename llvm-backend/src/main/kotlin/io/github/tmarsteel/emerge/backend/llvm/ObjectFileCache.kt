@@ -0,0 +1,107 @@
+package io.github.tmarsteel.emerge.backend.llvm
+
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.FileTime
+import java.security.MessageDigest
+import java.util.HexFormat
+import kotlin.io.path.createDirectories
+import kotlin.io.path.deleteIfExists
+import kotlin.io.path.exists
+import kotlin.io.path.getLastModifiedTime
+import kotlin.io.path.inputStream
+import kotlin.io.path.listDirectoryEntries
+import kotlin.io.path.moveTo
+import kotlin.io.path.setLastModifiedTime
+
+/**
+ * Keeps the object files compiled from LLVM bitcode, keyed by a hash of the bitcode and of [toolchainIdentity].
+ * Compiling to machine code is the most expensive step of the backend. The bitcode is split into partitions
+ * that are compiled one by one (see [io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmSplitter]), so after a
+ * change most of them come from this cache.
+ *
+ * Writes outside of the output directory of the build, so this is only used if a directory is configured
+ * explicitly; see [io.github.tmarsteel.emerge.backend.llvm.linux_x86_64.Linux_x68_64_Backend.ProjectConfig.objectFileCacheDirectory].
+ * Multiple processes can share the same [directory].
+ *
+ * @param directory where to keep the object files. Should be outside of any build output directory, so that the
+ * cache survives cleaning the build and can be shared by multiple projects.
+ * @param toolchainIdentity identifies the compiler, its version and the flags it is invoked with; object files
+ * compiled with a different toolchain are never re-used. See [io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmCompiler.describeToolchain]
+ * @param maxEntries the number of object files to keep; the least recently used ones are deleted first
+ */
+class ObjectFileCache(
+    private val directory: Path,
+    private val toolchainIdentity: String,
+    private val maxEntries: Int = 1024,
+) {
+    init {
+        require(maxEntries > 0)
+    }
+
+    /**
+     * @param compile compiles [bitcodeFile] to the object file at the given path. Is only invoked if there is no
+     * cached object file for the exact contents of [bitcodeFile] and the [toolchainIdentity].
+     * @return the object file compiled from [bitcodeFile]; null if the [directory] is not usable, in which case
+     * [compile] has not been invoked.
+     */
+    fun getOrCompile(bitcodeFile: Path, compile: (objectFile: Path) -> Unit): Path? {
+        val hash = hashOf(bitcodeFile)
+        val cachedObjectFile = directory.resolve("$hash.o")
+        val incompleteObjectFile = try {
+            directory.createDirectories()
+            if (cachedObjectFile.exists()) {
+                cachedObjectFile.setLastModifiedTime(FileTime.fromMillis(System.currentTimeMillis()))
+                return cachedObjectFile
+            }
+
+            // compile to a temporary file first so that an aborted compilation doesn't leave a broken cache entry.
+            // The name must be unique because other processes may be compiling the same bitcode into this directory
+            Files.createTempFile(directory, hash, ".o.incomplete")
+        } catch (ex: IOException) {
+            return null
+        }
+
+        try {
+            compile(incompleteObjectFile)
+            incompleteObjectFile.moveTo(cachedObjectFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING)
+        } finally {
+            incompleteObjectFile.deleteIfExists()
+        }
+
+        evictLeastRecentlyUsed()
+        return cachedObjectFile
+    }
+
+    private fun evictLeastRecentlyUsed() {
+        try {
+            directory.listDirectoryEntries("*.o")
+                .map { it to it.getLastModifiedTime() }
+                .sortedByDescending { (_, lastModified) -> lastModified }
+                .drop(maxEntries)
+                .forEach { (objectFile, _) -> objectFile.deleteIfExists() }
+        } catch (ex: IOException) {
+            // another process is evicting at the same time; one of them is enough
+        }
+    }
+
+    private fun hashOf(file: Path): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+        digest.update(toolchainIdentity.toByteArray(Charsets.UTF_8))
+        digest.update(0)
+        file.inputStream().use { inStream ->
+            val buffer = ByteArray(DEFAULT_BUFFER_SIZE)
+            while (true) {
+                val nBytesRead = inStream.read(buffer)
+                if (nBytesRead < 0) {
+                    break
+                }
+                digest.update(buffer, 0, nBytesRead)
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest())
+    }
+}
@@ -74,14 +74,6 @@ import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmVoidType
 import io.github.tmarsteel.emerge.backend.llvm.dsl.PhiBucket
 import io.github.tmarsteel.emerge.backend.llvm.dsl.buildConstantIn
 import io.github.tmarsteel.emerge.backend.llvm.dsl.i1
-import io.github.tmarsteel.emerge.backend.llvm.dsl.s16
-import io.github.tmarsteel.emerge.backend.llvm.dsl.s32
-import io.github.tmarsteel.emerge.backend.llvm.dsl.s64
-import io.github.tmarsteel.emerge.backend.llvm.dsl.s8
-import io.github.tmarsteel.emerge.backend.llvm.dsl.u16
-import io.github.tmarsteel.emerge.backend.llvm.dsl.u32
-import io.github.tmarsteel.emerge.backend.llvm.dsl.u64
-import io.github.tmarsteel.emerge.backend.llvm.dsl.u8
 import io.github.tmarsteel.emerge.backend.llvm.emitBreak
 import io.github.tmarsteel.emerge.backend.llvm.emitContinue
 import io.github.tmarsteel.emerge.backend.llvm.hasNothrowAbi
@@ -128,7 +120,6 @@ import io.github.tmarsteel.emerge.backend.llvm.intrinsics.arraySize
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.getDynamicCallAddress
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.inlinePanic
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.registerWeakReference
-import io.github.tmarsteel.emerge.backend.llvm.intrinsics.sWord
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.uWord
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.unregisterWeakReference
 import io.github.tmarsteel.emerge.backend.llvm.isUnit
@@ -654,19 +645,7 @@ internal fun BasicBlockBuilder<EmergeLlvmContext, LlvmType>.emitExpressionCode(
             return ExpressionResult.Value(autoboxedReturnValue)
         }
         is IrVariableAccessExpression -> return ExpressionResult.Value(expression.variable.emitRead!!())
-        is IrIntegerLiteralExpression -> return ExpressionResult.Value(when ((expression.evaluatesTo as IrSimpleType).baseType.canonicalName) {
-            EmergeConstants.CoreModule.S8_TYPE_NAME -> context.s8(expression.value.byteValueExact())
-            EmergeConstants.CoreModule.U8_TYPE_NAME -> context.u8(expression.value.shortValueExact().toUByte())
-            EmergeConstants.CoreModule.S16_TYPE_NAME -> context.s16(expression.value.shortValueExact())
-            EmergeConstants.CoreModule.U16_TYPE_NAME -> context.u16(expression.value.intValueExact().toUShort())
-            EmergeConstants.CoreModule.S32_TYPE_NAME -> context.s32(expression.value.intValueExact())
-            EmergeConstants.CoreModule.U32_TYPE_NAME -> context.u32(expression.value.longValueExact().toUInt())
-            EmergeConstants.CoreModule.S64_TYPE_NAME -> context.s64(expression.value.longValueExact())
-            EmergeConstants.CoreModule.U64_TYPE_NAME -> context.u64(expression.value.toLong().toULong())
-            EmergeConstants.CoreModule.SWORD_TYPE_NAME -> context.sWord(expression.value.longValueExact())
-            EmergeConstants.CoreModule.UWORD_TYPE_NAME -> context.uWord(expression.value.toLong().toULong())
-            else -> throw CodeGenerationException("Unsupported integer literal type ${expression.evaluatesTo}")
-        })
+        is IrIntegerLiteralExpression -> return ExpressionResult.Value(context.integerLiteral(expression))
         is IrBooleanLiteralExpression -> return ExpressionResult.Value(context.i1(expression.value))
         is IrNullLiteralExpression -> return ExpressionResult.Value(context.nullValue(context.getReferenceSiteType(expression.evaluatesTo)))
         is IrNullInitializedArrayExpression -> {
@@ -0,0 +1,147 @@
+package io.github.tmarsteel.emerge.backend.llvm.codegen
+
+import io.github.tmarsteel.emerge.backend.api.CodeGenerationException
+import io.github.tmarsteel.emerge.backend.api.ir.IrBooleanLiteralExpression
+import io.github.tmarsteel.emerge.backend.api.ir.IrCreateStrongReferenceStatement
+import io.github.tmarsteel.emerge.backend.api.ir.IrCreateTemporaryValue
+import io.github.tmarsteel.emerge.backend.api.ir.IrDropStrongReferenceStatement
+import io.github.tmarsteel.emerge.backend.api.ir.IrExecutable
+import io.github.tmarsteel.emerge.backend.api.ir.IrExpression
+import io.github.tmarsteel.emerge.backend.api.ir.IrImplicitEvaluationExpression
+import io.github.tmarsteel.emerge.backend.api.ir.IrIntegerLiteralExpression
+import io.github.tmarsteel.emerge.backend.api.ir.IrNullLiteralExpression
+import io.github.tmarsteel.emerge.backend.api.ir.IrSimpleType
+import io.github.tmarsteel.emerge.backend.api.ir.IrStaticDispatchFunctionInvocationExpression
+import io.github.tmarsteel.emerge.backend.api.ir.IrStringLiteralExpression
+import io.github.tmarsteel.emerge.backend.api.ir.IrType
+import io.github.tmarsteel.emerge.backend.api.ir.IrUpdateSourceLocationStatement
+import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmValue
+import io.github.tmarsteel.emerge.backend.llvm.dsl.i1
+import io.github.tmarsteel.emerge.backend.llvm.dsl.s16
+import io.github.tmarsteel.emerge.backend.llvm.dsl.s32
+import io.github.tmarsteel.emerge.backend.llvm.dsl.s64
+import io.github.tmarsteel.emerge.backend.llvm.dsl.s8
+import io.github.tmarsteel.emerge.backend.llvm.dsl.u16
+import io.github.tmarsteel.emerge.backend.llvm.dsl.u32
+import io.github.tmarsteel.emerge.backend.llvm.dsl.u64
+import io.github.tmarsteel.emerge.backend.llvm.dsl.u8
+import io.github.tmarsteel.emerge.backend.llvm.intrinsics.EmergeLlvmContext
+import io.github.tmarsteel.emerge.backend.llvm.intrinsics.sWord
+import io.github.tmarsteel.emerge.backend.llvm.intrinsics.uWord
+import io.github.tmarsteel.emerge.common.EmergeConstants
+import java.math.BigInteger
+import java.util.IdentityHashMap
+
+internal fun EmergeLlvmContext.integerLiteral(expression: IrIntegerLiteralExpression): LlvmValue<*> {
+    return when ((expression.evaluatesTo as IrSimpleType).baseType.canonicalName) {
+        EmergeConstants.CoreModule.S8_TYPE_NAME -> s8(expression.value.byteValueExact())
+        EmergeConstants.CoreModule.U8_TYPE_NAME -> u8(expression.value.shortValueExact().toUByte())
+        EmergeConstants.CoreModule.S16_TYPE_NAME -> s16(expression.value.shortValueExact())
+        EmergeConstants.CoreModule.U16_TYPE_NAME -> u16(expression.value.intValueExact().toUShort())
+        EmergeConstants.CoreModule.S32_TYPE_NAME -> s32(expression.value.intValueExact())
+        EmergeConstants.CoreModule.U32_TYPE_NAME -> u32(expression.value.longValueExact().toUInt())
+        EmergeConstants.CoreModule.S64_TYPE_NAME -> s64(expression.value.longValueExact())
+        EmergeConstants.CoreModule.U64_TYPE_NAME -> u64(expression.value.toLong().toULong())
+        EmergeConstants.CoreModule.SWORD_TYPE_NAME -> sWord(expression.value.longValueExact())
+        EmergeConstants.CoreModule.UWORD_TYPE_NAME -> uWord(expression.value.toLong().toULong())
+        else -> throw CodeGenerationException("Unsupported integer literal type ${expression.evaluatesTo}")
+    }
+}
+
+/**
+ * Evaluates [expression] at compile time, if that is possible without changing semantics. This is the case
+ * for literals and for `nothrow` operations on literals that are known to have no side effects (e.g. `-1`).
+ *
+ * @return the value of [expression] as an LLVM constant, or `null` if [expression] has to be evaluated at runtime
+ */
+internal fun EmergeLlvmContext.tryEvaluateAtCompileTime(expression: IrExpression): LlvmValue<*>? {
+    return when (val literal = foldToLiteral(expression, IdentityHashMap())) {
+        is IrIntegerLiteralExpression -> integerLiteral(literal)
+        is IrBooleanLiteralExpression -> i1(literal.value)
+        is IrNullLiteralExpression -> nullValue(getReferenceSiteType(literal.evaluatesTo))
+        is IrStringLiteralExpression -> emergeStringLiteral(literal.utf8Bytes)
+        else -> null
+    }
+}
+
+/**
+ * @param temporaries the literal values of the temporaries that have been folded so far
+ * @return a literal expression that is equivalent to [expression], or `null` if there is none
+ */
+private fun foldToLiteral(expression: IrExpression, temporaries: MutableMap<IrCreateTemporaryValue, IrExpression>): IrExpression? {
+    return when (expression) {
+        is IrIntegerLiteralExpression,
+        is IrBooleanLiteralExpression,
+        is IrNullLiteralExpression,
+        is IrStringLiteralExpression -> expression
+        is IrImplicitEvaluationExpression -> {
+            if (!expression.code.components.all { foldSideEffectFree(it, temporaries) }) {
+                return null
+            }
+            temporaries[expression.implicitValue.declaration]
+        }
+        is IrStaticDispatchFunctionInvocationExpression -> foldInvocation(expression, temporaries)
+        else -> null
+    }
+}
+
+/**
+ * @return whether [executable] has no effect other than defining a temporary, the value of which is then
+ * put into [temporaries].
+ */
+private fun foldSideEffectFree(executable: IrExecutable, temporaries: MutableMap<IrCreateTemporaryValue, IrExpression>): Boolean {
+    return when (executable) {
+        is IrCreateTemporaryValue -> {
+            val value = foldToLiteral(executable.value, temporaries) ?: return false
+            temporaries[executable] = value
+            true
+        }
+        is IrCreateStrongReferenceStatement -> temporaries[executable.reference].isReferenceCountingIrrelevant
+        is IrDropStrongReferenceStatement -> temporaries[executable.reference.declaration].isReferenceCountingIrrelevant
+        is IrUpdateSourceLocationStatement -> true
+        else -> false
+    }
+}
+
+/**
+ * Reference counting is a noop on value types and on `null`. String literals are static objects; their finalizer
+ * is a noop, so the reference count doesn't matter either. Anything else is left to the runtime.
+ */
+private val IrExpression?.isReferenceCountingIrrelevant: Boolean
+    get() = this is IrIntegerLiteralExpression ||
+        this is IrBooleanLiteralExpression ||
+        this is IrNullLiteralExpression ||
+        this is IrStringLiteralExpression
+
+private fun foldInvocation(invocation: IrStaticDispatchFunctionInvocationExpression, temporaries: Map<IrCreateTemporaryValue, IrExpression>): IrExpression? {
+    if (invocation.landingpad != null || !invocation.function.isNothrow) {
+        return null
+    }
+
+    val functionName = invocation.function.canonicalName
+    if (functionName.simpleName != "unaryMinus" || functionName.parent !in SIGNED_INTEGER_TYPE_NAMES) {
+        return null
+    }
+
+    val argument = invocation.arguments.singleOrNull() ?: return null
+    val operand = temporaries[argument.declaration] as? IrIntegerLiteralExpression ?: return null
+    if (operand.value.signum() < 0) {
+        // negating the minimum value wraps around; not worth replicating here
+        return null
+    }
+
+    return FoldedIntegerLiteralExpression(operand.value.negate(), invocation.evaluatesTo)
+}
+
+private val SIGNED_INTEGER_TYPE_NAMES = setOf(
+    EmergeConstants.CoreModule.S8_TYPE_NAME,
+    EmergeConstants.CoreModule.S16_TYPE_NAME,
+    EmergeConstants.CoreModule.S32_TYPE_NAME,
+    EmergeConstants.CoreModule.S64_TYPE_NAME,
+    EmergeConstants.CoreModule.SWORD_TYPE_NAME,
+)
+
+private class FoldedIntegerLiteralExpression(
+    override val value: BigInteger,
+    override val evaluatesTo: IrType,
+) : IrIntegerLiteralExpression
@@ -3,6 +3,7 @@ package io.github.tmarsteel.emerge.backend.llvm.dsl
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.EmergeLlvmContext
 import io.github.tmarsteel.emerge.backend.llvm.jna.Llvm
 import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmDwarfEmissionKind
+import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmLinkage
 import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmValueRef
 import io.github.tmarsteel.emerge.common.CanonicalElementName
 import java.nio.file.Path
@@ -25,6 +26,9 @@ class KotlinLlvmFunction<C : LlvmContext, R : LlvmType> private constructor(
         val functionRaw = Llvm.LLVMAddFunction(context.module, name, functionType.getRawInContext(context))
         val function = LlvmFunction(LlvmConstant(functionRaw, LlvmFunctionAddressType), functionType)
         definitionReceiver.attributes.forEach(function::addAttributeToFunction)
+        if (!definitionReceiver.isExternallyVisible) {
+            Llvm.LLVMSetLinkage(functionRaw, LlvmLinkage.INTERNAL)
+        }
         return DeclaredInContextImpl(
             context,
             name,
@@ -60,6 +64,12 @@ class KotlinLlvmFunction<C : LlvmContext, R : LlvmType> private constructor(
         fun <T : LlvmType> param(type: T): ParameterDelegate<T>
         fun body(build: CodeGenerator<C, R>)
         fun functionAttribute(attribute: LlvmFunctionAttribute)
+
+        /**
+         * Functions defined this way have internal linkage, unless this is called: for the few that code outside
+         * the module refers to by their symbol name, e.g. the entrypoint.
+         */
+        fun externallyVisible()
     }
 
     companion object {
@@ -105,6 +115,8 @@ private class DefinitionReceiverImpl<C : LlvmContext, R : LlvmType> : KotlinLlvm
     private var state = State.PRELUDE
     val parameters = ArrayList<ParameterDelegateImpl<*>>()
     val attributes = ArrayList<LlvmFunctionAttribute>()
+    var isExternallyVisible = false
+        private set
 
     lateinit var bodyGenerator: CodeGenerator<C, R>
         private set
@@ -131,6 +143,13 @@ private class DefinitionReceiverImpl<C : LlvmContext, R : LlvmType> : KotlinLlvm
         attributes.add(attribute)
     }
 
+    override fun externallyVisible() {
+        check(state == State.PRELUDE) {
+            "Cannot change the visibility after defining the body"
+        }
+        isExternallyVisible = true
+    }
+
     private enum class State {
         PRELUDE,
         BODY_KNOWN,
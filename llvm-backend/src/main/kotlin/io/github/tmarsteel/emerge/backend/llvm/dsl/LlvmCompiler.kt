@@ -24,16 +24,8 @@ class LlvmCompiler(private val llcBinary: Path) {
         val command = mutableListOf(
             llcBinary.toString(),
             "-o", output.toString(),
-            "--relocation-model", relocationModel.llcName,
-            "--filetype", outputType.llcName,
-            "-O", "${optimizationLevel.numeric}"
         )
-
-        if (codeModel.llcName != null) {
-            command += "--code-model"
-            command += codeModel.llcName
-        }
-
+        command += flags(codeModel, relocationModel, outputType, optimizationLevel)
         command += "--"
         command += input.toString()
 
@@ -48,6 +40,49 @@ class LlvmCompiler(private val llcBinary: Path) {
         )
     }
 
+    /**
+     * Identifies the output of [compileBitcodeFile] for the given parameters, apart from the input: the `llc` binary,
+     * its version and the command line flags. For keying caches of compiled code.
+     */
+    fun describeToolchain(
+        codeModel: LlvmCodeModel = LlvmCodeModel.SMALL,
+        relocationModel: LlvmRelocMode = LlvmRelocMode.POSITION_INDEPENDENT,
+        outputType: OutputType = OutputType.OBJECT_FILE,
+        optimizationLevel: LlvmCodeGenOptModel = LlvmCodeGenOptModel.DEFAULT,
+    ): String {
+        return listOf(llcBinary.toAbsolutePath().toString(), version)
+            .plus(flags(codeModel, relocationModel, outputType, optimizationLevel))
+            .joinToString(separator = "\n")
+    }
+
+    private val version: String by lazy {
+        val result = runSyncCapturing(listOf(llcBinary.toString(), "--version"))
+        if (result.exitCode != 0) {
+            throw LlvmCompilerException("Could not determine the version of $llcBinary:\n" + result.standardErrorAsString(), result.exitCode)
+        }
+        String(result.standardOut.array(), result.standardOut.position(), result.standardOut.limit())
+    }
+
+    private fun flags(
+        codeModel: LlvmCodeModel,
+        relocationModel: LlvmRelocMode,
+        outputType: OutputType,
+        optimizationLevel: LlvmCodeGenOptModel,
+    ): List<String> {
+        val flags = mutableListOf(
+            "--relocation-model", relocationModel.llcName,
+            "--filetype", outputType.llcName,
+            "-O", "${optimizationLevel.numeric}"
+        )
+
+        if (codeModel.llcName != null) {
+            flags += "--code-model"
+            flags += codeModel.llcName
+        }
+
+        return flags
+    }
+
     companion object {
         fun fromLlvmInstallationDirectory(llvmInstallationDirectory: Path): LlvmCompiler {
             return LlvmCompiler(
@@ -7,6 +7,8 @@ import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmMetadataRef
 import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmModuleFlagBehavior
 import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmThreadLocalMode
 import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmUnnamedAddr
+import java.security.MessageDigest
+import java.util.HexFormat
 
 open class LlvmContext(val target: LlvmTarget) : AutoCloseable {
     val ref = Llvm.LLVMContextCreate()
@@ -19,7 +21,6 @@ open class LlvmContext(val target: LlvmTarget) : AutoCloseable {
         Llvm.LLVMSetModuleDataLayout(module, targetData.ref)
     }
     val rawPointer = Llvm.LLVMPointerTypeInContext(ref, 0)
-    val globalsScope = NameScope("global")
 
     fun <T : LlvmType> nullValue(type: T): LlvmConstant<T> = LlvmConstant(
         Llvm.LLVMConstNull(type.getRawInContext(this)),
@@ -36,6 +37,12 @@ open class LlvmContext(val target: LlvmTarget) : AutoCloseable {
         type,
     )
 
+    /**
+     * @param name the symbol name of the global. If null, the name is derived from [initialValue], so that it
+     * doesn't depend on the order in which the globals are added. That keeps the bitcode partitions
+     * that don't use the global unchanged when another global is added or removed, see
+     * [LlvmSplitter].
+     */
     fun <T : LlvmType> addGlobal(
         initialValue: LlvmConstant<T>,
         mode: LlvmThreadLocalMode,
@@ -44,7 +51,7 @@ open class LlvmContext(val target: LlvmTarget) : AutoCloseable {
         val rawRef = Llvm.LLVMAddGlobal(
             module,
             initialValue.type.getRawInContext(this),
-            name ?: globalsScope.next(),
+            name ?: contentDerivedName(initialValue),
         )
         val allocation = LlvmGlobal(rawRef, initialValue.type)
         Llvm.LLVMSetThreadLocalMode(rawRef, mode)
@@ -54,6 +61,17 @@ open class LlvmContext(val target: LlvmTarget) : AutoCloseable {
         return allocation
     }
 
+    /**
+     * The initializer as printed by LLVM refers to other globals and to functions by their names, which are
+     * content-derived or canonical themselves. Globals with identical initializers get the same name here;
+     * LLVM then makes them unique with a numeric suffix.
+     */
+    private fun contentDerivedName(initialValue: LlvmConstant<*>): String {
+        val printed = Llvm.LLVMPrintValueToString(initialValue.raw)?.value ?: ""
+        val digest = MessageDigest.getInstance("SHA-256").digest(printed.toByteArray(Charsets.UTF_8))
+        return "const." + HexFormat.of().formatHex(digest, 0, 8)
+    }
+
     fun addModuleFlag(behavior: LlvmModuleFlagBehavior, id: String, value: LlvmMetadataRef) {
         val idBytes = id.toByteArray(Charsets.UTF_8)
         Llvm.LLVMAddModuleFlag(module, behavior, idBytes, NativeLong(idBytes.size.toLong()), value)
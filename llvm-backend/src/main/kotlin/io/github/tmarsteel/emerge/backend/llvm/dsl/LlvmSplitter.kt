@@ -0,0 +1,42 @@
+package io.github.tmarsteel.emerge.backend.llvm.dsl
+
+import io.github.tmarsteel.emerge.backend.api.CodeGenerationException
+import io.github.tmarsteel.emerge.backend.llvm.ToolDiscoverer
+import io.github.tmarsteel.emerge.backend.llvm.runSyncCapturing
+import java.nio.file.Path
+
+/**
+ * A convenient way around invoking `llvm-split`, which is not available through the C interface.
+ * Splitting distributes the functions and globals of a module among the partitions by a hash of their names,
+ * so a change to one function leaves most of the partitions untouched and they can be compiled independently.
+ */
+class LlvmSplitter(private val llvmSplitBinary: Path) {
+    /**
+     * @return the paths of the [nPartitions] bitcode files [input] was split into
+     */
+    fun splitBitcodeFile(input: Path, outputPrefix: Path, nPartitions: Int): List<Path> {
+        require(nPartitions > 0)
+        val command = listOf(
+            llvmSplitBinary.toString(),
+            "-j", nPartitions.toString(),
+            "-o", outputPrefix.toString(),
+            "--",
+            input.toString(),
+        )
+
+        val result = runSyncCapturing(command)
+        if (result.exitCode != 0) {
+            throw CodeGenerationException("llvm-split command: $command\nError:\n" + result.standardErrorAsString())
+        }
+
+        return (0 until nPartitions).map { outputPrefix.resolveSibling("${outputPrefix.fileName}$it") }
+    }
+
+    companion object {
+        fun fromLlvmInstallationDirectory(llvmInstallationDirectory: Path): LlvmSplitter {
+            return LlvmSplitter(
+                ToolDiscoverer.INSTANCE.discover(llvmInstallationDirectory.resolve("bin").resolve("llvm-split").toString(), "llvm-split-20")
+            )
+        }
+    }
+}
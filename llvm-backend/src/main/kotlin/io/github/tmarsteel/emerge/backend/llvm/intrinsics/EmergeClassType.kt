@@ -25,6 +25,7 @@ import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmValue
 import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmVoidType
 import io.github.tmarsteel.emerge.backend.llvm.dsl.buildConstantIn
 import io.github.tmarsteel.emerge.backend.llvm.dsl.s32
+import io.github.tmarsteel.emerge.backend.llvm.dsl.u32
 import io.github.tmarsteel.emerge.backend.llvm.indexInLlvmStruct
 import io.github.tmarsteel.emerge.backend.llvm.isCPointerPointed
 import io.github.tmarsteel.emerge.backend.llvm.jna.Llvm
@@ -298,23 +299,32 @@ internal class EmergeInterfaceTypeinfoHolder(
             val canonicalName = emergeInterface.canonicalName.toString()
             val namePtr = context.emergeStringLiteral(canonicalName)
 
+            val supertypeGlobals = emergeInterface.allDistinctSupertypesExceptAny.map {
+                it.typeinfoHolder.getTypeinfoInContext(context)
+            }
             val tArrayOfTypeinfoPtr = PointerToEmergeArrayOfPointersToTypeInfoType.pointed
             val supertypesArrayPtr = context.addGlobal(
-                tArrayOfTypeinfoPtr.buildConstantIn(context, emergeInterface.allDistinctSupertypesExceptAny) {
-                    it.typeinfoHolder.getTypeinfoInContext(context)
-                },
+                tArrayOfTypeinfoPtr.buildConstantIn(context, supertypeGlobals) { it },
                 LlvmThreadLocalMode.NOT_THREAD_LOCAL,
             ).reinterpretAs(pointerTo(LlvmVoidType))
+            val supertypeIdBitset = context.typeinfoIds.buildSupertypeIdBitset(context, supertypeGlobals)
+
+            val global = context.addGlobal(context.undefValue(TypeinfoType.GENERIC), LlvmThreadLocalMode.NOT_THREAD_LOCAL, "typeinfo_${canonicalName}_interface")
+            val typeId = context.typeinfoIds.assign(global, canonicalName)
 
             val constant = TypeinfoType.GENERIC.buildConstantIn(context) {
                 setValue(TypeinfoType.GENERIC.supertypes, supertypesArrayPtr)
                 setValue(TypeinfoType.GENERIC.anyValueVirtuals, context.poisonValue(EmergeAnyValueVirtualsType))
                 setNull(TypeinfoType.GENERIC.dynamicTypeInfoPtr)
                 setValue(TypeinfoType.GENERIC.canonicalNamePtr, namePtr)
+                setValue(TypeinfoType.GENERIC.typeId, context.u32(typeId))
+                setValue(TypeinfoType.GENERIC.supertypeIdBitsetWordCount, context.u32(supertypeIdBitset.nWords))
+                setValue(TypeinfoType.GENERIC.supertypeIdBitset, supertypeIdBitset.words)
                 setValue(TypeinfoType.GENERIC.vtable, context.poisonValue(VTableType(0)))
             }
+            Llvm.LLVMSetInitializer(global.raw, constant.raw)
 
-            context.addGlobal(constant, LlvmThreadLocalMode.NOT_THREAD_LOCAL, "typeinfo_${canonicalName}_interface")
+            global
         }
     }
 }
\ No newline at end of file
@@ -32,6 +32,7 @@ import io.github.tmarsteel.emerge.backend.llvm.codegen.emitRead
 import io.github.tmarsteel.emerge.backend.llvm.codegen.emitWrite
 import io.github.tmarsteel.emerge.backend.llvm.codegen.findSimpleTypeBound
 import io.github.tmarsteel.emerge.backend.llvm.codegen.sizeof
+import io.github.tmarsteel.emerge.backend.llvm.codegen.tryEvaluateAtCompileTime
 import io.github.tmarsteel.emerge.backend.llvm.dsl.BasicBlockBuilder
 import io.github.tmarsteel.emerge.backend.llvm.dsl.BasicBlockBuilder.Companion.retVoid
 import io.github.tmarsteel.emerge.backend.llvm.dsl.DiBuilder
@@ -60,11 +61,13 @@ import io.github.tmarsteel.emerge.backend.llvm.intrinsics.stdlib.anyReflect
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.stdlib.intrinsicNumberOperations
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.stdlib.isNullBuiltin
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.stdlib.pureWrite
+import io.github.tmarsteel.emerge.backend.llvm.intrinsics.stdlib.reflectionBaseTypeHasInSupertypes
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.stdlib.reflectionBaseTypeIsSameObjectAs
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.stdlib.safemathFns
 import io.github.tmarsteel.emerge.backend.llvm.isNothing
 import io.github.tmarsteel.emerge.backend.llvm.isUnit
 import io.github.tmarsteel.emerge.backend.llvm.jna.Llvm
+import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmLinkage
 import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmModuleFlagBehavior
 import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmThreadLocalMode
 import io.github.tmarsteel.emerge.backend.llvm.jna.NativeI32FlagGroup
@@ -202,6 +205,9 @@ class EmergeLlvmContext(
     internal lateinit var standardErrorStreamGlobalVar: IrGlobalVariable
 
     private val emergeStructs = ArrayList<EmergeClassType>()
+    internal val typeinfoIds = TypeinfoIds().apply {
+        registerPossibleSupertype(EmergeReferenceArrayType.name)
+    }
     private val kotlinLlvmFunctions: MutableMap<KotlinLlvmFunction<in EmergeLlvmContext, *>, KotlinLlvmFunction.DeclaredInContext<in EmergeLlvmContext, *>> = IdentityHashMap()
 
     private var diBuilderCache = IdentityHashMap<IrSourceFile, DiBuilder>()
@@ -214,6 +220,7 @@ class EmergeLlvmContext(
     fun registerBaseType(type: IrBaseType) {
         when (type) {
             is IrInterface -> {
+                typeinfoIds.registerPossibleSupertype(type.canonicalName.toString())
                 when (type.canonicalName.toString()) {
                     "emerge.core.Throwable" -> throwableClazz = type
                 }
@@ -387,6 +394,8 @@ class EmergeLlvmContext(
         fn.llvmRef!!.addAttributeToFunction(LlvmFunctionAttribute.FramePointerAll)
         fn.llvmRef!!.addAttributeToFunction(LlvmFunctionAttribute.UnwindTableAsync)
         fn.llvmRef!!.addAttributeToFunction(LlvmFunctionAttribute.NoUnwind) // emerge doesn't use unwinding as of now
+        // no noalias, readonly or memory(...) attributes, the type system doesn't guarantee what they claim:
+        // read references can coexist with an exclusive one, and even code that only reads writes reference counters
 
         val diBuilder = fn.declaredAt.file.diBuilder
         if (!fn.isExternalC) {
@@ -456,7 +465,7 @@ class EmergeLlvmContext(
         return fn.llvmRef!!
     }
 
-    private val globalVariables = ArrayList<IrGlobalVariable>()
+    private val globalVariables = LinkedHashMap<IrGlobalVariable, LlvmGlobal<LlvmType>>()
     fun registerGlobal(global: IrGlobalVariable) {
         val globalType = getReferenceSiteType(global.declaration.type)
         val allocation = addGlobal(
@@ -473,7 +482,7 @@ class EmergeLlvmContext(
         global.declaration.emitWrite = { newValue ->
             store(newValue, allocation)
         }
-        globalVariables.add(global)
+        globalVariables[global] = allocation
 
         if (global.name.toString() == "emerge.platform.StandardError") {
             standardErrorStreamGlobalVar = global
@@ -514,6 +523,12 @@ class EmergeLlvmContext(
                 }
         }
 
+        if (!fn.isExternalC) {
+            // nothing outside of this module refers to emerge functions by name. Internal linkage allows LLVM to
+            // remove unused functions and to choose the calling convention, see Linux_x68_64_Backend
+            Llvm.LLVMSetLinkage(llvmFunction.address.raw, LlvmLinkage.INTERNAL)
+        }
+
         val diBuilder = fn.declaredAt.file.diBuilder
         BasicBlockBuilder.fillBody(this, llvmFunction, diBuilder, llvmFunction.diFunction!!) {
             if (emitDebugInfo) {
@@ -577,12 +592,16 @@ class EmergeLlvmContext(
             }
         }
 
+        val globalsInitializedAtRuntime = globalVariables
+            .filterNot { (global, allocation) -> initializeAtCompileTime(global, allocation) }
+            .keys
+
         threadInitializerFn = KotlinLlvmFunction.define(
             "_emerge_thread_init",
             EmergeFallibleCallResult.OfVoid,
         ) {
             body {
-                for (global in globalVariables) {
+                for (global in globalsInitializedAtRuntime) {
                     (this as BasicBlockBuilder<EmergeLlvmContext, LlvmType>)
                     val initResult = emitExpressionCode(
                         global.initializer,
@@ -629,6 +648,28 @@ class EmergeLlvmContext(
         diBuilderCache.values.forEach { it.diFinalize() }
     }
 
+    /**
+     * Sets the initializer of [allocation] to the value of [IrGlobalVariable.initializer], if that can be
+     * evaluated at compile time. Globals that are never re-assigned additionally become immutable, shared
+     * by all threads.
+     * @return whether [global] was initialized. If `false`, [threadInitializerFn] has to initialize it at runtime.
+     */
+    private fun initializeAtCompileTime(global: IrGlobalVariable, allocation: LlvmGlobal<LlvmType>): Boolean {
+        val initialValue = tryEvaluateAtCompileTime(global.initializer) ?: return false
+        if (!initialValue.type.isAssignableTo(allocation.type.pointed)) {
+            // e.g. needs boxing
+            return false
+        }
+
+        Llvm.LLVMSetInitializer(allocation.raw, initialValue.raw)
+        if (!global.declaration.isReAssignable) {
+            Llvm.LLVMSetThreadLocalMode(allocation.raw, LlvmThreadLocalMode.NOT_THREAD_LOCAL)
+            Llvm.LLVMSetGlobalConstant(allocation.raw, 1)
+        }
+
+        return true
+    }
+
     override fun close() {
         diBuilderCache.values.forEach { it.close() }
         diBuilderCache.clear()
@@ -790,6 +831,8 @@ private val intrinsicFunctions: Map<String, KotlinLlvmFunction<*, *>> by lazy {
     (
         listOf(
             arrayAddressOfFirst,
+            arrayAddressOfByte,
+            arrayCopyResized,
             arraySize,
             arrayAbstractFallibleGet,
             arrayAbstractFallibleSet,
@@ -804,6 +847,7 @@ private val intrinsicFunctions: Map<String, KotlinLlvmFunction<*, *>> by lazy {
             pureWrite,
             anyReflect,
             reflectionBaseTypeIsSameObjectAs,
+            reflectionBaseTypeHasInSupertypes,
             unitInstance,
             collectStackTrace,
         )
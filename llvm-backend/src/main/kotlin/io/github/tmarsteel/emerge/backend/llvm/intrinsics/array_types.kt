@@ -98,7 +98,7 @@ internal class EmergeArrayType<Element : LlvmType>(
      * A function of the signature nothrow (self: Array<Element>, index: UWord, value: Any) -> Unit, to be placed in the vtable.
      * This is important for arrays of primitives, as this function will do the automatic unboxing (e.g. S8Box -> S8)
      */
-    private val virtualSetterWithPanicBoundsCheck: KotlinLlvmFunction<EmergeLlvmContext, LlvmVoidType>,
+    val virtualSetterWithPanicBoundsCheck: KotlinLlvmFunction<EmergeLlvmContext, LlvmVoidType>,
 
     /**
      * like [virtualGetterWithFallibleBoundsCheck], but doesn't do any boxing; assumes the caller knows the binary types.
@@ -159,7 +159,8 @@ internal class EmergeArrayType<Element : LlvmType>(
     )
 
     /**
-     * A constructor that will allocate an array of [this] type, filled with [LlvmContext.undefValue]s. Signature:
+     * A constructor that will allocate an array of [this] type, with all elements zeroed (null for references).
+     * Panics if the allocation fails. Signature:
      *
      *     declare ptr array_E__ctor(%word elementCount)
      */
@@ -174,7 +175,10 @@ internal class EmergeArrayType<Element : LlvmType>(
                 val allocationSize = add(this@EmergeArrayType.sizeof(), allocationSizeForContiguousElements)
                 val allocation = heapAllocate(allocationSize)
                     .reinterpretAs(pointerTo(this@EmergeArrayType))
-                // TODO: check allocation == null, OOM
+                conditionalBranch(
+                    condition = isNull(allocation),
+                    ifTrue = { inlinePanic("out of memory: could not allocate an array") },
+                )
 
                 // initialize the any
                 val anyBasePtr = getelementptr(allocation)
@@ -1016,6 +1020,134 @@ internal val arrayAddressOfFirst = KotlinLlvmFunction.define<LlvmContext, _>(
     }
 }
 
+/**
+ * Address of the element at a given index in an `Array<S8>`. Together with `emerge.core.ArraySlice` this
+ * allows handing sub-ranges of byte buffers to C without copying them first.
+ */
+internal val arrayAddressOfByte = KotlinLlvmFunction.define<EmergeLlvmContext, _>(
+    "emerge.ffi.c.addressOfByte",
+    pointerTo(LlvmVoidType),
+) {
+    functionAttribute(LlvmFunctionAttribute.NoUnwind)
+    functionAttribute(LlvmFunctionAttribute.WillReturn)
+    functionAttribute(LlvmFunctionAttribute.NoRecurse)
+    functionAttribute(LlvmFunctionAttribute.NoFree)
+
+    val arrayPointer by param(pointerTo(EmergeS8ArrayType))
+    val index by param(EmergeUWordType)
+
+    body {
+        inlinePanicBoundsCheck(arrayPointer, index)
+        val ptr = getelementptr(arrayPointer)
+            .member { elements }
+            .index(index)
+            .get()
+            .reinterpretAs(pointerTo(LlvmVoidType))
+
+        ret(ptr)
+    }
+}
+
+/**
+ * `emerge.core.Array::copyResized`. Allocates a new array with the same runtime representation as the source,
+ * which is not necessarily the one the static element type at the call site implies: generic code (e.g. `ArrayList<X>`)
+ * sees every array as a reference array, but the array may be a value array. The common prefix is copied with a
+ * single `memcpy` instead of element-wise through the vtable, the remaining slots are set to the boxed filler
+ * through the virtual setter (which unboxes for value arrays).
+ */
+internal val arrayCopyResized = KotlinLlvmFunction.define<EmergeLlvmContext, _>(
+    "emerge.core.Array::copyResized",
+    PointerToAnyEmergeValue,
+) {
+    functionAttribute(LlvmFunctionAttribute.NoUnwind)
+    functionAttribute(LlvmFunctionAttribute.WillReturn)
+
+    val source by param(PointerToAnyEmergeValue)
+    val newSize by param(EmergeUWordType)
+    val filler by param(PointerToAnyEmergeValue)
+
+    body {
+        val sourceTypeinfo = source.anyValueBase()
+            .member { typeinfo }
+            .get()
+            .dereference()
+
+        for (arrayType in allArrayTypes) {
+            val arrayTypeinfo = arrayType.typeinfo.provide(context)
+            conditionalBranch(
+                // arrays from constants refer to the static typeinfo, heap-allocated ones to the dynamic one
+                condition = or(
+                    isEq(sourceTypeinfo, arrayTypeinfo.dynamic),
+                    isEq(sourceTypeinfo, arrayTypeinfo.static),
+                ),
+                ifTrue = {
+                    val sourceArray = source.reinterpretAs(pointerTo(arrayType))
+                    val sourceSize = getelementptr(sourceArray)
+                        .member { base }
+                        .member { elementCount }
+                        .get()
+                        .dereference()
+                    val nCopied = select(
+                        icmp(sourceSize, LlvmIntPredicate.UNSIGNED_LESS_THAN, newSize),
+                        sourceSize,
+                        newSize,
+                    )
+
+                    val newArray = call(context.registerIntrinsic(arrayType.constructorOfNullEntries), listOf(newSize))
+                    memcpy(
+                        getelementptr(newArray).member { elements }.index(context.uWord(0u)).get(),
+                        getelementptr(sourceArray).member { elements }.index(context.uWord(0u)).get(),
+                        mul(arrayType.elementType.sizeof(), nCopied),
+                    )
+
+                    val indexStackSlot = alloca(EmergeUWordType)
+                    if (arrayType === EmergeReferenceArrayType) {
+                        // the new array holds additional references to all the copied elements
+                        store(context.uWord(0u), indexStackSlot)
+                        loop {
+                            val index = indexStackSlot.dereference()
+                            conditionalBranch(
+                                condition = icmp(index, LlvmIntPredicate.EQUAL, nCopied),
+                                ifTrue = { this@loop.breakLoop() },
+                            )
+                            getelementptr(newArray.reinterpretAs(pointerTo(EmergeReferenceArrayType)))
+                                .member { elements }
+                                .index(index)
+                                .get()
+                                .dereference()
+                                .afterReferenceCreated(isNullable = true)
+                            store(add(index, context.uWord(1u)), indexStackSlot)
+                            loopContinue()
+                        }
+                    }
+
+                    // the allocation is zeroed already, which is exactly a null filler
+                    conditionalBranch(
+                        condition = isNull(filler),
+                        ifTrue = { ret(newArray.reinterpretAs(PointerToAnyEmergeValue)) },
+                    )
+
+                    store(nCopied, indexStackSlot)
+                    loop {
+                        val index = indexStackSlot.dereference()
+                        conditionalBranch(
+                            condition = icmp(index, LlvmIntPredicate.EQUAL, newSize),
+                            ifTrue = { this@loop.breakLoop() },
+                        )
+                        call(context.registerIntrinsic(arrayType.virtualSetterWithPanicBoundsCheck), listOf(newArray, index, filler))
+                        store(add(index, context.uWord(1u)), indexStackSlot)
+                        loopContinue()
+                    }
+
+                    ret(newArray.reinterpretAs(PointerToAnyEmergeValue))
+                }
+            )
+        }
+
+        inlinePanic("Array.copyResized: unknown array representation")
+    }
+}
+
 internal val arraySize = KotlinLlvmFunction.define<LlvmContext, _>(
     "emerge.core.Array::size",
     EmergeUWordType,
@@ -1142,4 +1274,21 @@ internal val EmergeS64ArrayType = buildValueArrayType("s64", LlvmS64Type, Emerge
 internal val EmergeU64ArrayType = buildValueArrayType("u64", LlvmU64Type, EmergeLlvmContext::boxTypeU64)
 internal val EmergeSWordArrayType = buildValueArrayType("sword", EmergeSWordType, EmergeLlvmContext::boxTypeSWord)
 internal val EmergeUWordArrayType = buildValueArrayType("uword", EmergeUWordType, EmergeLlvmContext::boxTypeUWord)
-internal val EmergeBooleanArrayType = buildValueArrayType("bool", LlvmBooleanType, EmergeLlvmContext::boxTypeBool)
\ No newline at end of file
+internal val EmergeBooleanArrayType = buildValueArrayType("bool", LlvmBooleanType, EmergeLlvmContext::boxTypeBool)
+
+private val allArrayTypes: List<EmergeArrayType<*>> by lazy {
+    listOf(
+        EmergeS8ArrayType,
+        EmergeU8ArrayType,
+        EmergeS16ArrayType,
+        EmergeU16ArrayType,
+        EmergeS32ArrayType,
+        EmergeU32ArrayType,
+        EmergeS64ArrayType,
+        EmergeU64ArrayType,
+        EmergeSWordArrayType,
+        EmergeUWordArrayType,
+        EmergeBooleanArrayType,
+        EmergeReferenceArrayType,
+    )
+}
@@ -5,9 +5,12 @@ import io.github.tmarsteel.emerge.backend.llvm.dsl.GetElementPointerStep.Compani
 import io.github.tmarsteel.emerge.backend.llvm.dsl.KotlinLlvmFunction
 import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmBooleanType
 import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmPointerType.Companion.pointerTo
+import io.github.tmarsteel.emerge.backend.llvm.dsl.i1
+import io.github.tmarsteel.emerge.backend.llvm.dsl.u32
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.EmergeLlvmContext
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.PointerToAnyEmergeValue
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.TypeinfoType
+import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmIntPredicate
 
 internal val anyReflect = KotlinLlvmFunction.define<EmergeLlvmContext, _>(
     "emerge.core.reflection.reflectType",
@@ -40,4 +43,45 @@ internal val reflectionBaseTypeIsSameObjectAs = KotlinLlvmFunction.define<Emerge
             isEq(self, other)
         )
     }
-}
\ No newline at end of file
+}
+/**
+ * Whether [TypeinfoType.supertypes] of `self` contains `supertype`, in constant time, using
+ * [TypeinfoType.supertypeIdBitset]. Both need to be the dynamic typeinfos.
+ */
+internal val reflectionBaseTypeHasInSupertypes = KotlinLlvmFunction.define<EmergeLlvmContext, _>(
+    "emerge.core.reflection.ReflectionBaseType::hasInSupertypes",
+    LlvmBooleanType,
+) {
+    val self by param(pointerTo(TypeinfoType.GENERIC))
+    val supertype by param(pointerTo(TypeinfoType.GENERIC))
+
+    instructionAliasAttributes()
+
+    body {
+        val supertypeId = getelementptr(supertype)
+            .member { typeId }
+            .get()
+            .dereference()
+        val wordIndex = lshr(supertypeId, context.u32(5u))
+        val nWords = getelementptr(self)
+            .member { supertypeIdBitsetWordCount }
+            .get()
+            .dereference()
+        conditionalBranch(
+            condition = icmp(wordIndex, LlvmIntPredicate.UNSIGNED_GREATER_THAN_OR_EQUAL, nWords),
+            ifTrue = {
+                ret(context.i1(false))
+            }
+        )
+
+        val bitset = getelementptr(self)
+            .member { supertypeIdBitset }
+            .get()
+            .dereference()
+        val word = getelementptr(bitset, wordIndex)
+            .get()
+            .dereference()
+        val bit = and(lshr(word, and(supertypeId, context.u32(31u))), context.u32(1u))
+        ret(isNotZero(bit))
+    }
+}
@@ -30,7 +30,19 @@ val safemathFns: Map<String, Map<String, KotlinLlvmFunction<EmergeLlvmContext, *
         "U64" to buildModuloAdd("U64", LlvmU64Type),
         "SWord" to buildModuloAdd("SWord", EmergeSWordType),
         "UWord" to buildModuloAdd("UWord", EmergeUWordType),
-    )
+    ),
+    "timesModulo" to mapOf(
+        "S8" to buildModuloMultiply("S8", LlvmS8Type),
+        "U8" to buildModuloMultiply("U8", LlvmU8Type),
+        "S16" to buildModuloMultiply("S16", LlvmS16Type),
+        "U16" to buildModuloMultiply("U16", LlvmU16Type),
+        "S32" to buildModuloMultiply("S32", LlvmS32Type),
+        "U32" to buildModuloMultiply("U32", LlvmU32Type),
+        "S64" to buildModuloMultiply("S64", LlvmS64Type),
+        "U64" to buildModuloMultiply("U64", LlvmU64Type),
+        "SWord" to buildModuloMultiply("SWord", EmergeSWordType),
+        "UWord" to buildModuloMultiply("UWord", EmergeUWordType),
+    ),
 )
 
 private fun <T : LlvmIntegerType> buildModuloAdd(
@@ -48,4 +60,20 @@ private fun <T : LlvmIntegerType> buildModuloAdd(
     body {
         ret(add(lhs, rhs))
     }
-}
\ No newline at end of file
+}
+private fun <T : LlvmIntegerType> buildModuloMultiply(
+    typeSimpleName: String,
+    llvmType: T,
+) = KotlinLlvmFunction.define<EmergeLlvmContext, T>(
+    "emerge.core.safemath.timesModulo_${typeSimpleName}",
+    llvmType,
+) {
+    val lhs by param(llvmType)
+    val rhs by param(llvmType)
+
+    instructionAliasAttributes()
+
+    body {
+        ret(mul(lhs, rhs))
+    }
+}
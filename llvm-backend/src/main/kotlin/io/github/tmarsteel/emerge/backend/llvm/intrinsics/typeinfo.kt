@@ -33,6 +33,7 @@ import io.github.tmarsteel.emerge.backend.llvm.jna.Llvm
 import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmIntPredicate
 import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmThreadLocalMode
 import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmTypeRef
+import io.github.tmarsteel.emerge.backend.llvm.jna.LlvmValueRef
 import io.github.tmarsteel.emerge.backend.llvm.jna.NativeI32FlagGroup
 import io.github.tmarsteel.emerge.backend.llvm.requireStructuralSupertypeOf
 import io.github.tmarsteel.emerge.backend.llvm.typeinfoHolder
@@ -78,6 +79,15 @@ internal class TypeinfoType private constructor(val nVTableEntries: Long) : Llvm
     val dynamicTypeInfoPtr by structMember(pointerTo(this))
     /** always points to a static `emerge.core.String` */
     val canonicalNamePtr by structMember(PointerToAnyEmergeValue)
+    /** compact ID of this type, unique within the module among the types that can be a supertype; see [TypeinfoIds] */
+    val typeId by structMember(LlvmU32Type)
+    /** the number of 32-bit words in [supertypeIdBitset] */
+    val supertypeIdBitsetWordCount by structMember(LlvmU32Type)
+    /**
+     * bit `n` is set iff the type with [typeId] `n` is in [supertypes]. Makes subtype checks constant-time,
+     * see [io.github.tmarsteel.emerge.backend.llvm.intrinsics.stdlib.reflectionBaseTypeHasInSupertypes]
+     */
+    val supertypeIdBitset by structMember(pointerTo(LlvmU32Type))
     /** !! dynamically sized !! */
     val vtable by structMember(VTableType(nVTableEntries))
 
@@ -97,7 +107,7 @@ internal class TypeinfoType private constructor(val nVTableEntries: Long) : Llvm
     }
 
     override fun computeDiType(diBuilder: DiBuilder): LlvmDebugInfo.Type {
-        return computeDiType(this, diBuilder, listOf(::supertypes, ::anyValueVirtuals, ::dynamicTypeInfoPtr, ::canonicalNamePtr, ::vtable), NativeI32FlagGroup())
+        return computeDiType(this, diBuilder, listOf(::supertypes, ::anyValueVirtuals, ::dynamicTypeInfoPtr, ::canonicalNamePtr, ::typeId, ::supertypeIdBitsetWordCount, ::supertypeIdBitset, ::vtable), NativeI32FlagGroup())
     }
 
     override fun createTemporaryForwardDeclaration(diBuilder: DiBuilder): LlvmDebugInfo.Type {
@@ -109,9 +119,11 @@ internal class TypeinfoType private constructor(val nVTableEntries: Long) : Llvm
              * anyValueVirtuals: { pointer to dtor }
              * dynamicTypeInfoPtr: pointer
              * canonicalNamePtr: pointer to emerge string
+             * typeId, supertypeIdBitsetWordCount: 2x u32, ~ one pointer
+             * supertypeIdBitset: pointer
              * vtable: [pointer x size]
              */
-            sizeInBits = diBuilder.context.targetData.pointerSizeInBits * (4u + vtable.type.nEntries.toUInt()),
+            sizeInBits = diBuilder.context.targetData.pointerSizeInBits * (6u + vtable.type.nEntries.toUInt()),
             alignInBits = diBuilder.context.targetData.pointerSizeInBits.toUInt(),
             flags = NativeI32FlagGroup(),
             declaredAt = Companion.declaredAt,
@@ -347,11 +359,13 @@ internal class StaticAndDynamicTypeInfo private constructor(
             val bundle = StaticAndDynamicTypeInfo(context, dynamicGlobal, staticGlobal)
             // register now to break loops
             byContext[context] = bundle
+            val typeId = context.typeinfoIds.assign(dynamicGlobal, canonicalName)
 
             val (dynamicConstant, staticConstant) = build(
                 context,
                 typeinfoType,
                 canonicalName,
+                typeId,
                 vtableConstant,
                 dynamicGlobal,
             )
@@ -365,14 +379,17 @@ internal class StaticAndDynamicTypeInfo private constructor(
             context: EmergeLlvmContext,
             typeinfoType: TypeinfoType,
             canonicalName: String,
+            typeId: UInt,
             vtable: LlvmConstant<VTableType>,
             dynamicGlobal: LlvmGlobal<TypeinfoType>,
         ): Pair<LlvmConstant<TypeinfoType>, LlvmConstant<TypeinfoType>> {
-            val supertypesData = PointerToEmergeArrayOfPointersToTypeInfoType.pointed.buildConstantIn(context, supertypes) {
-                it(context)
+            val supertypeGlobals = supertypes.map { it(context) }
+            val supertypesData = PointerToEmergeArrayOfPointersToTypeInfoType.pointed.buildConstantIn(context, supertypeGlobals) {
+                it
             }
             val supertypesGlobal = context.addGlobal(supertypesData, LlvmThreadLocalMode.NOT_THREAD_LOCAL)
                 .reinterpretAs(pointerTo(LlvmVoidType))
+            val supertypeIdBitset = context.typeinfoIds.buildSupertypeIdBitset(context, supertypeGlobals)
 
             val canonicalNameGlobal = context.emergeStringLiteral(canonicalName)
 
@@ -384,6 +401,9 @@ internal class StaticAndDynamicTypeInfo private constructor(
                 })
                 setNull(typeinfoType.dynamicTypeInfoPtr)
                 setValue(typeinfoType.canonicalNamePtr, canonicalNameGlobal)
+                setValue(typeinfoType.typeId, context.u32(typeId))
+                setValue(typeinfoType.supertypeIdBitsetWordCount, context.u32(supertypeIdBitset.nWords))
+                setValue(typeinfoType.supertypeIdBitset, supertypeIdBitset.words)
             }
 
             val typeinfoStaticData = typeinfoType.buildConstantIn(context) {
@@ -394,6 +414,9 @@ internal class StaticAndDynamicTypeInfo private constructor(
                 })
                 setValue(typeinfoType.dynamicTypeInfoPtr, dynamicGlobal)
                 setValue(typeinfoType.canonicalNamePtr, canonicalNameGlobal)
+                setValue(typeinfoType.typeId, context.u32(typeId))
+                setValue(typeinfoType.supertypeIdBitsetWordCount, context.u32(supertypeIdBitset.nWords))
+                setValue(typeinfoType.supertypeIdBitset, supertypeIdBitset.words)
             }
 
             return Pair(typeinfoDynamicData, typeinfoStaticData)
@@ -427,6 +450,87 @@ internal class StaticAndDynamicTypeInfo private constructor(
     }
 }
 
+/**
+ * Assigns the [TypeinfoType.typeId]s. These have to be compact, so the [TypeinfoType.supertypeIdBitset]s stay small.
+ * Because of that, they are only unique within one [EmergeLlvmContext], which has its own instance of this class.
+ *
+ * Only types that can be a supertype need an ID of their own: interfaces, and the reference array as the supertype
+ * of the value arrays. These are numbered in the order of their names, so that the IDs don't depend on the order in
+ * which typeinfos are built; adding or removing a type only shifts the IDs of the types named after it.
+ * All other types share [NOT_A_SUPERTYPE].
+ */
+internal class TypeinfoIds {
+    private val supertypeNames = HashSet<String>()
+    private var idsBySupertypeName: Map<String, UInt>? = null
+    private val idsByTypeinfo = HashMap<LlvmValueRef, UInt>()
+
+    /**
+     * Declares that the type named [typeName] may be a supertype. Must be called for all of these before the first
+     * call to [assign].
+     */
+    fun registerPossibleSupertype(typeName: String) {
+        check(idsBySupertypeName == null) { "IDs have been assigned already" }
+        supertypeNames.add(typeName)
+    }
+
+    /**
+     * Must be called exactly once for every typeinfo, before the typeinfos of its subtypes are built.
+     * Static typeinfos share the ID of their dynamic version, they don't need one of their own.
+     * @param typeName the name of the type [typeinfo] is for, as given to [registerPossibleSupertype]
+     */
+    fun assign(typeinfo: LlvmGlobal<out TypeinfoType>, typeName: String): UInt {
+        check(typeinfo.raw !in idsByTypeinfo) { "typeinfo already has an ID" }
+        val idsBySupertypeName = this.idsBySupertypeName
+            ?: supertypeNames.sorted()
+                .withIndex()
+                .associate { (index, name) -> name to index.toUInt() }
+                .also { this.idsBySupertypeName = it }
+
+        val id = idsBySupertypeName[typeName] ?: NOT_A_SUPERTYPE
+        idsByTypeinfo[typeinfo.raw] = id
+        return id
+    }
+
+    fun buildSupertypeIdBitset(context: EmergeLlvmContext, supertypes: Collection<LlvmGlobal<out TypeinfoType>>): SupertypeIdBitset {
+        val ids = supertypes.map { supertype ->
+            val id = idsByTypeinfo[supertype.raw] ?: throw IllegalStateException("supertype ${supertype.name} doesn't have an ID yet")
+            check(id != NOT_A_SUPERTYPE) { "${supertype.name} is not registered as a possible supertype" }
+            id
+        }
+        if (ids.isEmpty()) {
+            // never dereferenced, the intrinsic checks the word count first
+            return SupertypeIdBitset(0u, context.nullValue(pointerTo(LlvmU32Type)))
+        }
+
+        val words = MutableList(ids.max().toInt() / 32 + 1) { 0u }
+        for (id in ids) {
+            val wordIndex = (id / 32u).toInt()
+            words[wordIndex] = words[wordIndex] or (1u shl (id % 32u).toInt())
+        }
+
+        val wordsGlobal = context.addGlobal(
+            LlvmArrayType(words.size.toLong(), LlvmU32Type).buildConstantIn(context, words.map { context.u32(it) }),
+            LlvmThreadLocalMode.NOT_THREAD_LOCAL,
+        )
+
+        return SupertypeIdBitset(words.size.toUInt(), wordsGlobal.reinterpretAs(pointerTo(LlvmU32Type)))
+    }
+
+    class SupertypeIdBitset(
+        val nWords: UInt,
+        val words: LlvmValue<LlvmPointerType<LlvmU32Type>>,
+    )
+
+    companion object {
+        /**
+         * The ID of all types that cannot be a supertype. Lies beyond every bitset, so
+         * [io.github.tmarsteel.emerge.backend.llvm.intrinsics.stdlib.reflectionBaseTypeHasInSupertypes] returns
+         * `false` for it without reading the bitset.
+         */
+        val NOT_A_SUPERTYPE: UInt = UInt.MAX_VALUE
+    }
+}
+
 /**
  * The maximum number of entries in any vtable is `2^(this value)`.
  */
@@ -13,6 +13,7 @@ import io.github.tmarsteel.emerge.backend.llvm.intrinsics.EmergeLlvmContext
 import io.github.tmarsteel.emerge.backend.llvm.intrinsics.panicOnThrowable
 
 val EmergeEntrypoint = KotlinLlvmFunction.define<EmergeLlvmContext, LlvmVoidType>("main", LlvmVoidType) {
+    externallyVisible()
     body {
         callIntrinsic(context.globalInitializerFn, emptyList())
         val threadInitResult = callIntrinsic(context.threadInitializerFn, emptyList())
@@ -5,8 +5,10 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize
 import com.sun.jna.ptr.PointerByReference
 import io.github.tmarsteel.emerge.backend.api.CodeGenerationException
 import io.github.tmarsteel.emerge.backend.api.EmergeBackend
+import io.github.tmarsteel.emerge.backend.api.ir.IrFunction
 import io.github.tmarsteel.emerge.backend.api.ir.IrSoftwareContext
 import io.github.tmarsteel.emerge.backend.llvm.Autoboxer
+import io.github.tmarsteel.emerge.backend.llvm.ObjectFileCache
 import io.github.tmarsteel.emerge.backend.llvm.assignVirtualFunctionHashes
 import io.github.tmarsteel.emerge.backend.llvm.autoboxer
 import io.github.tmarsteel.emerge.backend.llvm.dsl.KotlinLlvmFunction
@@ -16,6 +18,7 @@ import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmFunctionType
 import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmPointerType
 import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmPointerType.Companion.pointerTo
 import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmS32Type
+import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmSplitter
 import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmTarget
 import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmVoidType
 import io.github.tmarsteel.emerge.backend.llvm.dsl.PassBuilderOptions
@@ -28,11 +31,13 @@ import io.github.tmarsteel.emerge.backend.llvm.linux.EmergeEntrypoint
 import io.github.tmarsteel.emerge.backend.llvm.linux.LinuxLinker
 import io.github.tmarsteel.emerge.backend.llvm.llvmRef
 import io.github.tmarsteel.emerge.backend.llvm.packagesSeq
+import io.github.tmarsteel.emerge.backend.llvm.resetAllTackedState
 import io.github.tmarsteel.emerge.common.CanonicalElementName
 import io.github.tmarsteel.emerge.common.EmergeConstants
 import io.github.tmarsteel.emerge.common.config.ConfigModuleDefinition
 import io.github.tmarsteel.emerge.common.config.DirectoryDeserializer
 import io.github.tmarsteel.emerge.common.config.ExistingFileDeserializer
+import io.github.tmarsteel.emerge.common.trace.CompilerTrace
 import java.nio.file.Path
 import kotlin.io.path.createDirectories
 
@@ -43,11 +48,7 @@ class Linux_x68_64_Backend : EmergeBackend<Linux_x68_64_Backend.ToolchainConfig,
     override val projectConfigKClass = ProjectConfig::class
 
     override fun getTargetSpecificModules(toolchainConfig: ToolchainConfig, projectConfig: ProjectConfig): Iterable<ConfigModuleDefinition> {
-        return listOf(
-            ConfigModuleDefinition(FFIC_MODULE_NAME, toolchainConfig.ffiCSources),
-            ConfigModuleDefinition(LIBC_MODULE_NAME, toolchainConfig.libcSources, uses = setOf(FFIC_MODULE_NAME)),
-            ConfigModuleDefinition(EmergeConstants.PlatformModule.NAME, toolchainConfig.platformSources, uses = setOf(FFIC_MODULE_NAME, LIBC_MODULE_NAME)),
-        )
+        return getTargetSpecificModules(toolchainConfig.ffiCSources, toolchainConfig.libcSources, toolchainConfig.platformSources)
     }
 
     override fun emit(toolchainConfig: ToolchainConfig, projectConfig: ProjectConfig, softwareContext: IrSoftwareContext) {
@@ -71,29 +72,47 @@ class Linux_x68_64_Backend : EmergeBackend<Linux_x68_64_Backend.ToolchainConfig,
         i don't want to have to re-discover when chasing a segfault or something like that...
          */
 
-        val objectFilePath = projectConfig.outputDirectory.resolve("out.o")
-        LlvmCompiler.fromLlvmInstallationDirectory(toolchainConfig.llvmInstallationDirectory).compileBitcodeFile(
-            bitcodeFilePath,
-            objectFilePath,
-        )
+        val partitionsDirectory = projectConfig.outputDirectory.resolve("partitions").toAbsolutePath()
+        partitionsDirectory.createDirectories()
+        val partitionFilePaths = CompilerTrace.span("llvm-split", bitcodeFilePath) {
+            LlvmSplitter.fromLlvmInstallationDirectory(toolchainConfig.llvmInstallationDirectory).splitBitcodeFile(
+                bitcodeFilePath,
+                partitionsDirectory.resolve("out.bc."),
+                N_BITCODE_PARTITIONS,
+            )
+        }
 
-        val executablePath = projectConfig.outputDirectory.resolve("runnable").toAbsolutePath()
-        LinuxLinker.fromLlvmInstallationDirectory(toolchainConfig.llvmInstallationDirectory).linkObjectFilesToELF(
-            listOf(
-                // here is what all of these object files are for:
-                // https://dev.gentoo.org/~vapier/crt.txt
-                toolchainConfig.staticLibs.sCrt1ObjectFile,
-                toolchainConfig.staticLibs.crtBeginSharedObjectFile,
-                objectFilePath,
-                toolchainConfig.staticLibs.crtEndSharedObjectFile,
-                toolchainConfig.staticLibs.libUnwindObjectFile,
-            ),
-            executablePath,
-            dynamicallyLinkAtRuntime = listOf("c"),
-            libraryPaths = listOf(
-                toolchainConfig.staticLibs.libCSharedObject,
-            ).map { it.parent }.distinct(),
-        )
+        val llc = LlvmCompiler.fromLlvmInstallationDirectory(toolchainConfig.llvmInstallationDirectory)
+        val objectFileCache = projectConfig.objectFileCacheDirectory?.let { ObjectFileCache(it, llc.describeToolchain()) }
+        val objectFilePaths = partitionFilePaths.map { partitionFilePath ->
+            val compile: (Path) -> Unit = { objectFilePath ->
+                CompilerTrace.span("llc", partitionFilePath) {
+                    llc.compileBitcodeFile(partitionFilePath, objectFilePath)
+                }
+            }
+            objectFileCache?.getOrCompile(partitionFilePath, compile)
+                ?: partitionFilePath.resolveSibling("${partitionFilePath.fileName}.o").also(compile)
+        }
+
+        val executablePath = projectConfig.executablePath
+        CompilerTrace.span("link", executablePath) {
+            LinuxLinker.fromLlvmInstallationDirectory(toolchainConfig.llvmInstallationDirectory).linkObjectFilesToELF(
+                listOf(
+                    // here is what all of these object files are for:
+                    // https://dev.gentoo.org/~vapier/crt.txt
+                    toolchainConfig.staticLibs.sCrt1ObjectFile,
+                    toolchainConfig.staticLibs.crtBeginSharedObjectFile,
+                ) + objectFilePaths + listOf(
+                    toolchainConfig.staticLibs.crtEndSharedObjectFile,
+                    toolchainConfig.staticLibs.libUnwindObjectFile,
+                ),
+                executablePath,
+                dynamicallyLinkAtRuntime = listOf("c"),
+                libraryPaths = listOf(
+                    toolchainConfig.staticLibs.libCSharedObject,
+                ).map { it.parent }.distinct(),
+            )
+        }
     }
 
     private fun writeSoftwareToBitcodeFile(softwareContext: IrSoftwareContext, bitcodeFilePath: Path, emitDebugInfo: Boolean) {
@@ -103,90 +122,8 @@ class Linux_x68_64_Backend : EmergeBackend<Linux_x68_64_Backend.ToolchainConfig,
         Llvm.LLVMInitializeX86AsmPrinter()
         Llvm.LLVMInitializeX86AsmParser()
 
-        softwareContext.assignVirtualFunctionHashes()
-
         EmergeLlvmContext.createDoAndDispose(LlvmTarget.fromTriple("x86_64-pc-linux-gnu"), emitDebugInfo) { llvmContext ->
-            softwareContext.packagesSeq
-                .flatMap { it.interfaces }
-                .forEach(llvmContext::registerBaseType)
-            softwareContext.packagesSeq
-                .flatMap { it.classes }
-                .forEach(llvmContext::registerBaseType)
-            softwareContext.packagesSeq
-                .flatMap { it.interfaces }
-                .flatMap { it.memberFunctions }
-                .flatMap { it.overloads }
-                .forEach(llvmContext::registerFunction)
-            softwareContext.packagesSeq
-                .flatMap { it.classes }
-                .flatMap { it.memberFunctions }
-                .flatMap { it.overloads }
-                .forEach {
-                    llvmContext.registerFunction(
-                        it,
-                        symbolNameOverride = FUNCTION_SYMBOL_NAME_OVERRIDES[it.canonicalName],
-                    )
-                }
-
-            softwareContext.packagesSeq
-                .flatMap { it.functions }
-                .flatMap { it.overloads }
-                .forEach {
-                    val fn = llvmContext.registerFunction(
-                        it,
-                        symbolNameOverride = FUNCTION_SYMBOL_NAME_OVERRIDES[it.canonicalName]
-                    )
-                        ?: throw CodeGenerationException("toplevel fn not defined/declared in llvm - what?")
-
-                    storeCoreFunctionReference(llvmContext, it.canonicalName, fn)
-                }
-
-            softwareContext.packagesSeq
-                .flatMap { it.classes }
-                .filter { it.autoboxer !is Autoboxer.PrimitiveType }
-                .forEach(llvmContext::defineClassStructure)
-
-            softwareContext.packagesSeq
-                .flatMap { it.variables }
-                .forEach {
-                    llvmContext.registerGlobal(it)
-                }
-
-            softwareContext.packagesSeq
-                .flatMap { it.functions }
-                .flatMap { it.overloads }
-                .filter { it.body != null }
-                .forEach(llvmContext::defineFunctionBody)
-
-            softwareContext.packagesSeq
-                .flatMap { it.interfaces }
-                .flatMap { it.memberFunctions }
-                .flatMap { it.overloads }
-                .filter { it.body != null }
-                .forEach(llvmContext::defineFunctionBody)
-
-            softwareContext.modules
-                .flatMap { it.packages }
-                .flatMap { it.classes }
-                .forEach { clazz ->
-                    clazz.memberFunctions
-                        .flatMap { it.overloads }
-                        .filter { it.body != null }
-                        .forEach(llvmContext::defineFunctionBody)
-                }
-
-            llvmContext.registerIntrinsic(KotlinLlvmFunction.define("_Ux86_64_setcontext", LlvmS32Type) {
-                val contextPtr by param(pointerTo(LlvmVoidType))
-                body {
-                    val setctxfnaddr = context.getNamedFunctionAddress("setcontext")!!
-                    val setctffntype = LlvmFunctionType<LlvmS32Type>(LlvmS32Type, listOf(LlvmPointerType(LlvmVoidType)))
-                    ret(call(setctxfnaddr, setctffntype, listOf(contextPtr)))
-                }
-            })
-
-            // assure the entrypoint is in the object file
-            llvmContext.registerIntrinsic(EmergeEntrypoint)
-            llvmContext.complete()
+            defineSoftware(softwareContext, llvmContext)
 
             val errorMessageRef = PointerByReference()
             if (Llvm.LLVMPrintModuleToFile(
@@ -205,27 +142,142 @@ class Linux_x68_64_Backend : EmergeBackend<Linux_x68_64_Backend.ToolchainConfig,
                 throw CodeGenerationException(errorMessageStr)
             }
 
-            PassBuilderOptions().use { pbo ->
-                val error = Llvm.LLVMRunPasses(
+            runPasses(llvmContext)
+
+            if (Llvm.LLVMWriteBitcodeToFile(llvmContext.module, bitcodeFilePath.toString()) != 0) {
+                throw CodeGenerationException("Failed to write LLVM bitcode to $bitcodeFilePath")
+            }
+        }
+    }
+
+    /**
+     * Declares and defines everything in [softwareContext] in [llvmContext], up to and including
+     * [EmergeLlvmContext.complete]. The [softwareContext] must contain a `main` function.
+     */
+    fun defineSoftware(softwareContext: IrSoftwareContext, llvmContext: EmergeLlvmContext) {
+        // the IR may have been emitted before, with state tacked on that refers to an LLVM context disposed of since
+        resetAllTackedState()
+        softwareContext.assignVirtualFunctionHashes()
+
+        softwareContext.packagesSeq
+            .flatMap { it.interfaces }
+            .forEach(llvmContext::registerBaseType)
+        softwareContext.packagesSeq
+            .flatMap { it.classes }
+            .forEach(llvmContext::registerBaseType)
+        softwareContext.packagesSeq
+            .flatMap { it.interfaces }
+            .flatMap { it.memberFunctions }
+            .flatMap { it.overloads }
+            .forEach(llvmContext::registerFunction)
+        softwareContext.packagesSeq
+            .flatMap { it.classes }
+            .flatMap { it.memberFunctions }
+            .flatMap { it.overloads }
+            .forEach {
+                llvmContext.registerFunction(
+                    it,
+                    symbolNameOverride = FUNCTION_SYMBOL_NAME_OVERRIDES[it.canonicalName],
+                )
+            }
+
+        softwareContext.packagesSeq
+            .flatMap { it.functions }
+            .flatMap { it.overloads }
+            .forEach {
+                val fn = llvmContext.registerFunction(
+                    it,
+                    symbolNameOverride = FUNCTION_SYMBOL_NAME_OVERRIDES[it.canonicalName]
+                )
+                    ?: throw CodeGenerationException("toplevel fn not defined/declared in llvm - what?")
+
+                storeCoreFunctionReference(llvmContext, it.canonicalName, fn)
+            }
+
+        softwareContext.packagesSeq
+            .flatMap { it.classes }
+            .filter { it.autoboxer !is Autoboxer.PrimitiveType }
+            .forEach(llvmContext::defineClassStructure)
+
+        softwareContext.packagesSeq
+            .flatMap { it.variables }
+            .forEach {
+                llvmContext.registerGlobal(it)
+            }
+
+        softwareContext.packagesSeq
+            .flatMap { it.functions }
+            .flatMap { it.overloads }
+            .forEach(llvmContext::lowerAndDefineFunctionBody)
+
+        softwareContext.packagesSeq
+            .flatMap { it.interfaces }
+            .flatMap { it.memberFunctions }
+            .flatMap { it.overloads }
+            .forEach(llvmContext::lowerAndDefineFunctionBody)
+
+        softwareContext.modules
+            .flatMap { it.packages }
+            .flatMap { it.classes }
+            .forEach { clazz ->
+                clazz.memberFunctions
+                    .flatMap { it.overloads }
+                    .forEach(llvmContext::lowerAndDefineFunctionBody)
+            }
+
+        llvmContext.registerIntrinsic(KotlinLlvmFunction.define("_Ux86_64_setcontext", LlvmS32Type) {
+            val contextPtr by param(pointerTo(LlvmVoidType))
+            // libunwind calls this by its symbol name
+            externallyVisible()
+            body {
+                val setctxfnaddr = context.getNamedFunctionAddress("setcontext")!!
+                val setctffntype = LlvmFunctionType<LlvmS32Type>(LlvmS32Type, listOf(LlvmPointerType(LlvmVoidType)))
+                ret(call(setctxfnaddr, setctffntype, listOf(contextPtr)))
+            }
+        })
+
+        // assure the entrypoint is in the object file
+        llvmContext.registerIntrinsic(EmergeEntrypoint)
+        llvmContext.complete()
+    }
+
+    /**
+     * Runs the LLVM passes on the module built by [defineSoftware], as [emit] does before splitting it.
+     */
+    fun runPasses(llvmContext: EmergeLlvmContext) {
+        PassBuilderOptions().use { pbo ->
+            // all emerge functions and intrinsics have internal linkage, so these two can find all that are reachable
+            // from the entrypoint and the runtime hooks and drop the rest. globalopt also switches functions to fastcc
+            // if all their callers are known, which is never the case for those referenced from vtables.
+            val passes = "globalopt,globaldce,default<O0>"
+            val error = CompilerTrace.span("LLVM passes", passes) {
+                Llvm.LLVMRunPasses(
                     llvmContext.module,
-                    "default<O0>",
+                    passes,
                     llvmContext.targetMachine.ref,
                     pbo.ref,
                 )
-                if (error != null) {
-                    val errorStrPtr = Llvm.LLVMGetErrorMessage(error)
-                    val errorStr = errorStrPtr.getString(0)
-                    Llvm.LLVMDisposeErrorMessage(errorStrPtr)
-                    throw CodeGenerationException("LLVM passes failed: $errorStr")
-                }
             }
-
-            if (Llvm.LLVMWriteBitcodeToFile(llvmContext.module, bitcodeFilePath.toString()) != 0) {
-                throw CodeGenerationException("Failed to write LLVM bitcode to $bitcodeFilePath")
+            if (error != null) {
+                val errorStrPtr = Llvm.LLVMGetErrorMessage(error)
+                val errorStr = errorStrPtr.getString(0)
+                Llvm.LLVMDisposeErrorMessage(errorStrPtr)
+                throw CodeGenerationException("LLVM passes failed: $errorStr")
             }
         }
     }
 
+    private fun EmergeLlvmContext.lowerAndDefineFunctionBody(fn: IrFunction) {
+        // the frontend lowers function bodies to IR lazily
+        if (CompilerTrace.span("lower to IR", fn.canonicalName) { fn.body } == null) {
+            return
+        }
+
+        CompilerTrace.span("emit LLVM IR", fn.canonicalName) {
+            defineFunctionBody(fn)
+        }
+    }
+
     private fun findMainFunction(softwareContext: IrSoftwareContext): LlvmFunction<*> {
         return softwareContext.modules
             .flatMap { it.packages }
@@ -257,6 +309,21 @@ class Linux_x68_64_Backend : EmergeBackend<Linux_x68_64_Backend.ToolchainConfig,
     }
 
     companion object {
+        fun getTargetSpecificModules(ffiCSources: Path, libcSources: Path, platformSources: Path): List<ConfigModuleDefinition> {
+            return listOf(
+                ConfigModuleDefinition(FFIC_MODULE_NAME, ffiCSources),
+                ConfigModuleDefinition(LIBC_MODULE_NAME, libcSources, uses = setOf(FFIC_MODULE_NAME)),
+                ConfigModuleDefinition(EmergeConstants.PlatformModule.NAME, platformSources, uses = setOf(FFIC_MODULE_NAME, LIBC_MODULE_NAME)),
+            )
+        }
+
+        /**
+         * how many parts the bitcode is split into for compiling it to machine code, see [LlvmSplitter].
+         * More parts mean less to recompile after a change, but also more duplicated declarations and less
+         * opportunity for optimizations across functions.
+         */
+        private const val N_BITCODE_PARTITIONS = 16
+
         private val LIBC_MODULE_NAME = CanonicalElementName.Package(listOf("emerge", "linux", "libc"))
         private val FFIC_MODULE_NAME = CanonicalElementName.Package(listOf("emerge", "ffi", "c"))
         private val ALLOCATOR_FUNCTION_NAME = CanonicalElementName.Function(LIBC_MODULE_NAME, "malloc")
@@ -336,6 +403,16 @@ class Linux_x68_64_Backend : EmergeBackend<Linux_x68_64_Backend.ToolchainConfig,
         val outputDirectory: Path,
 
         val emitDebugInfo: Boolean,
-    )
+
+        /**
+         * where to cache compiled object files across builds, see [ObjectFileCache]. If null, every build
+         * compiles all of them into the [outputDirectory]; as it does if the directory cannot be created or
+         * written to.
+         */
+        val objectFileCacheDirectory: Path? = null,
+    ) {
+        /** where [emit] puts the linked executable */
+        val executablePath: Path get() = outputDirectory.resolve("runnable").toAbsolutePath()
+    }
 }
 
@@ -1,6 +1,8 @@
 package io.github.tmarsteel.emerge.backend.llvm
 
 import com.google.common.collect.MapMaker
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.CopyOnWriteArrayList
 import kotlin.reflect.KProperty
 import kotlin.reflect.KProperty1
 import kotlin.reflect.full.getExtensionDelegate
@@ -13,6 +15,22 @@ Long-Term this work pays off in performance. But for prototyping the backend and
 what i really need, i just want to "tack" some state onto some objects.
  */
 
+private val allTackedData = CopyOnWriteArrayList<ConcurrentMap<*, *>>()
+
+private fun <K : Any, V> newTackedDataMap(): ConcurrentMap<K, V> {
+    val map = MapMaker().weakKeys().makeMap<K, V>()
+    allTackedData.add(map)
+    return map
+}
+
+/**
+ * Forgets all state tacked onto any object. Must be done before objects that had state tacked onto them
+ * in an earlier compilation are used again, e.g. the IR of unchanged code when the frontend compiles incrementally.
+ */
+fun resetAllTackedState() {
+    allTackedData.forEach { it.clear() }
+}
+
 fun <R : Any, T> tackLazyVal(compute: R.() -> T) = ComputedLazyTackDelegate(compute)
 
 class ComputedLazyTackDelegate<in R : Any, out T>(
@@ -22,7 +40,7 @@ class ComputedLazyTackDelegate<in R : Any, out T>(
      * This needs to be an IdentityWeakMap. Not in the default SDK, and its hard
      * to compose one. See https://stackoverflow.com/questions/22910375/combo-of-identityhashmap-and-weakhashmap
      */
-    private val data = MapMaker().weakKeys().makeMap<R, T>()
+    private val data = newTackedDataMap<R, T>()
 
     operator fun getValue(thisRef: R, prop: KProperty<*>): T {
         return data.computeIfAbsent(thisRef, compute)
@@ -33,7 +51,7 @@ fun <R : Any, T> tackState(computeInitial: R.() -> T) = StateTackDelegate<R, T>(
 fun <T : Any> tackLateInitState() = LateInitStateTackDelegate<T>()
 
 class StateTackDelegate<in R : Any, T>(private val computeInitial: R.() -> T) {
-    private val data = MapMaker().weakKeys().makeMap<R, T>()
+    private val data = newTackedDataMap<R, T>()
 
     operator fun getValue(thisRef: R, prop: KProperty<*>): T {
         return data.computeIfAbsent(thisRef, computeInitial)
@@ -56,7 +74,7 @@ class StateTackDelegate<in R : Any, T>(private val computeInitial: R.() -> T) {
 }
 
 class LateInitStateTackDelegate<T : Any?> {
-    private val data = MapMaker().weakKeys().makeMap<Any, T>()
+    private val data = newTackedDataMap<Any, T>()
 
     operator fun getValue(thisRef: Any, prop: KProperty<*>): T {
         return data[thisRef]
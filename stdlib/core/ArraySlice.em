@@ -0,0 +1,107 @@
+package emerge.core
+
+import emerge.platform.panic
+import emerge.core.range.Iterable
+import emerge.core.range.SizedRange
+import emerge.core.range.RandomAccessRange
+import emerge.core.range.BidirectionalRange
+import emerge.core.range.EmptyRangeException
+
+// a view onto the elements [offset, offset + size) of an array. Creating a slice is O(1) and
+// shares the backing allocation, so it never copies elements.
+// For now, slices are read-only views; see roadmap item 5 for the plan on mutable/exclusive slices.
+export class ArraySlice<Element> : Iterable<Element> {
+    export base: read Array<Element> = init
+    export offset: UWord = init
+    export size: UWord = init
+
+    constructor {
+        if self.offset > self.base.size or self.size > self.base.size - self.offset {
+            panic("slice bounds exceed the base array")
+        }
+    }
+
+    export operator fn getAtIndex(self, index: UWord) -> Element {
+        if index >= self.size {
+            throw ArrayIndexOutOfBoundsError(index)
+        }
+
+        return self.base.getOrPanic(self.offset + index)
+    }
+
+    export nothrow fn getOrPanic(self, index: UWord) -> Element {
+        if index >= self.size {
+            panic("array slice index out of bounds!")
+        }
+
+        return self.base.getOrPanic(self.offset + index)
+    }
+
+    // @return the elements [fromIndex, toIndexExclusive) of this slice, sharing the same base array
+    export fn slice(capture self, fromIndex: UWord, toIndexExclusive: UWord) -> exclusive ArraySlice<Element> {
+        if fromIndex > toIndexExclusive {
+            throw ArrayIndexOutOfBoundsError(fromIndex)
+        }
+        if toIndexExclusive > self.size {
+            throw ArrayIndexOutOfBoundsError(toIndexExclusive)
+        }
+
+        return ArraySlice(self.base, self.offset + fromIndex, toIndexExclusive - fromIndex)
+    }
+
+    // @return the elements from [fromIndex] to the end of this slice, sharing the same base array
+    export fn sliceFrom(capture self, fromIndex: UWord) -> exclusive ArraySlice<Element> = self.slice(fromIndex, self.size)
+
+    export override fn asRange(capture self) -> exclusive ArraySliceRange<Element> = ArraySliceRange(self)
+}
+
+export class ArraySliceRange<Element> : SizedRange<Element> & RandomAccessRange<Element> & BidirectionalRange<Element> {
+    slice: read ArraySlice<Element> = init
+    var frontIndex: UWord = 0
+    var backIndexPlus1: UWord = self.slice.size
+
+    export override get fn size(self) = self.backIndexPlus1 - self.frontIndex
+
+    export override get fn front(self) -> Element {
+        if self.isEmpty {
+            throw EmptyRangeException()
+        }
+
+        return self.slice.getOrPanic(self.frontIndex)
+    }
+
+    export override get fn back(self) -> Element {
+        if self.isEmpty {
+            throw EmptyRangeException()
+        }
+
+        return self.slice.getOrPanic(self.backIndexPlus1 - 1)
+    }
+
+    private get nothrow fn isEmpty(self) = self.frontIndex >= self.backIndexPlus1
+
+    export override fn popFront(self: mut _) {
+        if self.isEmpty {
+            return
+        }
+
+        set self.frontIndex = self.frontIndex + 1
+    }
+
+    export override fn popBack(self: mut _) {
+        if self.isEmpty {
+            return
+        }
+
+        set self.backIndexPlus1 = self.backIndexPlus1 - 1
+    }
+
+    export override fn getAtIndex(self, index: UWord) -> Element {
+        actualIndex = self.frontIndex + index
+        if actualIndex >= self.backIndexPlus1 {
+            throw EmptyRangeException()
+        }
+
+        return self.slice.getOrPanic(actualIndex)
+    }
+}
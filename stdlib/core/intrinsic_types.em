@@ -164,7 +164,7 @@ export class U16 : Printable {
     }
 }
 
-export class S32 : Printable {
+export class S32 : Printable & Hashable {
     private constructor {}
 
     export intrinsic nothrow operator fn unaryMinus(self) -> S32
@@ -197,10 +197,16 @@ export class S32 : Printable {
         self.toS64().printTo(stream)
     }
 
+    export override fn hashCode(self) -> UWord = self.toS64().asU64().asUWord()
+    export override fn hashEquals(self, borrow other: read Hashable) -> Bool {
+        otherNumber = other as? S32 ?: return false
+        return self == otherNumber
+    }
+
     export intrinsic nothrow fn copy(self) -> S32
 }
 
-export class U32 : Printable {
+export class U32 : Printable & Hashable {
     private constructor {}
 
     export intrinsic nothrow operator fn negate(self) -> U32
@@ -228,9 +234,15 @@ export class U32 : Printable {
     export override fn printTo(self, borrow stream: mut PrintStream) {
         self.toU64().printTo(stream)
     }
+
+    export override fn hashCode(self) -> UWord = self.toU64().asUWord()
+    export override fn hashEquals(self, borrow other: read Hashable) -> Bool {
+        otherNumber = other as? U32 ?: return false
+        return self == otherNumber
+    }
 }
 
-export class S64 : Printable {
+export class S64 : Printable & Hashable {
     private constructor {}
 
     export intrinsic nothrow operator fn unaryMinus(self) -> S64
@@ -268,10 +280,16 @@ export class S64 : Printable {
         }
     }
 
+    export override fn hashCode(self) -> UWord = self.asU64().asUWord()
+    export override fn hashEquals(self, borrow other: read Hashable) -> Bool {
+        otherNumber = other as? S64 ?: return false
+        return self == otherNumber
+    }
+
     export intrinsic nothrow fn copy(self) -> S64
 }
 
-export class U64 : Printable {
+export class U64 : Printable & Hashable {
     private constructor {}
 
     export intrinsic nothrow operator fn negate(self) -> U64
@@ -302,6 +320,12 @@ export class U64 : Printable {
         self.printTo(stream, false)
     }
 
+    export override fn hashCode(self) -> UWord = self.asUWord()
+    export override fn hashEquals(self, borrow other: read Hashable) -> Bool {
+        otherNumber = other as? U64 ?: return false
+        return self == otherNumber
+    }
+
     private fn printTo(self, borrow stream: mut PrintStream, addMinusSign: Bool) {
         stream.put(self.toString(addMinusSign))
     }
@@ -336,7 +360,7 @@ export class U64 : Printable {
     }
 }
 
-export class SWord : Printable {
+export class SWord : Printable & Hashable {
     private constructor {}
 
     export intrinsic nothrow operator fn unaryMinus(self) -> SWord
@@ -370,10 +394,16 @@ export class SWord : Printable {
         self.asS64().printTo(stream)
     }
 
+    export override fn hashCode(self) -> UWord = self.asUWord()
+    export override fn hashEquals(self, borrow other: read Hashable) -> Bool {
+        otherNumber = other as? SWord ?: return false
+        return self == otherNumber
+    }
+
     export intrinsic nothrow fn copy(self) -> SWord
 }
 
-export class UWord : Printable {
+export class UWord : Printable & Hashable {
     private constructor {}
 
     export intrinsic nothrow operator fn negate(self) -> UWord
@@ -402,6 +432,12 @@ export class UWord : Printable {
     export override fn printTo(self, borrow stream: mut PrintStream) {
         self.asU64().printTo(stream)
     }
+
+    export override fn hashCode(self) -> UWord = self
+    export override fn hashEquals(self, borrow other: read Hashable) -> Bool {
+        otherNumber = other as? UWord ?: return false
+        return self == otherNumber
+    }
 }
 
 export class Bool {
@@ -427,6 +463,12 @@ export class Array<Element> : Iterable<Element> {
 
     export intrinsic fn new<T>(size: UWord, initialValue: T) -> exclusive Array<T>
 
+    // @return a new array of size [newSize]. The first elements are copied from [source], as many as fit,
+    // all others are set to [filler]. The new array has the same memory layout as [source], so this is
+    // much cheaper than [new] followed by [copy] in generic code; e.g. it stays an array of unboxed values.
+    // A null [filler] costs nothing extra, the new array is allocated zeroed. Panics when out of memory.
+    export nothrow intrinsic fn copyResized<T>(borrow source: read Array<out T>, newSize: UWord, filler: T) -> exclusive Array<T>
+
     export fn copy<T>(borrow source: read Array<out T>, sourceOffset: UWord, borrow dest: mut Array<in T>, destOffset: UWord, length: UWord) {
         if sourceOffset + length > source.size {
             panic("length overflows source")
@@ -449,7 +491,21 @@ export class Array<Element> : Iterable<Element> {
     }
 
     export override fn asRange(capture self) -> exclusive ArrayRange<Element> = ArrayRange(self)
-    
+
+    // @return a view of the elements [fromIndex, toIndexExclusive) that shares this arrays memory; O(1)
+    export fn slice(capture self, fromIndex: UWord, toIndexExclusive: UWord) -> exclusive ArraySlice<Element> {
+        if fromIndex > toIndexExclusive {
+            throw ArrayIndexOutOfBoundsError(fromIndex)
+        }
+        if toIndexExclusive > self.size {
+            throw ArrayIndexOutOfBoundsError(toIndexExclusive)
+        }
+
+        return ArraySlice(self, fromIndex, toIndexExclusive - fromIndex)
+    }
+
+    export fn sliceFrom(capture self, fromIndex: UWord) -> exclusive ArraySlice<Element> = self.slice(fromIndex, self.size)
+
     // TODO: equals. Due to lack of a Any::equals (and its good that this isn't present!!)
     // this needs the equals fn as a parameter. The signature would be
     // fn Array<T>.equals(self, borrow other: Array<T>, equals: (T, T) -> Bool) -> Bool
@@ -1,7 +1,5 @@
 package emerge.core.reflection
 
-import emerge.core.safemath.plusModulo
-
 // runtime type information / reflection data on a base type (class or interface)
 // TODO: parameterize on type it is reflection on, like java.lang.Class<T> ?
 export class ReflectionBaseType {
@@ -38,16 +36,12 @@ export class ReflectionBaseType {
             return true
         }
 
-        var supertypeIndex = 0 as UWord
-        while supertypeIndex < self.supertypes.size {
-            if supertype.isSameObjectAs(self.supertypes.getOrPanic(supertypeIndex)) {
-                return true
-            }
-            set supertypeIndex = supertypeIndex.plusModulo(1 as UWord)
-        }
-
-        return false
+        return self.hasInSupertypes(supertype)
     }
+
+    // whether [supertype] is in [supertypes], in constant time: the backend gives every type a compact ID
+    // and each typeinfo a bitset of the IDs of its supertypes. Both need to be the dynamic typeinfo objects.
+    private nothrow intrinsic fn hasInSupertypes(self, borrow supertype: ReflectionBaseType) -> Bool
 }
 
 export nothrow intrinsic fn reflectType(self: Any) -> ReflectionBaseType
\ No newline at end of file
@@ -28,4 +28,34 @@ export nothrow intrinsic fn plusModulo(self: U64, summand: U64) -> U64
 export nothrow intrinsic fn plusModulo(self: SWord, summand: SWord) -> SWord
 
 // adds the two numbers, overflowing from MAX to 0.
-export nothrow intrinsic fn plusModulo(self: UWord, summand: UWord) -> UWord
\ No newline at end of file
+export nothrow intrinsic fn plusModulo(self: UWord, summand: UWord) -> UWord
+
+// multiplies the two numbers, keeping only the lower 8 bits of the two's complement result
+export nothrow intrinsic fn timesModulo(self: S8, factor: S8) -> S8
+
+// multiplies the two numbers, keeping only the lower 8 bits of the result
+export nothrow intrinsic fn timesModulo(self: U8, factor: U8) -> U8
+
+// multiplies the two numbers, keeping only the lower 16 bits of the two's complement result
+export nothrow intrinsic fn timesModulo(self: S16, factor: S16) -> S16
+
+// multiplies the two numbers, keeping only the lower 16 bits of the result
+export nothrow intrinsic fn timesModulo(self: U16, factor: U16) -> U16
+
+// multiplies the two numbers, keeping only the lower 32 bits of the two's complement result
+export nothrow intrinsic fn timesModulo(self: S32, factor: S32) -> S32
+
+// multiplies the two numbers, keeping only the lower 32 bits of the result
+export nothrow intrinsic fn timesModulo(self: U32, factor: U32) -> U32
+
+// multiplies the two numbers, keeping only the lower 64 bits of the two's complement result
+export nothrow intrinsic fn timesModulo(self: S64, factor: S64) -> S64
+
+// multiplies the two numbers, keeping only the lower 64 bits of the result
+export nothrow intrinsic fn timesModulo(self: U64, factor: U64) -> U64
+
+// multiplies the two numbers, keeping only the lower word of the two's complement result
+export nothrow intrinsic fn timesModulo(self: SWord, factor: SWord) -> SWord
+
+// multiplies the two numbers, keeping only the lower word of the result
+export nothrow intrinsic fn timesModulo(self: UWord, factor: UWord) -> UWord
\ No newline at end of file
@@ -3,7 +3,7 @@ package emerge.core
 import emerge.core.safemath.plusModulo
 import emerge.core.utf8.rejectInvalidUtf8
 
-export class String {
+export class String : Hashable {
     export utf8Data: Array<S8> = init
     
     export constructor {
@@ -18,6 +18,30 @@ export class String {
         return String(newData)
     }
 
+    // concatenates all of the given strings into a new one. In contrast to chaining [plus], this computes the
+    // size of the result upfront and allocates exactly once. The compiler lowers chains of `+` on strings,
+    // e.g. `a + b + c`, to a call to this function.
+    export fn concat(borrow parts: read Array<String>) -> exclusive String {
+        var totalSize: UWord = 0
+        var index: UWord = 0
+        while index < parts.size {
+            set totalSize = totalSize + parts.getOrPanic(index).utf8Data.size
+            set index = index + 1
+        }
+
+        newData: exclusive Array<S8> = Array.new(totalSize, 0 as S8)
+        var offset: UWord = 0
+        set index = 0
+        while index < parts.size {
+            part = parts.getOrPanic(index)
+            Array.copy(part.utf8Data, 0, newData, offset, part.utf8Data.size)
+            set offset = offset + part.utf8Data.size
+            set index = index + 1
+        }
+
+        return String(newData)
+    }
+
     export nothrow operator fn equals(self, borrow other: read String) -> Bool {
         // TODO: horribly inefficient. Needs Array::equals.
         if self.utf8Data.size != other.utf8Data.size {
@@ -27,6 +51,25 @@ export class String {
         return self.startsWith(other)
     }
     
+    // shift-add-xor hash over the UTF-8 bytes; only needs wrapping addition
+    export override fn hashCode(self) -> UWord {
+        var hash: UWord = 5381
+        var index: UWord = 0
+        while index < self.utf8Data.size {
+            byte = self.utf8Data.getOrPanic(index).asU8().toU64().asUWord()
+            mixed = hash.bitShiftLeft(5).plusModulo(hash.logicalBitShiftRight(2)).plusModulo(byte)
+            set hash = hash xor mixed
+            set index = index.plusModulo(1 as UWord)
+        }
+
+        return hash
+    }
+
+    export override fn hashEquals(self, borrow other: read Hashable) -> Bool {
+        otherString = other as? String ?: return false
+        return self == otherString
+    }
+
     export nothrow fn startsWith(self, borrow prefix: read String) -> Bool {
         if self.utf8Data.size < prefix.utf8Data.size {
             return false
@@ -0,0 +1,12 @@
+package emerge.std
+
+// The contract for keys of hash-based collections, e.g. [emerge.std.collections.HashMap].
+// There is no implicit hashing/equality on Any; types opt in explicitly.
+export interface Hashable {
+    // must return the same value for two objects where [hashEquals] is true
+    export fn hashCode(self) -> UWord
+
+    // equality as used by hash-based collections. Must be reflexive, symmetric, transitive and
+    // consistent with [hashCode]. Objects of different types are expected to be unequal.
+    export fn hashEquals(self, borrow other: read Hashable) -> Bool
+}
@@ -0,0 +1,67 @@
+package emerge.std
+
+import emerge.std.io.PrintStream
+
+// A growable buffer to build a [String] from many pieces. Appending is amortized O(1) per byte, because
+// the buffer at least doubles in size whenever it runs out of space.
+// As this is a [PrintStream], any [Printable] can be appended to it through [Printable.printTo].
+export class StringBuilder : PrintStream & Printable {
+    private initialCapacity: UWord = init
+    private var buffer: Array<S8> = Array.new::<S8>(self.initialCapacity, 0 as S8)
+    private var _size: UWord = 0
+
+    export constructor {}
+
+    // the number of bytes of UTF-8 data appended so far
+    export get fn size(self) -> UWord = self._size
+
+    export override fn put(self: mut _, str: String) {
+        self.putUtf8(str.utf8Data, str.utf8Data.size)
+    }
+
+    export override fn putUtf8(self: mut _, borrow utf8Data: read Array<S8>, nBytes: UWord) {
+        self.ensureCapacity(self._size + nBytes)
+        Array.copy(utf8Data, 0, self.buffer, self._size, nBytes)
+        set self._size = self._size + nBytes
+    }
+
+    export override fn putEndOfLine(self: mut _) {
+        self.put("\n")
+    }
+
+    export fn append(self: mut _, borrow value: read Printable) {
+        value.printTo(self)
+    }
+
+    // makes sure that at least [minCapacity] bytes can be held without having to grow the buffer again
+    export fn ensureCapacity(self: mut _, minCapacity: UWord) {
+        if self.buffer.size >= minCapacity {
+            return
+        }
+
+        var newCapacity = self.buffer.size * 2
+        if newCapacity < minCapacity {
+            set newCapacity = minCapacity
+        }
+
+        newBuffer: exclusive _ = Array.new::<S8>(newCapacity, 0 as S8)
+        Array.copy(self.buffer, 0, newBuffer, 0, self._size)
+        set self.buffer = newBuffer
+    }
+
+    // discards all data appended so far, but keeps the buffer for re-use
+    export fn clear(self: mut _) {
+        set self._size = 0
+    }
+
+    // @return a copy of all the data appended so far. The builder stays usable afterwards.
+    export fn toString(self) -> exclusive String {
+        data: exclusive _ = Array.new::<S8>(self._size, 0 as S8)
+        Array.copy(self.buffer, 0, data, 0, self._size)
+        return String(data)
+    }
+
+    export override fn printTo(self, borrow stream: mut PrintStream) {
+        stream.putUtf8(self.buffer, self._size)
+    }
+}
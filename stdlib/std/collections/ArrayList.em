@@ -9,19 +9,70 @@ import emerge.core.range.EmptyRangeException
 import emerge.core.range.BidirectionalRange
 
 export class ArrayList<X : Any> : Iterable<X> {
-    private var storage: Array<X?> = Array.new::<X?>(20, null)
+    // the number of elements the list can hold before it has to allocate again; with 0, the first [add] allocates
+    private initialCapacity: UWord = init
+    private var storage: Array<X?> = Array.new::<X?>(self.initialCapacity, null)
     private var _size: UWord = 0
 
+    export constructor {}
+
     export get fn size(self) -> UWord = self._size
 
+    // the number of elements this list can hold before it has to allocate again
+    export get fn capacity(self) -> UWord = self.storage.size
+
     export fn add(self: mut _, element: X) {
         if self._size >= self.storage.size {
-            self.enlarge()
+            self.ensureCapacity(self._size + 1)
         }
         set self.storage[self._size] = element
         set self._size = self._size + 1
     }
 
+    // adds all remaining elements of [elements] to the end of this list, allocating at most once
+    export fn addAll(self: mut _, borrow elements: mut SizedRange<X>) {
+        self.ensureCapacity(self._size + elements.size)
+        while elements.size > 0 {
+            self.storage.setOrPanic(self._size, elements.front)
+            set self._size = self._size + 1
+            elements.popFront()
+        }
+    }
+
+    // makes sure that at least [minCapacity] elements fit without another allocation. Grows at least
+    // by a factor of 2 to keep repeated [add]s amortized O(1).
+    export fn ensureCapacity(self: mut _, minCapacity: UWord) {
+        if minCapacity <= self.storage.size {
+            return
+        }
+
+        var newCapacity = self.storage.size * 2
+        if newCapacity < DEFAULT_INITIAL_CAPACITY {
+            set newCapacity = DEFAULT_INITIAL_CAPACITY
+        }
+        if newCapacity < minCapacity {
+            set newCapacity = minCapacity
+        }
+        set self.storage = Array.copyResized(self.storage, newCapacity, null)
+    }
+
+    // shrinks the capacity to the current size, releasing the unused memory
+    export fn trimToSize(self: mut _) {
+        if self.storage.size > self._size {
+            set self.storage = Array.copyResized(self.storage, self._size, null)
+        }
+    }
+
+    // removes all elements, but keeps the capacity for reuse
+    export fn clear(self: mut _) {
+        var index: UWord = 0
+        while index < self._size {
+            self.storage.setOrPanic(index, null)
+            set index = index + 1
+        }
+        set self._size = 0
+    }
+
     export operator fn getAtIndex(self, index: UWord) -> X {
         if index >= self._size {
             throw ArrayIndexOutOfBoundsError(index)
@@ -39,12 +90,6 @@ export class ArrayList<X : Any> : Iterable<X> {
     }
 
     export override fn asRange(capture self) -> exclusive SizedRange<X> & RandomAccessRange<X> & BidirectionalRange<X> = ArrayListRange::<X>(self)
-
-    private fn enlarge(self: mut _) {
-        newStorage: exclusive _ = Array.new::<X?>(self.storage.size * 2, null)
-        Array.copy(self.storage, 0, newStorage, 0, self.storage.size)
-        set self.storage = newStorage
-    }
 }
 
 private class ArrayListRange<T : Any> : SizedRange<T> & RandomAccessRange<T> & BidirectionalRange<T> {
@@ -96,4 +141,6 @@ private class ArrayListRange<T : Any> : SizedRange<T> & RandomAccessRange<T> & B
 
         return self.list.getOrPanic(actualIndex)
     }
-}
\ No newline at end of file
+}
+
+private DEFAULT_INITIAL_CAPACITY: UWord = 20
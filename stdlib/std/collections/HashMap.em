@@ -0,0 +1,221 @@
+package emerge.std.collections
+
+import emerge.platform.panic
+import emerge.core.Pair
+import emerge.core.range.Iterable
+import emerge.core.range.SizedRange
+import emerge.core.range.EmptyRangeException
+import emerge.core.safemath.timesModulo
+
+// An open-addressing hash map with linear probing. Keys, values and their hashes are stored in parallel
+// arrays, so there is no per-entry object. Removed entries leave a tombstone that is cleaned up on the
+// next rehash.
+export class HashMap<K : Hashable, V : Any> : Iterable<Pair<K, V>> {
+    private var slotStates: Array<S8> = Array.new::<S8>(HASH_INITIAL_CAPACITY, SLOT_EMPTY)
+    private var slotHashes: Array<UWord> = Array.new::<UWord>(HASH_INITIAL_CAPACITY, 0)
+    private var slotKeys: Array<K?> = Array.new::<K?>(HASH_INITIAL_CAPACITY, null)
+    private var slotValues: Array<V?> = Array.new::<V?>(HASH_INITIAL_CAPACITY, null)
+    private var _size: UWord = 0
+
+    // occupied slots plus tombstones; tombstones lengthen probe sequences just like live entries do
+    private var nUsedSlots: UWord = 0
+
+    export get fn size(self) -> UWord = self._size
+
+    // @return the value associated with [key], or null if there is none
+    export fn get(self, key: K) -> V? {
+        slotIndex = self.findSlotOf(key, mixHash(key.hashCode()))
+        if slotIndex >= self.slotStates.size {
+            return null
+        }
+
+        return self.slotValues.getOrPanic(slotIndex)
+    }
+
+    export fn containsKey(self, key: K) -> Bool = self.findSlotOf(key, mixHash(key.hashCode())) < self.slotStates.size
+
+    // associates [value] with [key]
+    // @return the value previously associated with [key], or null if there was none
+    export fn put(self: mut _, key: K, value: V) -> V? {
+        hash = mixHash(key.hashCode())
+        existingSlotIndex = self.findSlotOf(key, hash)
+        if existingSlotIndex < self.slotStates.size {
+            previousValue = self.slotValues.getOrPanic(existingSlotIndex)
+            self.slotValues.setOrPanic(existingSlotIndex, value)
+            return previousValue
+        }
+
+        // keep the load factor, including tombstones, at or below 3/4
+        if (self.nUsedSlots + 1) * 4 > self.slotStates.size * 3 {
+            if (self._size + 1) * 2 > self.slotStates.size {
+                self.rehash(self.slotStates.size * 2)
+            } else {
+                // mostly tombstones, the same capacity is enough once they are purged
+                self.rehash(self.slotStates.size)
+            }
+        }
+
+        self.insertAbsent(key, hash, value)
+        set self._size = self._size + 1
+        return null
+    }
+
+    // removes the entry for [key], if present
+    // @return the value that was associated with [key], or null if there was none
+    export fn remove(self: mut _, key: K) -> V? {
+        slotIndex = self.findSlotOf(key, mixHash(key.hashCode()))
+        if slotIndex >= self.slotStates.size {
+            return null
+        }
+
+        previousValue = self.slotValues.getOrPanic(slotIndex)
+        self.slotStates.setOrPanic(slotIndex, SLOT_DELETED)
+        self.slotKeys.setOrPanic(slotIndex, null)
+        self.slotValues.setOrPanic(slotIndex, null)
+        set self._size = self._size - 1
+        return previousValue
+    }
+
+    // removes all entries, keeping the current capacity
+    export fn clear(self: mut _) {
+        var slotIndex: UWord = 0
+        while slotIndex < self.slotStates.size {
+            self.slotStates.setOrPanic(slotIndex, SLOT_EMPTY)
+            self.slotKeys.setOrPanic(slotIndex, null)
+            self.slotValues.setOrPanic(slotIndex, null)
+            set slotIndex = slotIndex + 1
+        }
+        set self._size = 0
+        set self.nUsedSlots = 0
+    }
+
+    export override fn asRange(capture self) -> exclusive SizedRange<Pair<K, V>> = HashMapRange::<K, V>(self)
+
+    // @return the index of the slot holding [key], or `self.slotStates.size` if [key] is not present
+    private fn findSlotOf(self, key: K, hash: UWord) -> UWord {
+        mask = self.slotStates.size - 1
+        var slotIndex = hash and mask
+        var nProbed: UWord = 0
+        while nProbed < self.slotStates.size {
+            state = self.slotStates.getOrPanic(slotIndex)
+            if state == SLOT_EMPTY {
+                break
+            }
+
+            if state == SLOT_OCCUPIED and self.slotHashes.getOrPanic(slotIndex) == hash {
+                candidate = self.slotKeys.getOrPanic(slotIndex) ?: panic("occupied hash slot without key")
+                if candidate.hashEquals(key) {
+                    return slotIndex
+                }
+            }
+
+            set slotIndex = (slotIndex + 1) and mask
+            set nProbed = nProbed + 1
+        }
+
+        return self.slotStates.size
+    }
+
+    // inserts into the first free slot of the probe sequence. The caller must make sure that [key] is not
+    // present yet and that there is at least one free slot.
+    private fn insertAbsent(self: mut _, key: K, hash: UWord, value: V) {
+        mask = self.slotStates.size - 1
+        var slotIndex = hash and mask
+        while self.slotStates.getOrPanic(slotIndex) == SLOT_OCCUPIED {
+            set slotIndex = (slotIndex + 1) and mask
+        }
+
+        if self.slotStates.getOrPanic(slotIndex) == SLOT_EMPTY {
+            set self.nUsedSlots = self.nUsedSlots + 1
+        }
+
+        self.slotStates.setOrPanic(slotIndex, SLOT_OCCUPIED)
+        self.slotHashes.setOrPanic(slotIndex, hash)
+        self.slotKeys.setOrPanic(slotIndex, key)
+        self.slotValues.setOrPanic(slotIndex, value)
+    }
+
+    // @param newCapacity must be a power of two
+    private fn rehash(self: mut _, newCapacity: UWord) {
+        oldStates = self.slotStates
+        oldHashes = self.slotHashes
+        oldKeys = self.slotKeys
+        oldValues = self.slotValues
+
+        set self.slotStates = Array.new::<S8>(newCapacity, SLOT_EMPTY)
+        set self.slotHashes = Array.new::<UWord>(newCapacity, 0)
+        set self.slotKeys = Array.new::<K?>(newCapacity, null)
+        set self.slotValues = Array.new::<V?>(newCapacity, null)
+        set self.nUsedSlots = 0
+
+        var oldSlotIndex: UWord = 0
+        while oldSlotIndex < oldStates.size {
+            if oldStates.getOrPanic(oldSlotIndex) == SLOT_OCCUPIED {
+                self.insertAbsent(
+                    oldKeys.getOrPanic(oldSlotIndex) ?: panic("occupied hash slot without key"),
+                    oldHashes.getOrPanic(oldSlotIndex),
+                    oldValues.getOrPanic(oldSlotIndex) ?: panic("occupied hash slot without value")
+                )
+            }
+            set oldSlotIndex = oldSlotIndex + 1
+        }
+    }
+}
+
+// spreads the entropy of [hash] over all its bits. The slot index only uses the lower bits of the hash, and
+// the hash codes of numbers are the numbers themselves: without mixing, keys with a stride, e.g. multiples
+// of 8 or addresses, would all land on a few slots. This is the 64-bit finalizer of MurmurHash3.
+private nothrow fn mixHash(hash: UWord) -> UWord {
+    var mixed = hash.asU64()
+    set mixed = mixed xor mixed.logicalBitShiftRight(33)
+    set mixed = mixed.timesModulo(0xff51afd7ed558ccd as U64)
+    set mixed = mixed xor mixed.logicalBitShiftRight(33)
+    set mixed = mixed.timesModulo(0xc4ceb9fe1a85ec53 as U64)
+    set mixed = mixed xor mixed.logicalBitShiftRight(33)
+    return mixed.asUWord()
+}
+
+private class HashMapRange<K : Hashable, V : Any> : SizedRange<Pair<K, V>> {
+    map: read HashMap<K, V> = init
+    var slotIndex: UWord = 0
+    var nRemaining: UWord = self.map.size
+
+    override get fn size(self) = self.nRemaining
+
+    override get fn front(self) -> Pair<K, V> {
+        if self.nRemaining == 0 {
+            throw EmptyRangeException()
+        }
+
+        frontSlotIndex = self.nextOccupiedSlotIndex(self.slotIndex)
+        return Pair(
+            self.map.slotKeys.getOrPanic(frontSlotIndex) ?: panic("occupied hash slot without key"),
+            self.map.slotValues.getOrPanic(frontSlotIndex) ?: panic("occupied hash slot without value")
+        )
+    }
+
+    override fn popFront(self: mut _) {
+        if self.nRemaining == 0 {
+            return
+        }
+
+        set self.slotIndex = self.nextOccupiedSlotIndex(self.slotIndex) + 1
+        set self.nRemaining = self.nRemaining - 1
+    }
+
+    private fn nextOccupiedSlotIndex(self, startAt: UWord) -> UWord {
+        var index = startAt
+        while self.map.slotStates.getOrPanic(index) != SLOT_OCCUPIED {
+            set index = index + 1
+        }
+
+        return index
+    }
+}
+
+// must be a power of two, so that slot indices can be derived from hashes with a bitmask
+private HASH_INITIAL_CAPACITY: UWord = 16
+
+private SLOT_EMPTY: S8 = 0
+private SLOT_OCCUPIED: S8 = 1
+private SLOT_DELETED: S8 = 2
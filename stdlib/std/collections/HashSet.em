@@ -0,0 +1,46 @@
+package emerge.std.collections
+
+import emerge.core.Pair
+import emerge.core.range.Iterable
+import emerge.core.range.SizedRange
+
+// A set of [Hashable] elements, backed by a [HashMap] from the element to [Unit]. The values are
+// all the same [Unit] instance, so they cost one pointer per slot and no allocations.
+export class HashSet<T : Hashable> : Iterable<T> {
+    private map: HashMap<T, Unit> = HashMap::<T, Unit>()
+
+    export get fn size(self) -> UWord = self.map.size
+
+    export fn contains(self, element: T) -> Bool = self.map.containsKey(element)
+
+    // @return true if the element was added, false if it was already present
+    export fn add(self: mut _, element: T) -> Bool {
+        previous = self.map.put(element, Unit.instance())
+        return isNull(previous)
+    }
+
+    // @return true if the element was present
+    export fn remove(self: mut _, element: T) -> Bool {
+        previous = self.map.remove(element)
+        return not isNull(previous)
+    }
+
+    // removes all elements, keeping the current capacity
+    export fn clear(self: mut _) {
+        self.map.clear()
+    }
+
+    export override fn asRange(capture self) -> exclusive SizedRange<T> = HashSetRange::<T>(self.map.asRange())
+}
+
+private class HashSetRange<T : Hashable> : SizedRange<T> {
+    entries: mut SizedRange<Pair<T, Unit>> = init
+
+    override get fn size(self) = self.entries.size
+
+    override get fn front(self) -> T = self.entries.front.first
+
+    override fn popFront(self: mut _) {
+        self.entries.popFront()
+    }
+}
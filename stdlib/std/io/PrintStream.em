@@ -3,5 +3,9 @@ package emerge.std.io
 // TODO: parameterize side-effects
 export interface PrintStream {
     export fn put(self: mut _, str: String)
+
+    // writes the first [nBytes] bytes of [utf8Data]. Lets callers that keep UTF-8 text in a buffer,
+    // like [emerge.std.StringBuilder], print it without copying it into a [String] first.
+    export fn putUtf8(self: mut _, borrow utf8Data: read Array<S8>, nBytes: UWord)
     export fn putEndOfLine(self: mut _)
 }
\ No newline at end of file
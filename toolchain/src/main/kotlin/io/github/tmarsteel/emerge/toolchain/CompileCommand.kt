@@ -8,7 +8,9 @@ import com.github.ajalt.clikt.parameters.options.option
 import com.github.ajalt.clikt.parameters.options.required
 import com.github.ajalt.clikt.parameters.options.validate
 import com.github.ajalt.clikt.parameters.types.choice
+import com.github.ajalt.clikt.parameters.types.path
 import compiler.InternalCompilerError
+import compiler.ast.ASTSourceFile
 import compiler.binding.context.SoftwareContext
 import compiler.diagnostic.CompilerGeneratedInvalidCodeDiagnostic
 import compiler.diagnostic.Diagnosis
@@ -17,25 +19,29 @@ import compiler.diagnostic.ModuleWithoutSourcesDiagnostic
 import compiler.diagnostic.rendering.MonospaceCanvas
 import compiler.diagnostic.rendering.createBufferedMonospaceCanvas
 import compiler.diagnostic.rendering.toMordantLines
+import compiler.lexer.LexerSourceFile
 import compiler.lexer.SourceSet
-import compiler.lexer.lex
-import compiler.parser.SourceFileRule
+import compiler.parser.SourceFileParseCache
 import compiler.parser.grammar.rule.MatchingResult
 import compiler.util.CircularDependencyException
 import compiler.util.sortedTopologically
 import io.github.tmarsteel.emerge.backend.api.CodeGenerationException
 import io.github.tmarsteel.emerge.backend.api.EmergeBackend
+import io.github.tmarsteel.emerge.common.CanonicalElementName
 import io.github.tmarsteel.emerge.common.EmergeConstants
 import io.github.tmarsteel.emerge.common.config.ConfigModuleDefinition
+import io.github.tmarsteel.emerge.common.trace.ChromeTraceRecorder
+import io.github.tmarsteel.emerge.common.trace.CompilerTrace
 import io.github.tmarsteel.emerge.toolchain.config.ProjectConfig
 import io.github.tmarsteel.emerge.toolchain.config.ToolchainConfig
 import java.io.Closeable
+import java.nio.file.Path
 import java.time.Clock
 import java.time.Duration
 import java.time.Instant
 import kotlin.time.toKotlinDuration
 
-object CompileCommand : CliktCommand() {
+class CompileCommand : CliktCommand() {
     private val toolchainConfig by requireObject<ToolchainConfig>()
     private val projectConfig by requireObject<ProjectConfig>()
 
@@ -48,15 +54,28 @@ object CompileCommand : CliktCommand() {
             }
         }
 
+    private val traceOutputFile: Path? by option("--trace-output", help = "File to write a trace of the compilation to, in the Chrome trace event format")
+        .path(canBeFile = true, canBeDir = false)
+
     override fun run() {
+        val traceOutputFile = traceOutputFile ?: return compile()
+        val recorder = ChromeTraceRecorder()
+        CompilerTrace.recorder = recorder
+        try {
+            compile()
+        } finally {
+            CompilerTrace.recorder = null
+            recorder.writeTo(traceOutputFile)
+        }
+    }
+
+    private fun compile() {
         val toolchainConfigForBackend = toolchainConfig.backendConfigs[target]
             ?: throw CliktError("Missing toolchain configuration for target ${target.targetName}")
         val projectConfigForBackend = projectConfig.targets[target]
             ?: throw CliktError("Missing project configuration for target ${target.targetName}")
         val typeunsafeTarget = target as EmergeBackend<in Any, in Any>
 
-        val swCtx = SoftwareContext()
-
         val measureClock = Clock.systemUTC()
         val startedAt = measureClock.instant()
 
@@ -71,23 +90,22 @@ object CompileCommand : CliktCommand() {
         }
 
         var anyParseErrors = false
+        val astsByModule = LinkedHashMap<CanonicalElementName.Package, MutableList<ASTSourceFile>>()
+        val allSourceFiles = ArrayList<LexerSourceFile>()
         for (moduleRef in modulesToLoad) {
-            val moduleContext = swCtx.registerModule(moduleRef.name, moduleRef.uses)
+            val moduleAsts = ArrayList<ASTSourceFile>()
+            astsByModule[moduleRef.name] = moduleAsts
             SourceSet.load(moduleRef.sourceDirectory, moduleRef.name)
                 .also {
                     if (it.isEmpty()) {
                         echo(ModuleWithoutSourcesDiagnostic(moduleRef.name, moduleRef.sourceDirectory))
                     }
+                    allSourceFiles.addAll(it)
                 }
-                .map { SourceFileRule.match(lex(it), it) }
+                .map(sourceFileParseCache::getOrParse)
                 .forEach { fileResult ->
                     when (fileResult) {
-                        is MatchingResult.Success -> try {
-                            moduleContext.addSourceFile(fileResult.item)
-                        } catch (ex: Exception) {
-                            echo("Error while binding ${fileResult.item.lexerFile}")
-                            throw ex
-                        }
+                        is MatchingResult.Success -> moduleAsts.add(fileResult.item)
                         is MatchingResult.Error -> {
                             echo(fileResult.diagnostic)
                             anyParseErrors = true
@@ -95,8 +113,7 @@ object CompileCommand : CliktCommand() {
                     }
                 }
         }
-
-        val lexicalCompleteAt = measureClock.instant()
+        sourceFileParseCache.retainOnly(allSourceFiles)
 
         if (anyParseErrors) {
             throw PrintMessage(
@@ -106,6 +123,16 @@ object CompileCommand : CliktCommand() {
             )
         }
 
+        // only re-used if this compilation turns out valid, see SoftwareContext.rebindChangedSources
+        val previousSoftwareContext = previousCompilation
+            ?.takeIf { it.modules == modulesToLoad }
+            ?.softwareContext
+        previousCompilation = null
+        val swCtx = previousSoftwareContext?.takeIf { it.rebindChangedSources(astsByModule) }
+            ?: bindSoftwareContext(modulesToLoad, astsByModule)
+
+        val lexicalCompleteAt = measureClock.instant()
+
         val semanticCompleteAt: Instant
         ProcessOnTheGoDiagnosis {
             if (it.severity > Diagnostic.Severity.CONSECUTIVE) {
@@ -123,6 +150,7 @@ object CompileCommand : CliktCommand() {
                 )
             }
         }
+        previousCompilation = RetainedCompilation(modulesToLoad, swCtx)
 
         val irSwCtx = swCtx.toBackendIr()
         val backendStartedAt = measureClock.instant()
@@ -141,6 +169,28 @@ object CompileCommand : CliktCommand() {
         echo("total time: ${elapsedBetween(startedAt, backendDoneAt)}")
     }
 
+    private fun bindSoftwareContext(
+        modules: List<ConfigModuleDefinition>,
+        astsByModule: Map<CanonicalElementName.Package, List<ASTSourceFile>>,
+    ): SoftwareContext {
+        val swCtx = SoftwareContext()
+        for (moduleRef in modules) {
+            val moduleContext = swCtx.registerModule(moduleRef.name, moduleRef.uses)
+            for (ast in astsByModule.getValue(moduleRef.name)) {
+                try {
+                    CompilerTrace.span("bind", ast.lexerFile) {
+                        moduleContext.addSourceFile(ast)
+                    }
+                } catch (ex: Exception) {
+                    echo("Error while binding ${ast.lexerFile}")
+                    throw ex
+                }
+            }
+        }
+
+        return swCtx
+    }
+
     private val diagnosticEchoCanvas = createBufferedMonospaceCanvas(MonospaceCanvas.RenderTargetInfo(8))
     private fun echo(diagnostic: Diagnostic) {
         diagnostic.render(diagnosticEchoCanvas)
@@ -154,9 +204,23 @@ fun main(args: Array<String>) {
     if (backends.isEmpty()) {
         throw InternalCompilerError("No backends found!")
     }
-    CompileCommand.main(args)
+    CompileCommand().main(args)
 }
 
+/** lives as long as the JVM, so that a [PersistentWorker] only lexes and parses files that changed since the last request */
+private val sourceFileParseCache = SourceFileParseCache()
+
+/**
+ * the last valid compilation; lives as long as the JVM, so that a [PersistentWorker] only has to analyse the
+ * packages affected by the changes since the last request
+ */
+private var previousCompilation: RetainedCompilation? = null
+
+private class RetainedCompilation(
+    val modules: List<ConfigModuleDefinition>,
+    val softwareContext: SoftwareContext,
+)
+
 private val Iterable<Diagnostic>.containsErrors
     get() = map(Diagnostic::severity).any { it.level >= Diagnostic.Severity.ERROR.level }
 
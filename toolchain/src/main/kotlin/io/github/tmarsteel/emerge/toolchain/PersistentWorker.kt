@@ -0,0 +1,99 @@
+package io.github.tmarsteel.emerge.toolchain
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.SerializationFeature
+import com.fasterxml.jackson.module.kotlin.readValues
+import com.fasterxml.jackson.module.kotlin.registerKotlinModule
+import com.github.ajalt.clikt.core.CliktError
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
+import java.io.PrintStream
+
+/**
+ * Implements the [Bazel persistent worker protocol](https://bazel.build/remote/persistent) in its JSON flavor:
+ * keeps a single JVM alive across compilations, so that the JIT-compiled toolchain and the loaded LLVM library
+ * are re-used. The [CompileCommand] also keeps state of the program it compiled for the next request: the parsed
+ * source files, and the [compiler.binding.context.SoftwareContext] of the last valid compilation, whose unchanged
+ * packages are not analysed again. That state lives in globals of the JVM and is not safe for concurrent use.
+ *
+ * Hence, requests are handled one at a time, in the order they arrive; and the worker must not be declared to
+ * support multiplexing (`supports-multiplex-workers`), which would have Bazel send concurrent requests.
+ *
+ * @param startupArguments the arguments the worker was started with, minus [COMMAND_LINE_FLAG]. These are prepended
+ * to the arguments of each request, e.g. `--toolchain-config`.
+ */
+class PersistentWorker(
+    private val startupArguments: List<String>,
+    private val input: InputStream = System.`in`,
+    private val protocolOutput: PrintStream = System.out,
+) {
+    fun run() {
+        // anything the compiler prints must end up in the response, not in the protocol stream
+        System.setOut(System.err)
+
+        val requests = objectMapper.readValues<WorkRequest>(objectMapper.createParser(input))
+        while (requests.hasNextValue()) {
+            val request = requests.nextValue()
+            val response = handle(request)
+            protocolOutput.println(objectMapper.writeValueAsString(response))
+            protocolOutput.flush()
+        }
+    }
+
+    private fun handle(request: WorkRequest): WorkResponse {
+        val outputBuffer = ByteArrayOutputStream()
+        val exitCode = PrintStream(outputBuffer, true, Charsets.UTF_8).use { requestOutput ->
+            val stdoutBefore = System.out
+            System.setOut(requestOutput)
+            try {
+                runCommand(startupArguments + request.arguments, requestOutput)
+            } finally {
+                System.setOut(stdoutBefore)
+            }
+        }
+
+        return WorkResponse(exitCode, outputBuffer.toString(Charsets.UTF_8), request.requestId)
+    }
+
+    /**
+     * Like [com.github.ajalt.clikt.core.CliktCommand.main], but doesn't exit the process.
+     * @return the exit code
+     */
+    private fun runCommand(arguments: List<String>, output: PrintStream): Int {
+        val command = ToolchainMain()
+        return try {
+            command.parse(arguments)
+            0
+        } catch (ex: CliktError) {
+            command.getFormattedHelp(ex)?.let(output::println)
+            ex.statusCode
+        } catch (ex: Throwable) {
+            ex.printStackTrace(output)
+            1
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    internal data class WorkRequest(
+        val arguments: List<String> = emptyList(),
+        /** 0 for singleplex workers */
+        val requestId: Int = 0,
+    )
+
+    internal data class WorkResponse(
+        val exitCode: Int,
+        val output: String,
+        val requestId: Int,
+    )
+
+    companion object {
+        /** appended by Bazel to the startup arguments of a worker process */
+        const val COMMAND_LINE_FLAG = "--persistent_worker"
+
+        private val objectMapper = ObjectMapper().also {
+            it.registerKotlinModule()
+            it.disable(SerializationFeature.INDENT_OUTPUT)
+        }
+    }
+}
@@ -11,13 +11,13 @@ import io.github.tmarsteel.emerge.toolchain.config.ProjectConfig
 import io.github.tmarsteel.emerge.toolchain.config.parseAsConfig
 import java.nio.file.Path
 
-object ProjectCommand : CliktCommand() {
+class ProjectCommand : CliktCommand() {
     private val projectConfigFile: Path by option("--project-config", help = "Configuration file for the project; usually created by the build system")
         .path(mustExist = true, canBeFile = true, canBeDir = false, mustBeReadable = true, canBeSymlink = true)
         .required()
 
     init {
-        subcommands(CompileCommand)
+        subcommands(CompileCommand())
     }
 
     override fun run() {
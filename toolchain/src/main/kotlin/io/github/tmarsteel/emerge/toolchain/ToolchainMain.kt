@@ -11,13 +11,13 @@ import io.github.tmarsteel.emerge.toolchain.config.ToolchainConfig
 import io.github.tmarsteel.emerge.toolchain.config.parseAsConfig
 import java.nio.file.Path
 
-object ToolchainMain : CliktCommand() {
+class ToolchainMain : CliktCommand() {
     private val toolchainConfigFile: Path by option("--toolchain-config", help = "Configuration file for the toolchain; created during setup")
         .path(mustExist = true, canBeFile = true, canBeDir = false, mustBeReadable = true, canBeSymlink = true)
         .required()
 
     init {
-        subcommands(ProjectCommand)
+        subcommands(ProjectCommand())
     }
 
     override fun run() {
@@ -32,5 +32,10 @@ object ToolchainMain : CliktCommand() {
 }
 
 fun main(args: Array<String>) {
-    ToolchainMain.main(args)
+    if (PersistentWorker.COMMAND_LINE_FLAG in args) {
+        PersistentWorker(startupArguments = args.filter { it != PersistentWorker.COMMAND_LINE_FLAG }).run()
+        return
+    }
+
+    ToolchainMain().main(args)
 }
\ No newline at end of file
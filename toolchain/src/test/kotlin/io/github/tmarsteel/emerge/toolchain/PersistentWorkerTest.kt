@@ -0,0 +1,57 @@
+package io.github.tmarsteel.emerge.toolchain
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.ObjectMapper
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.collections.shouldHaveSize
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import io.kotest.matchers.string.shouldContain
+import java.io.ByteArrayOutputStream
+import java.io.PrintStream
+
+class PersistentWorkerTest : FreeSpec({
+    fun runWorker(vararg requests: String): List<JsonNode> {
+        val protocolOutput = ByteArrayOutputStream()
+        val stdoutBefore = System.out
+        try {
+            PersistentWorker(
+                startupArguments = emptyList(),
+                input = requests.joinToString("\n").byteInputStream(Charsets.UTF_8),
+                protocolOutput = PrintStream(protocolOutput, true, Charsets.UTF_8),
+            ).run()
+        } finally {
+            System.setOut(stdoutBefore)
+        }
+
+        val objectMapper = ObjectMapper()
+        return protocolOutput.toString(Charsets.UTF_8)
+            .lines()
+            .filter { it.isNotBlank() }
+            .map(objectMapper::readTree)
+    }
+
+    "answers every request with the exit code and the output of the command" {
+        val responses = runWorker(
+            """{"arguments": ["--help"]}""",
+            """{"arguments": ["--no-such-option"], "requestId": 0}""",
+        )
+
+        responses shouldHaveSize 2
+
+        responses[0]["exitCode"].asInt() shouldBe 0
+        responses[0]["output"].asText() shouldContain "--toolchain-config"
+        responses[0]["requestId"].asInt() shouldBe 0
+
+        responses[1]["exitCode"].asInt() shouldNotBe 0
+        responses[1]["output"].asText() shouldContain "--no-such-option"
+        responses[1]["requestId"].asInt() shouldBe 0
+    }
+
+    "echoes the request id" {
+        val responses = runWorker("""{"arguments": ["--help"], "requestId": 7, "inputs": []}""")
+
+        responses shouldHaveSize 1
+        responses.single()["requestId"].asInt() shouldBe 7
+    }
+})
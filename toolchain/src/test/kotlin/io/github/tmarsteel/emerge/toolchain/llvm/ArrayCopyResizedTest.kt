@@ -0,0 +1,65 @@
+package io.github.tmarsteel.emerge.toolchain.llvm
+
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+
+/**
+ * The number of array representations `Array::copyResized` distinguishes between at runtime, one value array
+ * per primitive type and the reference array.
+ */
+private const val N_ARRAY_REPRESENTATIONS = 12
+
+class ArrayCopyResizedTest : FreeSpec({
+    val ir by lazy {
+        emitLlvmIr("""
+            import emerge.std.collections.ArrayList
+
+            fn growValues(borrow values: read Array<S32>) -> exclusive Array<S32> = Array.copyResized::<S32>(values, values.size + 4, 7)
+            fn shrinkValues(borrow values: read Array<S32>) -> exclusive Array<S32> = Array.copyResized::<S32>(values, 1, 0)
+            fn growReferences(borrow strings: read Array<String>) -> exclusive Array<String> = Array.copyResized::<String>(strings, strings.size + 4, "filler")
+            fn shrinkReferences(borrow strings: read Array<String>) -> exclusive Array<String> = Array.copyResized::<String>(strings, 1, "filler")
+            fn growWithNull(borrow strings: read Array<String?>) -> exclusive Array<String?> = Array.copyResized::<String?>(strings, strings.size + 4, null)
+
+            mut fn main() {
+                values = Array.new::<S32>(3, 1)
+                growValues(values)
+                shrinkValues(values)
+
+                strings = Array.new::<String>(3, "a")
+                growReferences(strings)
+                shrinkReferences(strings)
+
+                nullableStrings = Array.new::<String?>(3, null)
+                growWithNull(nullableStrings)
+
+                list: mut _ = ArrayList::<String>(0)
+                list.add("a")
+                list.trimToSize()
+            }
+        """.trimIndent())
+    }
+
+    "value and reference arrays, growing and shrinking, go through the same intrinsic" {
+        for (caller in listOf("growValues", "shrinkValues", "growReferences", "shrinkReferences", "growWithNull")) {
+            ir.functionDefinition(caller) shouldContain "copyResized"
+        }
+    }
+
+    "copies the common prefix of source and result with a single memcpy per array representation" {
+        val copyResized = ir.functionDefinition("copyResized")
+
+        // min(source size, new size): grows copy all of the source, shrinks only as much as fits
+        copyResized.lines().count { "icmp ult i64" in it } shouldBe N_ARRAY_REPRESENTATIONS
+        copyResized.lines().count { " = select i1 " in it } shouldBe N_ARRAY_REPRESENTATIONS
+        copyResized.lines().count { "call void @llvm.memcpy" in it } shouldBe N_ARRAY_REPRESENTATIONS
+    }
+
+    "doesn't fill the tail for a null filler" {
+        ir.functionDefinition("copyResized").lines().count { "icmp eq ptr %2, null" in it } shouldBe N_ARRAY_REPRESENTATIONS
+    }
+
+    "ArrayList resizes its storage with a null filler" {
+        ir.functionDefinition("trimToSize") shouldContain Regex("""copyResized"\(ptr %[^,]+, i64 %[^,]+, ptr null\)""")
+    }
+})
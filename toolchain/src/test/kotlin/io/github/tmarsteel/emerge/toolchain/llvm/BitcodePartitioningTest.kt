@@ -0,0 +1,79 @@
+package io.github.tmarsteel.emerge.toolchain.llvm
+
+import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmSplitter
+import io.github.tmarsteel.emerge.backend.llvm.jna.Llvm
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.collections.shouldHaveSize
+import io.kotest.matchers.ints.shouldBeLessThanOrEqual
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.io.path.ExperimentalPathApi
+import kotlin.io.path.deleteRecursively
+import kotlin.io.path.readBytes
+
+private const val N_PARTITIONS = 16
+
+/**
+ * The object file cache of the linux backend relies on unchanged code ending up in byte-identical partitions.
+ */
+@OptIn(ExperimentalPathApi::class)
+class BitcodePartitioningTest : FreeSpec({
+    lateinit var workingDirectory: Path
+    beforeEach {
+        workingDirectory = Files.createTempDirectory("emerge-partitioning-test")
+    }
+    afterEach {
+        workingDirectory.deleteRecursively()
+    }
+
+    fun split(name: String, code: String): List<ByteArray> {
+        val bitcodeFile = workingDirectory.resolve("$name.bc")
+        withLlvmModule(code) { llvmContext ->
+            check(Llvm.LLVMWriteBitcodeToFile(llvmContext.module, bitcodeFile.toString()) == 0)
+        }
+
+        return LlvmSplitter.fromLlvmInstallationDirectory(llvmInstallationDirectory)
+            .splitBitcodeFile(bitcodeFile, workingDirectory.resolve("$name.bc."), N_PARTITIONS)
+            .map { it.readBytes() }
+    }
+
+    fun changedPartitions(before: List<ByteArray>, after: List<ByteArray>): List<Int> {
+        return before.indices.filterNot { before[it].contentEquals(after[it]) }
+    }
+
+    "editing the body of one function changes only the partition that contains it" {
+        fun program(factor: Int) = """
+            import emerge.platform.StandardOut
+
+            fn compute(n: UWord) -> UWord = n * $factor
+
+            mut fn main() {
+                StandardOut.put("result: " + compute(4).toString() + "\n")
+            }
+        """.trimIndent()
+
+        changedPartitions(split("before", program(3)), split("after", program(5))) shouldHaveSize 1
+    }
+
+    "editing a string literal changes only the partitions of the function and of the constant" {
+        fun program(greeting: String) = """
+            import emerge.platform.StandardOut
+
+            fn greet() {
+                StandardOut.put("$greeting\n")
+            }
+
+            fn farewell() {
+                StandardOut.put("Goodbye\n")
+            }
+
+            mut fn main() {
+                greet()
+                farewell()
+            }
+        """.trimIndent()
+
+        // the function, the byte array and the string object
+        changedPartitions(split("before", program("Hello")), split("after", program("Hi"))).size shouldBeLessThanOrEqual 3
+    }
+})
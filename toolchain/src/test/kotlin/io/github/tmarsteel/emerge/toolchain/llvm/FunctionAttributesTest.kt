@@ -0,0 +1,75 @@
+package io.github.tmarsteel.emerge.toolchain.llvm
+
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.string.shouldNotContain
+
+class FunctionAttributesTest : FreeSpec({
+    "exclusive parameters are not noalias" - {
+        "the same object can be passed to an exclusive and a read parameter" {
+            val ir = emitLlvmIr("""
+                class C {
+                    var n: S32 = 0
+                }
+
+                mut fn writeThenReadArgument(borrow a: exclusive C, borrow b: read C) -> S32 {
+                    set a.n = 1
+                    return b.n
+                }
+
+                mut fn main() {
+                    c: exclusive _ = C()
+                    writeThenReadArgument(c, c)
+                }
+            """.trimIndent())
+
+            ir.functionDefinitionLine("writeThenReadArgument") shouldNotContain "noalias"
+        }
+
+        "a read reference to the object can be reachable from another argument" {
+            val ir = emitLlvmIr("""
+                class C {
+                    var n: S32 = 0
+                }
+
+                class Holder {
+                    var c: read C? = null
+                }
+
+                mut fn writeThenReadHeld(borrow a: exclusive C, borrow h: read Holder) -> S32 {
+                    set a.n = 1
+                    return h.c?.n ?: 0
+                }
+
+                mut fn main() {
+                    c: exclusive _ = C()
+                    h: mut _ = Holder()
+                    set h.c = c
+                    writeThenReadHeld(c, h)
+                }
+            """.trimIndent())
+
+            ir.functionDefinitionLine("writeThenReadHeld") shouldNotContain "noalias"
+        }
+    }
+
+    "purity and read-only parameters have no attributes, reading code writes reference counters" {
+        val ir = emitLlvmIr("""
+            class C {
+                n: S32 = 0
+            }
+
+            fn sumOfBoth(a: const C, b: read C) -> S32 = a.n + b.n
+
+            mut fn main() {
+                sumOfBoth(C(), C())
+            }
+        """.trimIndent())
+
+        val definition = ir.functionDefinitionLine("sumOfBoth")
+        definition shouldNotContain "readonly"
+        definition shouldNotContain "noalias"
+        val functionAttributes = ir.functionAttributeGroup(definition)
+        functionAttributes shouldNotContain "memory("
+        functionAttributes shouldNotContain "willreturn"
+    }
+})
@@ -0,0 +1,77 @@
+package io.github.tmarsteel.emerge.toolchain.llvm
+
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.string.shouldContain
+import io.kotest.matchers.string.shouldNotContain
+
+class GlobalInitializerTest : FreeSpec({
+    // without the passes, globalopt would fold the constant globals into their uses
+    val ir by lazy {
+        emitLlvmIr("""
+            import emerge.platform.StandardOut
+
+            intGlobal: S32 = 42
+            negativeGlobal: S32 = -7
+            boolGlobal: Bool = true
+            nullGlobal: String? = null
+            stringGlobal: String = "hello"
+            var reAssignedGlobal: S32 = 3
+            concatenatedGlobal: String = stringGlobal + "!"
+
+            mut fn main() {
+                set reAssignedGlobal = intGlobal + negativeGlobal
+                if boolGlobal {
+                    StandardOut.put(nullGlobal ?: stringGlobal)
+                    StandardOut.put(concatenatedGlobal)
+                }
+            }
+        """.trimIndent(), runPasses = false)
+    }
+
+    "literal initializers become the initializer of a constant global" - {
+        "integer" {
+            ir.globalDefinitionLine("testmodule.intGlobal") shouldContain "constant i32 42"
+        }
+
+        "negative integer" {
+            ir.globalDefinitionLine("testmodule.negativeGlobal") shouldContain "constant i32 -7"
+        }
+
+        "boolean" {
+            ir.globalDefinitionLine("testmodule.boolGlobal") shouldContain "constant i1 true"
+        }
+
+        "null" {
+            ir.globalDefinitionLine("testmodule.nullGlobal") shouldContain "constant ptr null"
+        }
+
+        "string" {
+            ir.globalDefinitionLine("testmodule.stringGlobal") shouldContain Regex("""constant ptr @const\.[0-9a-f]+""")
+        }
+    }
+
+    "constant globals are not thread-local" {
+        for (name in listOf("intGlobal", "negativeGlobal", "boolGlobal", "nullGlobal", "stringGlobal")) {
+            ir.globalDefinitionLine("testmodule.$name") shouldNotContain "thread_local"
+        }
+    }
+
+    "a re-assigned global gets its literal initial value, but stays mutable and thread-local" {
+        val definition = ir.globalDefinitionLine("testmodule.reAssignedGlobal")
+        definition shouldContain "thread_local"
+        definition shouldContain "global i32 3"
+        definition shouldNotContain "constant"
+    }
+
+    "a global that needs code to compute its value is initialized at runtime" {
+        ir.globalDefinitionLine("testmodule.concatenatedGlobal") shouldContain "undef"
+        ir.functionDefinition("_emerge_thread_init") shouldContain "@testmodule.concatenatedGlobal"
+    }
+
+    "globals initialized at compile time are not written at runtime" {
+        val threadInit = ir.functionDefinition("_emerge_thread_init")
+        for (name in listOf("intGlobal", "negativeGlobal", "boolGlobal", "nullGlobal", "stringGlobal", "reAssignedGlobal")) {
+            threadInit shouldNotContain Regex("""store .*, ptr @testmodule\.$name\b""")
+        }
+    }
+})
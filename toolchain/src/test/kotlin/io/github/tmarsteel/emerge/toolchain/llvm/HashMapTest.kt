@@ -0,0 +1,260 @@
+package io.github.tmarsteel.emerge.toolchain.llvm
+
+import io.github.tmarsteel.emerge.backend.llvm.linux_x86_64.Linux_x68_64_Backend
+import io.github.tmarsteel.emerge.toolchain.ToolchainMain
+import io.github.tmarsteel.emerge.toolchain.config.ProjectConfig
+import io.github.tmarsteel.emerge.toolchain.config.parseAsConfig
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+import io.kotest.matchers.string.shouldNotContain
+import java.nio.file.Files
+import kotlin.io.path.createDirectories
+import kotlin.io.path.writeText
+
+/*
+The runtime tests compile and link a program with the full toolchain, so they need a toolchain configuration like
+the one created during setup, given in the system property emerge.runtime-tests.toolchain-config. Without it, only
+the tests on the LLVM IR run.
+ */
+
+private const val TOOLCHAIN_CONFIG_PROPERTY = "emerge.runtime-tests.toolchain-config"
+
+private val INTEGER_TYPES = listOf("S32", "U32", "S64", "U64", "SWord", "UWord")
+
+/**
+ * @return the definition of the single function whose symbol name contains all of [nameFragments], see [functionDefinition]
+ */
+private fun String.functionDefinitionContaining(vararg nameFragments: String): String {
+    val symbolName = lines()
+        .filter { it.startsWith("define ") }
+        .map { it.substringAfter('@').substringBefore('(') }
+        .single { symbol -> nameFragments.all { it in symbol } }
+    return functionDefinition(symbolName)
+}
+
+class HashMapTest : FreeSpec({
+    // without the passes, the functions of the stdlib are all there and the globals are not folded into their uses
+    val ir by lazy {
+        emitLlvmIr("""
+            mut fn main() {
+            }
+        """.trimIndent(), runPasses = false)
+    }
+
+    "integers of different types are different keys" - {
+        for (type in INTEGER_TYPES) {
+            "$type checks for exactly its own type" {
+                val hashEquals = ir.functionDefinitionContaining("hashEquals", type)
+                hashEquals shouldContain "@typeinfo_emerge.core.${type}_"
+                for (otherType in INTEGER_TYPES - type) {
+                    hashEquals shouldNotContain "@typeinfo_emerge.core.${otherType}_"
+                }
+            }
+        }
+    }
+
+    "removing an entry leaves a tombstone, so that keys behind it in the probe sequence are still found" {
+        val remove = ir.functionDefinitionContaining("HashMap", "remove")
+        remove shouldContain "@emerge.std.collections.SLOT_DELETED"
+        remove shouldNotContain "@emerge.std.collections.SLOT_EMPTY"
+
+        val findSlotOf = ir.functionDefinitionContaining("HashMap", "findSlotOf")
+        findSlotOf shouldContain "@emerge.std.collections.SLOT_EMPTY"
+        findSlotOf shouldNotContain "@emerge.std.collections.SLOT_DELETED"
+    }
+
+    "collisions, tombstones and resizes at runtime".config(enabledIf = { System.getProperty(TOOLCHAIN_CONFIG_PROPERTY) != null }) {
+        val projectDirectory = Files.createTempDirectory("emerge-hashmap-test")
+        projectDirectory.resolve("src").createDirectories().resolve("main.em").writeText(HASHMAP_TEST_PROGRAM)
+        val projectConfigFile = projectDirectory.resolve("project-config.yml")
+        projectConfigFile.writeText("""
+            modules:
+              - name: hashmaptest
+                sources: ./src
+            targets:
+              x86_64-pc-linux-gnu:
+                output-directory: ./out
+        """.trimIndent())
+
+        val backend = Linux_x68_64_Backend()
+        ToolchainMain().parse(listOf(
+            "--toolchain-config", System.getProperty(TOOLCHAIN_CONFIG_PROPERTY),
+            "project", "--project-config", projectConfigFile.toString(),
+            "compile", "--target", backend.targetName,
+        ))
+        val executable = projectConfigFile.parseAsConfig<ProjectConfig>()
+            .targets
+            .values
+            .filterIsInstance<Linux_x68_64_Backend.ProjectConfig>()
+            .single()
+            .executablePath
+
+        val process = ProcessBuilder(executable.toString())
+            .redirectErrorStream(true)
+            .start()
+        val output = process.inputStream.bufferedReader().readText()
+        process.waitFor() shouldBe 0
+        output shouldBe "ok\n"
+    }
+})
+
+// panics on the first check that fails
+private val HASHMAP_TEST_PROGRAM = """
+package hashmaptest
+
+import emerge.platform.StandardOut
+import emerge.platform.panic
+import emerge.std.Hashable
+import emerge.std.collections.HashMap
+
+class CollidingKey : Hashable {
+    n: UWord = init
+
+    override fn hashCode(self) -> UWord = 42
+
+    override fn hashEquals(self, borrow other: read Hashable) -> Bool {
+        otherKey = other as? CollidingKey ?: return false
+        return self.n == otherKey.n
+    }
+}
+
+fn expect(condition: Bool, message: String) {
+    if not condition {
+        panic(message)
+    }
+}
+
+// all keys have the same hash, so they share one probe sequence
+fn collidingKeys() {
+    map: mut _ = HashMap::<CollidingKey, UWord>()
+    var n: UWord = 0
+    while n < 64 {
+        map.put(CollidingKey(n), n)
+        set n = n + 1
+    }
+    expect(map.size == 64, "colliding keys replaced each other")
+
+    set n = 0
+    while n < 64 {
+        value = map.get(CollidingKey(n)) ?: panic("colliding key not found")
+        expect(value == n, "colliding key found with the value of another key")
+        set n = n + 1
+    }
+    expect(not map.containsKey(CollidingKey(64)), "absent colliding key found")
+}
+
+fn tombstones() {
+    map: mut _ = HashMap::<CollidingKey, UWord>()
+    map.put(CollidingKey(1), 1)
+    map.put(CollidingKey(2), 2)
+    map.put(CollidingKey(3), 3)
+
+    removed = map.remove(CollidingKey(2)) ?: panic("removing a present key returned null")
+    expect(removed == 2, "remove returned the value of another key")
+    expect(not map.containsKey(CollidingKey(2)), "removed key still found")
+    behindTombstone = map.get(CollidingKey(3)) ?: panic("key behind a tombstone not found")
+    expect(behindTombstone == 3, "key behind a tombstone found with the value of another key")
+    expect(map.size == 2, "removed key still counted")
+
+    // leaves far more tombstones than fit into the map, so they have to be purged along the way
+    var n: UWord = 10
+    while n < 1000 {
+        map.put(CollidingKey(n), n)
+        map.remove(CollidingKey(n))
+        set n = n + 1
+    }
+    expect(map.size == 2, "tombstones counted as entries")
+    expect(map.containsKey(CollidingKey(1)) and map.containsKey(CollidingKey(3)), "entry lost while purging tombstones")
+}
+
+fn resize() {
+    map: mut _ = HashMap::<UWord, UWord>()
+    var n: UWord = 0
+    while n < 10000 {
+        map.put(n, n * 2)
+        set n = n + 1
+    }
+    expect(map.size == 10000, "entries lost in a resize")
+
+    set n = 0
+    while n < 10000 {
+        value = map.get(n) ?: panic("key lost in a resize")
+        expect(value == n * 2, "values mixed up in a resize")
+        set n = n + 1
+    }
+}
+
+fn reinsertAcrossResize() {
+    map: mut _ = HashMap::<UWord, UWord>()
+    var n: UWord = 0
+    while n < 8 {
+        map.put(n, n)
+        set n = n + 1
+    }
+    set n = 0
+    while n < 8 {
+        map.remove(n)
+        set n = n + 1
+    }
+
+    // grows far beyond the initial capacity while the tombstones of the removed keys are there
+    set n = 100
+    while n < 1100 {
+        map.put(n, n)
+        set n = n + 1
+    }
+
+    set n = 0
+    while n < 8 {
+        expect(not map.containsKey(n), "removed key back after a resize")
+        map.put(n, n + 1)
+        set n = n + 1
+    }
+    expect(map.size == 1008, "reinserted keys not counted exactly once")
+
+    set n = 0
+    while n < 8 {
+        value = map.get(n) ?: panic("reinserted key not found")
+        expect(value == n + 1, "reinserted key found with a stale value")
+        set n = n + 1
+    }
+
+    previous = map.put(5, 50) ?: panic("replacing the value of a present key returned null")
+    expect(previous == 6, "replacing returned a stale value")
+    expect(map.size == 1008, "replacing a value added an entry")
+}
+
+// all of these have the same hash code, only hashEquals tells them apart
+fn integerKeysOfDifferentTypes() {
+    map: mut _ = HashMap::<Hashable, String>()
+    s32: S32 = 5
+    u32: U32 = 5
+    s64: S64 = 5
+    u64: U64 = 5
+    sWord: SWord = 5
+    uWord: UWord = 5
+    map.put(s32, "S32")
+    map.put(u32, "U32")
+    map.put(s64, "S64")
+    map.put(u64, "U64")
+    map.put(sWord, "SWord")
+    map.put(uWord, "UWord")
+    expect(map.size == 6, "numbers of different types considered equal")
+
+    sameS32: S32 = 5
+    valueForS32 = map.get(sameS32) ?: panic("S32 key not found")
+    expect(valueForS32 == "S32", "S32 key found with the value of another type")
+    valueForU64 = map.get(u64) ?: panic("U64 key not found")
+    expect(valueForU64 == "U64", "U64 key found with the value of another type")
+}
+
+mut fn main() {
+    collidingKeys()
+    tombstones()
+    resize()
+    reinsertAcrossResize()
+    integerKeysOfDifferentTypes()
+    StandardOut.put("ok\n")
+}
+""".trimIndent()
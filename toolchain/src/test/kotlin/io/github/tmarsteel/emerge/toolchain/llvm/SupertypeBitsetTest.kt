@@ -0,0 +1,150 @@
+package io.github.tmarsteel.emerge.toolchain.llvm
+
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.kotest.matchers.comparables.shouldBeGreaterThan
+import io.kotest.matchers.comparables.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import io.kotest.matchers.string.shouldNotContain
+
+/**
+ * The ID all types share that can't be a supertype, see `TypeinfoIds.NOT_A_SUPERTYPE` in the llvm-backend
+ */
+private const val NOT_A_SUPERTYPE = UInt.MAX_VALUE
+
+/**
+ * The ID and the supertype bitset as they are in the initializer of a typeinfo global
+ */
+private class TypeinfoIdentity(val typeId: UInt, val nBitsetWords: Int, val supertypeIds: Set<UInt>)
+
+private val TYPE_ID_AND_BITSET_PATTERN = Regex("""i32 (-?\d+), i32 (\d+), ptr (null|@[-\w$.]+)""")
+
+private fun String.typeinfoIdentity(typeinfoGlobalName: String): TypeinfoIdentity {
+    val match = TYPE_ID_AND_BITSET_PATTERN.find(globalDefinitionLine(typeinfoGlobalName))
+        ?: throw AssertionError("$typeinfoGlobalName doesn't look like a typeinfo")
+    val (typeId, nWords, bitsetRef) = match.destructured
+    val supertypeIds = if (bitsetRef == "null") emptySet() else {
+        globalDefinitionLine(bitsetRef.removePrefix("@"))
+            .substringAfter("x i32] [")
+            .substringBefore("]")
+            .split(", ")
+            .map { it.removePrefix("i32 ").toLong().toUInt() }
+            .withIndex()
+            .flatMap { (wordIndex, word) ->
+                (0 until 32)
+                    .filter { bit -> (word shr bit) and 1u == 1u }
+                    .map { bit -> (wordIndex * 32 + bit).toUInt() }
+            }
+            .toSet()
+    }
+
+    return TypeinfoIdentity(typeId.toLong().toUInt(), nWords.toInt(), supertypeIds)
+}
+
+private fun interfaceTypeinfo(simpleName: String) = "typeinfo_testmodule.${simpleName}_interface"
+private fun classTypeinfo(simpleName: String) = "typeinfo_testmodule.${simpleName}_dynamic"
+
+class SupertypeBitsetTest : FreeSpec({
+    "IDs follow the canonical names, not the order of declaration" {
+        fun program(interfaceDeclarations: List<String>) = """
+            ${interfaceDeclarations.joinToString("\n")}
+
+            class C : Alpha & Beta & Gamma {}
+
+            fn isAlpha(x: Any) -> Bool = x is Alpha
+
+            mut fn main() {
+                isAlpha(C())
+            }
+        """.trimIndent()
+
+        val declarations = listOf("interface Gamma {}", "interface Alpha {}", "interface Beta {}")
+        val ir = emitLlvmIr(program(declarations), runPasses = false)
+        val irReordered = emitLlvmIr(program(declarations.reversed()), runPasses = false)
+
+        val alpha = ir.typeinfoIdentity(interfaceTypeinfo("Alpha")).typeId
+        val beta = ir.typeinfoIdentity(interfaceTypeinfo("Beta")).typeId
+        val gamma = ir.typeinfoIdentity(interfaceTypeinfo("Gamma")).typeId
+        alpha shouldBeLessThan beta
+        beta shouldBeLessThan gamma
+
+        for (name in listOf("Alpha", "Beta", "Gamma")) {
+            irReordered.typeinfoIdentity(interfaceTypeinfo(name)).typeId shouldBe ir.typeinfoIdentity(interfaceTypeinfo(name)).typeId
+        }
+        irReordered.typeinfoIdentity(classTypeinfo("C")).supertypeIds shouldBe ir.typeinfoIdentity(classTypeinfo("C")).supertypeIds
+    }
+
+    "classes can't be supertypes and share an ID that is in no bitset" {
+        val ir = emitLlvmIr("""
+            interface I {}
+            class C : I {}
+            class D {}
+
+            fn isC(x: Any) -> Bool = x is C
+
+            mut fn main() {
+                isC(D())
+            }
+        """.trimIndent(), runPasses = false)
+
+        ir.typeinfoIdentity(classTypeinfo("C")).typeId shouldBe NOT_A_SUPERTYPE
+        ir.typeinfoIdentity(classTypeinfo("D")).typeId shouldBe NOT_A_SUPERTYPE
+        ir.typeinfoIdentity(interfaceTypeinfo("I")).typeId shouldNotBe NOT_A_SUPERTYPE
+        ir.typeinfoIdentity(classTypeinfo("D")).supertypeIds.shouldBeEmpty()
+    }
+
+    "a deep hierarchy of interfaces, with IDs beyond the first word of the bitset" - {
+        val depth = 40
+        val names = (0 until depth).map { "Level%02d".format(it) }
+        val ir by lazy {
+            emitLlvmIr("""
+                interface ${names.first()} {}
+                ${names.zipWithNext { superName, name -> "interface $name : $superName {}" }.joinToString("\n")}
+                class Bottom : ${names.last()} {}
+
+                fn isTop(x: Any) -> Bool = x is ${names.first()}
+
+                mut fn main() {
+                    isTop(Bottom())
+                }
+            """.trimIndent(), runPasses = false)
+        }
+
+        "the IDs don't fit into one word" {
+            val ids = names.map { ir.typeinfoIdentity(interfaceTypeinfo(it)).typeId }
+            ids.toSet().size shouldBe depth
+            ids.max() shouldBeGreaterThan 31u
+        }
+
+        "every interface has exactly its transitive supertypes in its bitset" {
+            names.forEachIndexed { level, name ->
+                val expectedSupertypeIds = names.take(level).map { ir.typeinfoIdentity(interfaceTypeinfo(it)).typeId }
+                ir.typeinfoIdentity(interfaceTypeinfo(name)).supertypeIds shouldContainExactlyInAnyOrder expectedSupertypeIds
+            }
+        }
+
+        "the class has all of them in its bitset, which is just as long as the highest ID needs" {
+            val ids = names.map { ir.typeinfoIdentity(interfaceTypeinfo(it)).typeId }
+            val bottom = ir.typeinfoIdentity(classTypeinfo("Bottom"))
+            bottom.supertypeIds shouldContainExactlyInAnyOrder ids
+            bottom.nBitsetWords shouldBe (ids.max() / 32u).toInt() + 1
+        }
+    }
+
+    "the bitset test is inlined into the subtype check" {
+        val ir = emitLlvmIr("""
+            interface I {}
+            class C : I {}
+
+            fn isI(x: Any) -> Bool = x is I
+
+            mut fn main() {
+                isI(C())
+            }
+        """.trimIndent())
+
+        ir.functionDefinition("isSubtypeOfAssumeDynamic") shouldNotContain "hasInSupertypes"
+    }
+})
@@ -0,0 +1,48 @@
+package io.github.tmarsteel.emerge.toolchain.llvm
+
+import io.kotest.core.spec.style.FreeSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+import io.kotest.matchers.string.shouldNotContain
+
+class UnusedFunctionStrippingTest : FreeSpec({
+    val code = """
+        fn keptFn(borrow values: read Array<S32>) -> exclusive Array<S32> = Array.copyResized::<S32>(values, values.size + 1, 0)
+
+        fn strippedFn(x: S32) -> S32 = x * 3
+
+        mut fn main() {
+            keptFn(Array.new::<S32>(3, 1))
+        }
+    """.trimIndent()
+
+    val irWithoutPasses by lazy { emitLlvmIr(code, runPasses = false) }
+    val ir by lazy { emitLlvmIr(code) }
+
+    "emerge functions have internal linkage" {
+        irWithoutPasses.functionDefinitionLine("keptFn") shouldContain "define internal "
+        irWithoutPasses.functionDefinitionLine("strippedFn") shouldContain "define internal "
+    }
+
+    "intrinsics have internal linkage" {
+        irWithoutPasses.functionDefinitionLine("copyResized") shouldContain "define internal "
+    }
+
+    "functions not reachable from the entrypoint are removed" {
+        irWithoutPasses.definesFunction("strippedFn") shouldBe true
+        ir.definesFunction("strippedFn") shouldBe false
+    }
+
+    "functions reachable from the entrypoint are kept" {
+        ir.definesFunction("keptFn") shouldBe true
+        ir.definesFunction("copyResized") shouldBe true
+    }
+
+    "the symbols referred to from outside the module stay visible" {
+        for (name in listOf("main", "_Ux86_64_setcontext")) {
+            val definition = ir.lines().single { it.startsWith("define ") && "@$name(" in it }
+            definition shouldNotContain "internal"
+            definition shouldNotContain "private"
+        }
+    }
+})
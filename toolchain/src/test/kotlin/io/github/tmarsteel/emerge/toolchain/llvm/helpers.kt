@@ -0,0 +1,178 @@
+package io.github.tmarsteel.emerge.toolchain.llvm
+
+import compiler.ast.ASTSourceFile
+import compiler.binding.context.SoftwareContext
+import compiler.diagnostic.Diagnosis
+import compiler.lexer.LexerSourceFile
+import compiler.lexer.MemoryLexerSourceFile
+import compiler.lexer.SourceSet
+import compiler.lexer.lex
+import compiler.parser.SourceFileRule
+import compiler.parser.grammar.rule.MatchingResult
+import io.github.tmarsteel.emerge.backend.api.ir.IrSoftwareContext
+import io.github.tmarsteel.emerge.backend.llvm.dsl.LlvmTarget
+import io.github.tmarsteel.emerge.backend.llvm.intrinsics.EmergeLlvmContext
+import io.github.tmarsteel.emerge.backend.llvm.jna.Llvm
+import io.github.tmarsteel.emerge.backend.llvm.linux_x86_64.Linux_x68_64_Backend
+import io.github.tmarsteel.emerge.common.CanonicalElementName
+import io.github.tmarsteel.emerge.common.EmergeConstants
+import io.github.tmarsteel.emerge.common.config.ConfigModuleDefinition
+import java.nio.file.Path
+import java.nio.file.Paths
+import kotlin.io.path.exists
+
+/*
+Builds LLVM modules from emerge code the way Linux_x68_64_Backend.emit does, up to and excluding llvm-split and llc.
+Needs an LLVM installation, given in the system property emerge.llvm-tests.llvm-install-dir like for the tests
+of the llvm-backend module.
+ */
+
+private const val LLVM_INSTALL_DIR_PROPERTY = "emerge.llvm-tests.llvm-install-dir"
+
+val llvmInstallationDirectory: Path by lazy {
+    val installDir = Paths.get(
+        System.getProperty(LLVM_INSTALL_DIR_PROPERTY) ?: error("Missing system property $LLVM_INSTALL_DIR_PROPERTY")
+    )
+    Llvm.loadNativeLibrary(installDir)
+    Llvm.LLVMInitializeX86TargetInfo()
+    Llvm.LLVMInitializeX86Target()
+    Llvm.LLVMInitializeX86TargetMC()
+    Llvm.LLVMInitializeX86AsmPrinter()
+    Llvm.LLVMInitializeX86AsmParser()
+    installDir
+}
+
+private val projectRoot: Path by lazy {
+    var assumedRoot = Paths.get(".").toAbsolutePath().parent
+    require(assumedRoot.resolve("pom.xml").exists()) { "The tests must execute with a CWD that is one of the maven modules." }
+    var assumedRootParent = assumedRoot.parent
+    while (assumedRootParent.resolve("pom.xml").exists()) {
+        assumedRoot = assumedRootParent
+        assumedRootParent = assumedRoot.parent
+    }
+
+    assumedRoot
+}
+
+private val linuxModulesParsed: List<Pair<ConfigModuleDefinition, List<ASTSourceFile>>> by lazy {
+    val llvmBackendSources = projectRoot.resolve("llvm-backend/src/main")
+    (listOf(
+        ConfigModuleDefinition(EmergeConstants.CoreModule.NAME, projectRoot.resolve("stdlib/core")),
+        ConfigModuleDefinition(EmergeConstants.StdModule.NAME, projectRoot.resolve("stdlib/std"), uses = setOf(EmergeConstants.CoreModule.NAME)),
+    ) + Linux_x68_64_Backend.getTargetSpecificModules(
+        ffiCSources = llvmBackendSources.resolve("emerge-ffi-c"),
+        libcSources = llvmBackendSources.resolve("emerge-linux-libc"),
+        platformSources = llvmBackendSources.resolve("emerge-platform-linux"),
+    ))
+        .map { module ->
+            module to SourceSet.load(module.sourceDirectory, module.name).map { it.parse() }
+        }
+}
+
+private val testModuleName = CanonicalElementName.Package(listOf("testmodule"))
+
+private fun LexerSourceFile.parse(): ASTSourceFile {
+    return when (val result = SourceFileRule.match(lex(this), this)) {
+        is MatchingResult.Success -> result.item
+        is MatchingResult.Error -> throw AssertionError("Failed to parse $this: ${result.diagnostic}")
+    }
+}
+
+/**
+ * Compiles [code], as the sources of the package `testmodule`, together with the stdlib and the modules of
+ * the linux platform. [code] must declare a `main` function and must not contain errors.
+ */
+fun compileToBackendIr(code: String): IrSoftwareContext {
+    val swCtx = SoftwareContext()
+    linuxModulesParsed.forEach { (module, sourceFiles) ->
+        val moduleCtx = swCtx.registerModule(module.name, module.uses)
+        sourceFiles.forEach(moduleCtx::addSourceFile)
+    }
+    swCtx.registerModule(testModuleName, setOf(EmergeConstants.PlatformModule.NAME))
+        .addSourceFile(MemoryLexerSourceFile("testmodule.em", testModuleName, "package testmodule\n\n$code\n").parse())
+
+    swCtx.doSemanticAnalysis(Diagnosis.failOnError())
+    return swCtx.toBackendIr()
+}
+
+/**
+ * Builds the LLVM module for [code] (see [compileToBackendIr]) and invokes [action] on it. The module is disposed of
+ * afterward.
+ * @param runPasses whether to run the LLVM passes that [Linux_x68_64_Backend.emit] runs before splitting the module
+ */
+fun <R> withLlvmModule(code: String, runPasses: Boolean = true, action: (EmergeLlvmContext) -> R): R {
+    llvmInstallationDirectory
+    val backend = Linux_x68_64_Backend()
+    val softwareContext = compileToBackendIr(code)
+    var result: Any? = null
+    EmergeLlvmContext.createDoAndDispose(LlvmTarget.fromTriple(backend.targetName), emitDebugInfo = false) { llvmContext ->
+        backend.defineSoftware(softwareContext, llvmContext)
+        if (runPasses) {
+            backend.runPasses(llvmContext)
+        }
+        result = action(llvmContext)
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    return result as R
+}
+
+/**
+ * @return the textual LLVM IR of the module for [code], see [withLlvmModule]
+ */
+fun emitLlvmIr(code: String, runPasses: Boolean = true): String {
+    return withLlvmModule(code, runPasses) { llvmContext ->
+        Llvm.LLVMPrintModuleToString(llvmContext.module).value
+    }
+}
+
+/**
+ * @return the `define` line of the single function in this LLVM IR whose symbol name contains [nameFragment]; emerge
+ * functions have mangled names that contain their simple name.
+ */
+fun String.functionDefinitionLine(nameFragment: String): String {
+    return lines().single { it.isDefinitionOfFunction(nameFragment) }
+}
+
+/**
+ * @return whether this LLVM IR defines a function whose symbol name contains [nameFragment]
+ */
+fun String.definesFunction(nameFragment: String): Boolean {
+    return lines().any { it.isDefinitionOfFunction(nameFragment) }
+}
+
+/**
+ * @return the definition of the single function in this LLVM IR whose symbol name contains [nameFragment], from the
+ * `define` line up to and including the closing brace
+ */
+fun String.functionDefinition(nameFragment: String): String {
+    val lines = lines()
+    val start = lines.indexOfFirst { it.isDefinitionOfFunction(nameFragment) }
+    check(start >= 0) { "no function with $nameFragment in its name is defined" }
+    val endInclusive = start + lines.subList(start, lines.size).indexOf("}")
+    return lines.subList(start, endInclusive + 1).joinToString("\n")
+}
+
+private fun String.isDefinitionOfFunction(nameFragment: String): Boolean {
+    return startsWith("define ") && nameFragment in substringAfter('@').substringBefore('(')
+}
+
+/**
+ * @return the line of this LLVM IR that defines the global variable with the symbol name [name]
+ */
+fun String.globalDefinitionLine(name: String): String {
+    return lines().single { it.startsWith("@$name = ") || it.startsWith("@\"$name\" = ") }
+}
+
+/**
+ * @return the contents of the attribute group referenced by [functionDefinitionLine], e.g. `nounwind uwtable`
+ */
+fun String.functionAttributeGroup(functionDefinitionLine: String): String {
+    val groupRef = Regex("""\)[^(]*(#\d+)""").find(functionDefinitionLine)?.groupValues?.get(1)
+        ?: return ""
+    return lines()
+        .single { it.startsWith("attributes $groupRef = ") }
+        .substringAfter('{')
+        .substringBeforeLast('}')
+        .trim()
+}